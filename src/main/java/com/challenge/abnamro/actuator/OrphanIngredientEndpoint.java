@@ -0,0 +1,25 @@
+package com.challenge.abnamro.actuator;
+
+import com.challenge.abnamro.model.dto.OrphanIngredientReclamationDTO;
+import com.challenge.abnamro.service.OrphanIngredientService;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint providing progress of reclamation of orphaned ingredients,
+ * available as <code>GET /actuator/orphaningredients</code>.
+ */
+@Component
+@Endpoint(id = "orphaningredients")
+@AllArgsConstructor
+public class OrphanIngredientEndpoint {
+
+	private final OrphanIngredientService orphanIngredientService;
+
+	@ReadOperation
+	public OrphanIngredientReclamationDTO progress() {
+		return this.orphanIngredientService.getProgress();
+	}
+}
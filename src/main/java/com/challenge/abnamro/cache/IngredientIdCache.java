@@ -0,0 +1,176 @@
+package com.challenge.abnamro.cache;
+
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.repository.IngredientRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of ingredient ids by ingredient name, shared by all threads.
+ *
+ * Cache is populated once application is ready and then on demand.
+ * Ids of ingredients inserted by a transaction are cached only once it is committed,
+ * and are invalidated if it is rolled back, so that cache never holds id of an ingredient which is not persisted.
+ * Unknown names are not cached, they are looked up again on next request.
+ *
+ * Hit ratio, size and load latency are published as actuator metrics of cache {@link IngredientIdCache#NAME}.
+ */
+@Component
+@Slf4j
+public class IngredientIdCache {
+
+	public static final String NAME = "ingredientIds";
+
+	//maximum number of names sent to database in one IN list
+	private static final int NAME_LOOKUP_BATCH_SIZE = 1000;
+
+	private final IngredientRepository ingredientRepository;
+	private final int maximumSize;
+	private final LoadingCache<String, Long> idsByName;
+
+	public IngredientIdCache(final IngredientRepository ingredientRepository,
+							 final MeterRegistry meterRegistry,
+							 @Value("${recipe.ingredient.id-cache.max-size:100000}") final int maximumSize) {
+
+		this.ingredientRepository = ingredientRepository;
+		this.maximumSize = maximumSize;
+		this.idsByName
+				= Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.recordStats()
+				.build(new CacheLoader<String, Long>() {
+
+					@Override
+					public Long load(final String name) {
+						return loadIds(Collections.singletonList(name)).get(name);
+					}
+
+					@Override
+					public Map<String, Long> loadAll(final Iterable<? extends String> names) {
+
+						List<String> nameList = new ArrayList<>();
+						names.forEach(nameList::add);
+
+						return loadIds(nameList);
+					}
+				});
+
+		CaffeineCacheMetrics.monitor(meterRegistry, this.idsByName, NAME);
+
+		Gauge.builder("cache.hit.ratio", this.idsByName, cache -> cache.stats().hitRate())
+				.tag("cache", NAME)
+				.description("The ratio of cache requests which were hits")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Find ids of ingredients by name.
+	 * Names which are not cached are found by one query per {@link IngredientIdCache#NAME_LOOKUP_BATCH_SIZE} names.
+	 *
+	 * @param names of ingredients
+	 * @return ids of known ingredients by name, unknown names are left out
+	 */
+	public Map<String, Long> getAll(final Collection<String> names) {
+		return this.idsByName.getAll(names);
+	}
+
+	/**
+	 * Cache ids of ingredients inserted by current transaction once it is committed.
+	 * If it is rolled back, names are invalidated, as they might have been loaded from uncommitted rows.
+	 *
+	 * @param ingredients inserted by current transaction
+	 */
+	public void putAfterCommit(final Collection<Ingredient> ingredients) {
+
+		Map<String, Long> idsByName
+				= ingredients.stream()
+				.collect(Collectors.toMap(Ingredient::getName, Ingredient::getId));
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			this.idsByName.putAll(idsByName);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCompletion(final int status) {
+
+				if (status == STATUS_COMMITTED)
+					IngredientIdCache.this.idsByName.putAll(idsByName);
+				else
+					IngredientIdCache.this.idsByName.invalidateAll(idsByName.keySet());
+			}
+		});
+	}
+
+	/**
+	 * Invalidate ids of ingredients deleted by current transaction once it is completed.
+	 * Ids are not invalidated before, as they could be loaded again from rows which are not deleted yet.
+	 *
+	 * @param names of ingredients deleted by current transaction
+	 */
+	public void invalidateAfterCompletion(final Collection<String> names) {
+
+		List<String> nameList = new ArrayList<>(names);
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			this.idsByName.invalidateAll(nameList);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCompletion(final int status) {
+				IngredientIdCache.this.idsByName.invalidateAll(nameList);
+			}
+		});
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+
+		List<Ingredient> ingredients
+				= this.ingredientRepository
+				.findAll(PageRequest.of(0, this.maximumSize, Sort.by("id")))
+				.getContent();
+
+		ingredients.forEach(ingredient -> this.idsByName.put(ingredient.getName(), ingredient.getId()));
+
+		log.info("Cached ids of {} ingredients", ingredients.size());
+	}
+
+	private Map<String, Long> loadIds(final List<String> names) {
+
+		Map<String, Long> idsByName = new HashMap<>();
+
+		for (int from = 0; from < names.size(); from += NAME_LOOKUP_BATCH_SIZE)
+			this.ingredientRepository
+					.findByNameIn(names.subList(from, Math.min(from + NAME_LOOKUP_BATCH_SIZE, names.size())))
+					.forEach(ingredient -> idsByName.put(ingredient.getName(), ingredient.getId()));
+
+		return idsByName;
+	}
+}
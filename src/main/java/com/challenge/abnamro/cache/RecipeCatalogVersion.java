@@ -0,0 +1,56 @@
+package com.challenge.abnamro.cache;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of recipe catalog, incremented whenever a recipe change is committed.
+ *
+ * Version is a part of cache keys, hence entries cached for an older version are never read again
+ * and are left for eviction. Unlike clearing the cache, a search running concurrently with a commit
+ * can not put its (possibly stale) result under the new version.
+ *
+ * That holds only for results read from primary database. Version is incremented on commit to primary,
+ * while replica may not have applied the commit yet, so a result read from replica could be cached
+ * under the new version and served until it expires. Hence results are not cached when replica is configured,
+ * see {@link com.challenge.abnamro.configuration.DataSourceConfiguration}, searches are answered
+ * mostly by indexes and replica takes the load of loading results instead.
+ */
+@Component
+public class RecipeCatalogVersion {
+
+	private final AtomicLong version = new AtomicLong();
+
+	private final boolean cacheable;
+
+	public RecipeCatalogVersion(@Value("${recipe.datasource.replica.jdbc-url:}") final String replicaJdbcUrl) {
+		this.cacheable = !StringUtils.hasText(replicaJdbcUrl);
+	}
+
+	public long get() {
+		return this.version.get();
+	}
+
+	/**
+	 * @return true if results can be cached by version, i.e. they are read from primary database
+	 */
+	public boolean isCacheable() {
+		return this.cacheable;
+	}
+
+	/*
+	 * Invoked after indexes are updated, so that searches for new version see committed change.
+	 */
+	@TransactionalEventListener
+	@Order(Ordered.LOWEST_PRECEDENCE)
+	public void onRecipeChanged(final RecipeChangedEvent recipeChangedEvent) {
+		this.version.incrementAndGet();
+	}
+}
@@ -0,0 +1,18 @@
+package com.challenge.abnamro.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches are provided by Caffeine, their size and expiry are configured in application properties.
+ * Hit, miss and eviction statistics of every cache are published as actuator metrics.
+ *
+ * Caching is applied before transactions, so that cached results are returned without starting a transaction.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfiguration {
+
+	public static final String RECIPE_SEARCH_CACHE = "recipeSearch";
+}
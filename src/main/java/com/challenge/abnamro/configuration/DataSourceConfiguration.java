@@ -0,0 +1,105 @@
+package com.challenge.abnamro.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+
+/**
+ * Read-only transactions are served by replica database, if <code>recipe.datasource.replica.jdbc-url</code> is configured.
+ * Primary database is configured by <code>spring.datasource.*</code> properties, replica by
+ * <code>recipe.datasource.replica.*</code> Hikari properties, e.g. <code>jdbc-url</code>,
+ * <code>username</code> and <code>maximum-pool-size</code>.
+ *
+ * Schema is migrated on primary only, replica is expected to replicate it.
+ * Replica may lag behind primary, hence reads served by replica populate neither second-level cache,
+ * see {@link ReplicaJpaDialect}, nor cache of search results, see {@link com.challenge.abnamro.cache.RecipeCatalogVersion}.
+ * Without replica, Spring Boot's single data source is used for all transactions.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recipe.datasource.replica.jdbc-url")
+public class DataSourceConfiguration {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(final DataSourceProperties dataSourceProperties) {
+
+		HikariDataSource dataSource
+				= dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+
+		return dataSource;
+	}
+
+	@Bean
+	@ConfigurationProperties("recipe.datasource.replica")
+	public HikariDataSource replicaDataSource(final DataSourceProperties dataSourceProperties) {
+
+		//replica uses driver and credentials of primary unless they are configured
+		HikariDataSource dataSource
+				= dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+
+		return dataSource;
+	}
+
+	/**
+	 * Data source used by JPA, Flyway and all other components.
+	 * Connection is obtained on first statement, when it is known whether transaction is read-only.
+	 *
+	 * @param primaryDataSource serving writes and connections outside of transaction
+	 * @param replicaDataSource serving read-only transactions
+	 * @return routing data source
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") final DataSource primaryDataSource,
+								 @Qualifier("replicaDataSource") final DataSource replicaDataSource) {
+
+		ReadWriteRoutingDataSource routingDataSource
+				= new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource);
+		routingDataSource.afterPropertiesSet();
+
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	/**
+	 * Vendor adapter configured like Spring Boot's one, whose dialect does not populate second-level cache
+	 * by read-only transactions.
+	 *
+	 * @param jpaProperties configured by <code>spring.jpa.*</code> properties
+	 * @return Hibernate vendor adapter with {@link ReplicaJpaDialect}
+	 */
+	@Bean
+	public JpaVendorAdapter jpaVendorAdapter(final JpaProperties jpaProperties) {
+
+		ReplicaJpaDialect jpaDialect = new ReplicaJpaDialect();
+		HibernateJpaVendorAdapter jpaVendorAdapter = new HibernateJpaVendorAdapter() {
+
+			@Override
+			public HibernateJpaDialect getJpaDialect() {
+				return jpaDialect;
+			}
+		};
+
+		jpaVendorAdapter.setShowSql(jpaProperties.isShowSql());
+		if (jpaProperties.getDatabase() != null)
+			jpaVendorAdapter.setDatabase(jpaProperties.getDatabase());
+		jpaVendorAdapter.setDatabasePlatform(jpaProperties.getDatabasePlatform());
+		jpaVendorAdapter.setGenerateDdl(jpaProperties.isGenerateDdl());
+
+		return jpaVendorAdapter;
+	}
+}
@@ -2,24 +2,24 @@ package com.challenge.abnamro.configuration;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
-import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import javax.sql.DataSource;
+import javax.persistence.EntityManagerFactory;
 
 @Configuration
-@Profile("!test")
 public class JPAConfiguration {
 
 	/**
-	 * Transaction Manager bean to be used by Spring's transaction management
+	 * Transaction Manager bean to be used by Spring's transaction management.
+	 * Read-only transactions are passed to Hibernate, i.e. session is not flushed
+	 * and loaded entities are not snapshotted for dirty checking.
 	 *
-	 * @param dataSource for database
+	 * @param entityManagerFactory of persistence unit
 	 * @return Transaction Manager of type {@link PlatformTransactionManager}
 	 */
 	@Bean
-	public PlatformTransactionManager transactionManager(final DataSource dataSource) {
-		return new DataSourceTransactionManager(dataSource);
+	public PlatformTransactionManager transactionManager(final EntityManagerFactory entityManagerFactory) {
+		return new JpaTransactionManager(entityManagerFactory);
 	}
 }
@@ -0,0 +1,38 @@
+package com.challenge.abnamro.configuration;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data source routing connections of read-only transactions to replica and all other connections to primary.
+ *
+ * Transaction is known to be read-only only after its connection is requested,
+ * hence this data source must be wrapped by
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which requests connection when first statement is executed.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	public static final String PRIMARY = "primary";
+	public static final String REPLICA = "replica";
+
+	public ReadWriteRoutingDataSource(final DataSource primaryDataSource, final DataSource replicaDataSource) {
+
+		Map<Object, Object> targetDataSources = new HashMap<>();
+		targetDataSources.put(PRIMARY, primaryDataSource);
+		targetDataSources.put(REPLICA, replicaDataSource);
+
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(primaryDataSource);
+		setLenientFallback(false);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+	}
+}
@@ -0,0 +1,69 @@
+package com.challenge.abnamro.configuration;
+
+import lombok.AllArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+
+/**
+ * Hibernate dialect used when read-only transactions are served by replica, see {@link ReadWriteRoutingDataSource}.
+ *
+ * Replica may lag behind primary, hence read-only transactions read second-level cache but never put into it,
+ * otherwise an entity read before replica applied its change would be served until it expires.
+ * Second-level cache is populated only by transactions on primary, which read and write committed state.
+ */
+public class ReplicaJpaDialect extends HibernateJpaDialect {
+
+	private static final String CACHE_STORE_MODE = "javax.persistence.cache.storeMode";
+
+	@Override
+	public Object beginTransaction(final EntityManager entityManager, final TransactionDefinition definition)
+			throws PersistenceException, SQLException, TransactionException {
+
+		Object cacheStoreMode = entityManager.getProperties().getOrDefault(CACHE_STORE_MODE, CacheStoreMode.USE);
+
+		if (definition.isReadOnly())
+			entityManager.setProperty(CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+
+		try {
+			return new ReplicaTransactionData(
+					super.beginTransaction(entityManager, definition), entityManager, cacheStoreMode);
+		} catch (SQLException | RuntimeException ex) {
+			entityManager.setProperty(CACHE_STORE_MODE, cacheStoreMode);
+			throw ex;
+		}
+	}
+
+	/*
+	 * Cache store mode is restored, as entity manager outlives transaction when it is bound to request.
+	 */
+	@Override
+	public void cleanupTransaction(@Nullable final Object transactionData) {
+
+		ReplicaTransactionData replicaTransactionData = (ReplicaTransactionData) transactionData;
+
+		if (replicaTransactionData == null) {
+			super.cleanupTransaction(null);
+			return;
+		}
+
+		replicaTransactionData.entityManager.setProperty(CACHE_STORE_MODE, replicaTransactionData.cacheStoreMode);
+		super.cleanupTransaction(replicaTransactionData.transactionData);
+	}
+
+	@AllArgsConstructor
+	private static class ReplicaTransactionData {
+
+		private final Object transactionData;
+
+		private final EntityManager entityManager;
+
+		private final Object cacheStoreMode;
+	}
+}
@@ -0,0 +1,15 @@
+package com.challenge.abnamro.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs e.g. reclamation of orphaned ingredients, are run by Spring scheduling.
+ * Scheduling can be disabled, e.g. by tests running jobs on demand.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "recipe.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,86 @@
+package com.challenge.abnamro.configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache is provided by Caffeine through JCache.
+ *
+ * Every region is created upfront, so that its size and expiry are configured in application properties,
+ * i.e. <code>recipe.second-level-cache.&lt;region&gt;.max-size</code>
+ * and <code>recipe.second-level-cache.&lt;region&gt;.expire-after-write</code>.
+ * Statistics of every region are published as actuator metrics of Hibernate.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+	public static final String INGREDIENT_REGION = "ingredient";
+	public static final String RECIPE_REGION = "recipe";
+	public static final String RECIPE_INGREDIENTS_REGION = "recipe.ingredients";
+
+	private static final String PROPERTY_PREFIX = "recipe.second-level-cache.";
+
+	private static final String[] CONFIGURABLE_REGIONS = {
+			INGREDIENT_REGION,
+			RECIPE_REGION,
+			RECIPE_INGREDIENTS_REGION,
+			RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME};
+
+	/**
+	 * Cache manager owning second-level cache regions.
+	 * Every application context gets its own cache manager, so that cached contexts do not share cached data.
+	 *
+	 * @param environment holding region properties
+	 * @return JCache cache manager
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager secondLevelCacheManager(final Environment environment) {
+
+		CacheManager cacheManager
+				= new CaffeineCachingProvider().getCacheManager(
+						URI.create("second-level-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+
+		for (String region : CONFIGURABLE_REGIONS)
+			cacheManager.createCache(region, getRegionConfiguration(environment, region));
+
+		//timestamps of last update per table must outlive cached query results, hence region is not bounded
+		cacheManager.createCache(
+				RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+
+		return cacheManager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(final CacheManager secondLevelCacheManager) {
+		return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+	}
+
+	private static CaffeineConfiguration<Object, Object> getRegionConfiguration(final Environment environment,
+																				final String region) {
+
+		Long maxSize = environment.getRequiredProperty(PROPERTY_PREFIX + region + ".max-size", Long.class);
+		Duration expireAfterWrite
+				= environment.getProperty(PROPERTY_PREFIX + region + ".expire-after-write", Duration.class);
+
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setMaximumSize(OptionalLong.of(maxSize));
+
+		if (Objects.nonNull(expireAfterWrite))
+			configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+
+		return configuration;
+	}
+}
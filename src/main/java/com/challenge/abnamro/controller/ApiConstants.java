@@ -9,6 +9,28 @@ public class ApiConstants {
 	public static class Endpoints {
 		public static final String RECIPES = "/recipes";
 		public static final String SEARCH = "/search";
+		public static final String EXPORT = "/export";
+		public static final String FACETS = "/facets";
+		public static final String EXPRESSION = "/expression";
+		public static final String BATCH = "/batch";
+		public static final String BULK = "/bulk";
+		public static final String DELETE = "/delete";
+		public static final String SUMMARIES = "/summaries";
+	}
+
+	public static class QueryParams {
+		public static final String LIMIT = "limit";
+		public static final String AFTER = "after";
+	}
+
+	public static class MediaTypes {
+		public static final String APPLICATION_MERGE_PATCH_JSON = "application/merge-patch+json";
+	}
+
+	public static class Headers {
+		public static final String PREFER = "Prefer";
+		public static final String PREFERENCE_APPLIED = "Preference-Applied";
+		public static final String RETURN_REPRESENTATION = "return=representation";
 	}
 
 	public static class Version {
@@ -0,0 +1,37 @@
+package com.challenge.abnamro.controller;
+
+import com.challenge.abnamro.model.page.KeysetPage;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * Paged response carries page content in body, same as unpaged response,
+ * and link to the next page in {@link HttpHeaders#LINK} header, e.g.
+ * <code>Link: &lt;http://localhost:8080/recipesApp/V1.0/recipes?limit=10&amp;after=MTA&gt;; rel="next"</code>.
+ * Link is not provided for the last page.
+ */
+class KeysetPageResponses {
+
+	static <T> ResponseEntity<List<T>> toResponseEntity(final KeysetPage<T> keysetPage,
+														final KeysetPageRequest keysetPageRequest) {
+
+		ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+
+		if (keysetPage.hasNext()) {
+
+			String nextPageUri
+					= ServletUriComponentsBuilder.fromCurrentRequest()
+						.replaceQueryParam(ApiConstants.QueryParams.LIMIT, keysetPageRequest.getLimit())
+						.replaceQueryParam(ApiConstants.QueryParams.AFTER, keysetPage.getNextCursor())
+						.toUriString();
+
+			responseBuilder.header(HttpHeaders.LINK, "<" + nextPageUri + ">; rel=\"next\"");
+		}
+
+		return responseBuilder.body(keysetPage.getContent());
+	}
+}
@@ -1,7 +1,15 @@
 package com.challenge.abnamro.controller;
 
+import com.challenge.abnamro.model.dto.RecipeBulkDeleteResultDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkResultDTO;
 import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.service.RecipeBulkService;
+import com.challenge.abnamro.service.RecipePatchService;
 import com.challenge.abnamro.service.RecipeService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -9,17 +17,24 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping(
@@ -31,6 +46,8 @@ class RecipeController {
 	static final String PATH_VARIABLE_ID = "/{id}";
 
 	private final RecipeService recipeService;
+	private final RecipeBulkService recipeBulkService;
+	private final RecipePatchService recipePatchService;
 
 	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<RecipeDTO> post(@Valid @RequestBody final RecipeDTO recipeDTO) {
@@ -43,33 +60,196 @@ class RecipeController {
 					.buildAndExpand(createdRecipeDTO.getId())
 					.toUri();
 
-		return ResponseEntity
-				.status(HttpStatus.CREATED)
-				.header(HttpHeaders.LOCATION, createdRecipeUri.toString())
-				.body(createdRecipeDTO);
+		return RecipeETags.toResponseEntity(
+				ResponseEntity
+						.status(HttpStatus.CREATED)
+						.header(HttpHeaders.LOCATION, createdRecipeUri.toString()),
+				createdRecipeDTO);
 	}
 
+	/**
+	 * Create many recipes with one request, e.g. to synchronise catalog.
+	 *
+	 * Every recipe is validated and created on its own, failure of one recipe
+	 * e.g. invalid recipe or violation of recipe uniqueness, is reported as error of its result
+	 * instead of failing whole request.
+	 *
+	 * @param recipeDTOs in request body
+	 * @return {@link HttpStatus#OK} with one result per recipe, in order of recipes
+	 */
+	@PostMapping(value = ApiConstants.Endpoints.BULK, consumes = MediaType.APPLICATION_JSON_VALUE)
+	public List<RecipeBulkResultDTO> postBulk(@NotNull @RequestBody final List<RecipeDTO> recipeDTOs) {
+		return this.recipeBulkService.create(recipeDTOs);
+	}
+
+	/**
+	 * Delete all recipes matching to search criteria with one request.
+	 *
+	 * Matching recipes are deleted by set based statements, without loading them.
+	 *
+	 * @param recipeSearchCriteria in request body
+	 * @return {@link HttpStatus#OK} with number of deleted recipes, even if no recipe is matched
+	 */
+	@PostMapping(value = ApiConstants.Endpoints.BULK + ApiConstants.Endpoints.DELETE,
+			consumes = MediaType.APPLICATION_JSON_VALUE)
+	public RecipeBulkDeleteResultDTO deleteBulk(
+			@NotNull @Valid @RequestBody final RecipeSearchCriteria recipeSearchCriteria) {
+		return this.recipeBulkService.delete(recipeSearchCriteria);
+	}
+
+	/**
+	 * Without paging parameters all recipes are returned.
+	 * Otherwise, a page of recipes ordered by id is returned, along with link to the next page if any.
+	 *
+	 * @param limit maximum number of recipes in page
+	 * @param after opaque cursor taken from link to the next page
+	 * @return recipes
+	 */
 	@GetMapping
-	public List<RecipeDTO> getAll() {
-		return this.recipeService.getAll();
+	public ResponseEntity<List<RecipeDTO>> getAll(
+			@RequestParam(name = ApiConstants.QueryParams.LIMIT, required = false) final Integer limit,
+			@RequestParam(name = ApiConstants.QueryParams.AFTER, required = false) final String after) {
+
+		if (Objects.isNull(limit) && Objects.isNull(after))
+			return ResponseEntity.ok(this.recipeService.getAll());
+
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(limit, after);
+
+		return KeysetPageResponses.toResponseEntity(
+				this.recipeService.getAll(keysetPageRequest), keysetPageRequest);
 	}
 
+	/**
+	 * Summaries of recipes for list views, i.e. recipes without instructions and with names of ingredients only.
+	 * Complete recipe is available by its id.
+	 *
+	 * Summaries are paged in the same way as recipes.
+	 *
+	 * @param limit maximum number of summaries in page
+	 * @param after opaque cursor taken from link to the next page
+	 * @return summaries of recipes
+	 */
+	@GetMapping(ApiConstants.Endpoints.SUMMARIES)
+	public ResponseEntity<List<RecipeSummaryDTO>> getAllSummaries(
+			@RequestParam(name = ApiConstants.QueryParams.LIMIT, required = false) final Integer limit,
+			@RequestParam(name = ApiConstants.QueryParams.AFTER, required = false) final String after) {
+
+		if (Objects.isNull(limit) && Objects.isNull(after))
+			return ResponseEntity.ok(this.recipeService.getAllSummaries());
+
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(limit, after);
+
+		return KeysetPageResponses.toResponseEntity(
+				this.recipeService.getAllSummaries(keysetPageRequest), keysetPageRequest);
+	}
+
+	/**
+	 * Recipe is returned along with its version as {@link HttpHeaders#ETAG}.
+	 * If version matches to {@link HttpHeaders#IF_NONE_MATCH}, {@link HttpStatus#NOT_MODIFIED} is returned,
+	 * without mapping and serializing recipe. Recipe is read once in both cases.
+	 *
+	 * @param id of recipe
+	 * @param ifNoneMatch tags of versions known to client
+	 * @param webRequest to answer conditional request
+	 * @return recipe
+	 */
 	@GetMapping(PATH_VARIABLE_ID)
-	public RecipeDTO get(@PathVariable final long id) {
-		return this.recipeService.get(id);
+	public ResponseEntity<RecipeDTO> get(
+			@PathVariable final long id,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch,
+			final WebRequest webRequest) {
+
+		if (Objects.isNull(ifNoneMatch))
+			return RecipeETags.toResponseEntity(ResponseEntity.ok(), this.recipeService.get(id));
+
+		return this.recipeService.getIfModified(id, version -> webRequest.checkNotModified(RecipeETags.of(version)))
+				.map(recipeDTO -> RecipeETags.toResponseEntity(ResponseEntity.ok(), recipeDTO))
+				.orElse(null);
 	}
 
+	/**
+	 * Update recipe, create it if it does not exist.
+	 * With {@link HttpHeaders#IF_MATCH}, recipe is updated only if it is still in given version,
+	 * otherwise {@link HttpStatus#PRECONDITION_FAILED} is returned.
+	 *
+	 * @param id of recipe
+	 * @param recipeDTO in request body
+	 * @param ifMatch tag of version the update is based on
+	 * @return updated recipe along with its new version as {@link HttpHeaders#ETAG}
+	 */
 	@PutMapping(
 			value = PATH_VARIABLE_ID,
 			consumes = MediaType.APPLICATION_JSON_VALUE
 	)
-	public RecipeDTO update(@PathVariable final long id,
-							@Valid @RequestBody final RecipeDTO recipeDTO) {
-		return this.recipeService.update(id, recipeDTO);
+	public ResponseEntity<RecipeDTO> update(
+			@PathVariable final long id,
+			@Valid @RequestBody final RecipeDTO recipeDTO,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+
+		return RecipeETags.toResponseEntity(
+				ResponseEntity.ok(),
+				this.recipeService.update(id, recipeDTO, RecipeETags.toExpectedVersion(ifMatch)));
+	}
+
+	/**
+	 * Change some fields of recipe, given as JSON merge patch, e.g. <code>{"numberOfServings": 4}</code>.
+	 * With {@link HttpHeaders#IF_MATCH}, recipe is patched only if it is still in given version,
+	 * otherwise {@link HttpStatus#PRECONDITION_FAILED} is returned.
+	 *
+	 * @param id of recipe
+	 * @param mergePatch in request body
+	 * @param ifMatch tag of version the patch is based on
+	 * @return patched recipe along with its new version as {@link HttpHeaders#ETAG}
+	 */
+	@PatchMapping(
+			value = PATH_VARIABLE_ID,
+			consumes = ApiConstants.MediaTypes.APPLICATION_MERGE_PATCH_JSON
+	)
+	public ResponseEntity<RecipeDTO> patch(
+			@PathVariable final long id,
+			@NotNull @RequestBody final JsonNode mergePatch,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+
+		return RecipeETags.toResponseEntity(
+				ResponseEntity.ok(),
+				this.recipePatchService.patch(id, mergePatch, RecipeETags.toExpectedVersion(ifMatch)));
 	}
 
+	/**
+	 * With {@link HttpHeaders#IF_MATCH}, recipe is deleted only if it is still in given version,
+	 * otherwise {@link HttpStatus#PRECONDITION_FAILED} is returned.
+	 *
+	 * Recipe is deleted without loading it and {@link HttpStatus#NO_CONTENT} is returned,
+	 * unless deleted recipe is asked for by <code>Prefer: return=representation</code>.
+	 *
+	 * @param id of recipe
+	 * @param ifMatch tag of version the deletion is based on
+	 * @param prefer preferences of client
+	 * @return deleted recipe if asked for, otherwise no content
+	 */
 	@DeleteMapping(PATH_VARIABLE_ID)
-	public RecipeDTO delete(@PathVariable final long id) {
-		return this.recipeService.delete(id);
+	public ResponseEntity<RecipeDTO> delete(
+			@PathVariable final long id,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
+			@RequestHeader(name = ApiConstants.Headers.PREFER, required = false) final String prefer) {
+
+		Long expectedVersion = RecipeETags.toExpectedVersion(ifMatch);
+
+		if (!isRepresentationPreferred(prefer)) {
+			this.recipeService.deleteById(id, expectedVersion);
+			return ResponseEntity.noContent().build();
+		}
+
+		return ResponseEntity.ok()
+				.header(ApiConstants.Headers.PREFERENCE_APPLIED, ApiConstants.Headers.RETURN_REPRESENTATION)
+				.body(this.recipeService.delete(id, expectedVersion));
+	}
+
+	private static boolean isRepresentationPreferred(final String prefer) {
+
+		return Objects.nonNull(prefer)
+				&& Arrays.stream(prefer.split(","))
+					.map(String::trim)
+					.anyMatch(ApiConstants.Headers.RETURN_REPRESENTATION::equalsIgnoreCase);
 	}
 }
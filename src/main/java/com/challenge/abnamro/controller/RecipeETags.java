@@ -0,0 +1,61 @@
+package com.challenge.abnamro.controller;
+
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.service.RecipeService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Objects;
+
+/**
+ * Version of recipe is exposed as strong entity tag in {@link HttpHeaders#ETAG} header, e.g. <code>ETag: "3"</code>.
+ *
+ * Tag is sent back in {@link HttpHeaders#IF_NONE_MATCH} header to get recipe only if it is changed,
+ * and in {@link HttpHeaders#IF_MATCH} header to update or delete recipe only if it is not changed in the meantime.
+ * <code>If-Match: *</code> matches any version of existing recipe, i.e. it does not match recipe which does not exist.
+ */
+class RecipeETags {
+
+	private static final String ANY = "*";
+
+	static String of(final long version) {
+		return "\"" + version + "\"";
+	}
+
+	static ResponseEntity<RecipeDTO> toResponseEntity(final ResponseEntity.BodyBuilder responseBuilder,
+													  final RecipeDTO recipeDTO) {
+
+		if (Objects.nonNull(recipeDTO.getVersion()))
+			responseBuilder.eTag(of(recipeDTO.getVersion()));
+
+		return responseBuilder.body(recipeDTO);
+	}
+
+	/**
+	 * @param ifMatch value of {@link HttpHeaders#IF_MATCH} header
+	 * @return expected version of recipe, {@link RecipeService#ANY_VERSION} if any version is expected,
+	 * null if header is absent
+	 * @throws ApplicationException.RecipeVersionMismatchException if tag is not a strong tag of recipe version,
+	 * as it can not match any version
+	 */
+	static Long toExpectedVersion(final String ifMatch) {
+
+		if (Objects.isNull(ifMatch))
+			return null;
+
+		if (ANY.equals(ifMatch.trim()))
+			return RecipeService.ANY_VERSION;
+
+		String tag = ifMatch.trim();
+
+		try {
+			if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\""))
+				return Long.parseLong(tag.substring(1, tag.length() - 1));
+		} catch (NumberFormatException ex) {
+			//not a version, handled below
+		}
+
+		throw new ApplicationException.RecipeVersionMismatchException("Recipe does not match [" + ifMatch + "].");
+	}
+}
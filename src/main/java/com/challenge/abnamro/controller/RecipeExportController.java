@@ -0,0 +1,56 @@
+package com.challenge.abnamro.controller;
+
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.service.RecipeExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping(
+		path = ApiConstants.Version.V_1_0
+				+ ApiConstants.Endpoints.RECIPES
+				+ ApiConstants.Endpoints.EXPORT,
+		produces = MediaType.APPLICATION_NDJSON_VALUE)
+@AllArgsConstructor
+public class RecipeExportController {
+
+	private static final byte NEW_LINE = '\n';
+
+	private final RecipeExportService recipeExportService;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Export of all recipes as newline delimited JSON, i.e. one recipe per line.
+	 *
+	 * Every recipe is written to response as soon as it is read from database,
+	 * hence memory usage does not grow with number of recipes.
+	 *
+	 * @return all recipes, response body is empty if no recipe is available
+	 */
+	@GetMapping
+	public ResponseEntity<StreamingResponseBody> export() {
+
+		StreamingResponseBody responseBody = outputStream ->
+				this.recipeExportService.export(recipeDTO -> {
+					try {
+						outputStream.write(this.objectMapper.writeValueAsBytes(recipeDTO));
+						outputStream.write(NEW_LINE);
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(responseBody);
+	}
+}
@@ -1,20 +1,29 @@
 package com.challenge.abnamro.controller;
 
 import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeFacetsDTO;
+import com.challenge.abnamro.model.dto.RecipeSearchResultDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
 import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchExpression;
+import com.challenge.abnamro.service.RecipeBatchSearchService;
 import com.challenge.abnamro.service.RecipeSearchService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping(
@@ -27,6 +36,7 @@ import java.util.List;
 public class RecipeSearchController {
 
 	private final RecipeSearchService recipeSearchService;
+	private final RecipeBatchSearchService recipeBatchSearchService;
 
 	/**
 	 * Search is handled using POST method as it allows to accept search criteria in request body.
@@ -35,12 +45,138 @@ public class RecipeSearchController {
 	 * {@link RecipeSearchCriteria#includedIngredients} and {@link RecipeSearchCriteria#excludedIngredients}.
 	 * If we accept them as a part of {@link PathVariable} then request url will become too long.
 	 *
+	 * Results are paged only if paging parameters are provided.
+	 * Link to the next page carries paging parameters only, hence same criteria must be posted again.
+	 *
 	 * @param recipeSearchCriteria in request body
+	 * @param limit maximum number of recipes in page
+	 * @param after opaque cursor taken from link to the next page
 	 * @return  if matched records found then returns {@link HttpStatus#OK} with matched records in response body
 	 *          else returns {@link HttpStatus#NOT_FOUND} without response body
 	 */
 	@PostMapping
-	public List<RecipeDTO> search(@NotNull @Valid @RequestBody final RecipeSearchCriteria recipeSearchCriteria) {
-		return this.recipeSearchService.search(recipeSearchCriteria);
+	public ResponseEntity<List<RecipeDTO>> search(
+			@NotNull @Valid @RequestBody final RecipeSearchCriteria recipeSearchCriteria,
+			@RequestParam(name = ApiConstants.QueryParams.LIMIT, required = false) final Integer limit,
+			@RequestParam(name = ApiConstants.QueryParams.AFTER, required = false) final String after) {
+
+		if (Objects.isNull(limit) && Objects.isNull(after))
+			return ResponseEntity.ok(this.recipeSearchService.search(recipeSearchCriteria));
+
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(limit, after);
+
+		return KeysetPageResponses.toResponseEntity(
+				this.recipeSearchService.search(recipeSearchCriteria, keysetPageRequest), keysetPageRequest);
+	}
+
+	/**
+	 * Search summaries of recipes, i.e. recipes without instructions and with names of ingredients only,
+	 * for list views. Complete recipe is available by its id.
+	 *
+	 * Criteria and paging are handled in the same way as search of recipes.
+	 *
+	 * @param recipeSearchCriteria in request body
+	 * @param limit maximum number of summaries in page
+	 * @param after opaque cursor taken from link to the next page
+	 * @return  if matched records found then returns {@link HttpStatus#OK} with their summaries in response body
+	 *          else returns {@link HttpStatus#NOT_FOUND} without response body
+	 */
+	@PostMapping(ApiConstants.Endpoints.SUMMARIES)
+	public ResponseEntity<List<RecipeSummaryDTO>> searchSummaries(
+			@NotNull @Valid @RequestBody final RecipeSearchCriteria recipeSearchCriteria,
+			@RequestParam(name = ApiConstants.QueryParams.LIMIT, required = false) final Integer limit,
+			@RequestParam(name = ApiConstants.QueryParams.AFTER, required = false) final String after) {
+
+		if (Objects.isNull(limit) && Objects.isNull(after))
+			return ResponseEntity.ok(this.recipeSearchService.searchSummaries(recipeSearchCriteria));
+
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(limit, after);
+
+		return KeysetPageResponses.toResponseEntity(
+				this.recipeSearchService.searchSummaries(recipeSearchCriteria, keysetPageRequest), keysetPageRequest);
+	}
+
+	/**
+	 * Search using boolean expression of criteria, e.g. recipes matching to any of several criteria.
+	 * Expression is answered by a single query, hence client does not need to send one search per criteria.
+	 *
+	 * Results are paged in the same way as search by criteria.
+	 *
+	 * @param recipeSearchExpression in request body
+	 * @param limit maximum number of recipes in page
+	 * @param after opaque cursor taken from link to the next page
+	 * @return  if matched records found then returns {@link HttpStatus#OK} with matched records in response body
+	 *          else returns {@link HttpStatus#NOT_FOUND} without response body
+	 */
+	@PostMapping(ApiConstants.Endpoints.EXPRESSION)
+	public ResponseEntity<List<RecipeDTO>> search(
+			@NotNull @Valid @RequestBody final RecipeSearchExpression recipeSearchExpression,
+			@RequestParam(name = ApiConstants.QueryParams.LIMIT, required = false) final Integer limit,
+			@RequestParam(name = ApiConstants.QueryParams.AFTER, required = false) final String after) {
+
+		if (Objects.isNull(limit) && Objects.isNull(after))
+			return ResponseEntity.ok(this.recipeSearchService.search(recipeSearchExpression));
+
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(limit, after);
+
+		return KeysetPageResponses.toResponseEntity(
+				this.recipeSearchService.search(recipeSearchExpression, keysetPageRequest), keysetPageRequest);
+	}
+
+	/**
+	 * Search summaries of recipes using boolean expression of criteria,
+	 * see {@link #searchSummaries(RecipeSearchCriteria, Integer, String)}.
+	 *
+	 * @param recipeSearchExpression in request body
+	 * @param limit maximum number of summaries in page
+	 * @param after opaque cursor taken from link to the next page
+	 * @return  if matched records found then returns {@link HttpStatus#OK} with their summaries in response body
+	 *          else returns {@link HttpStatus#NOT_FOUND} without response body
+	 */
+	@PostMapping(ApiConstants.Endpoints.EXPRESSION + ApiConstants.Endpoints.SUMMARIES)
+	public ResponseEntity<List<RecipeSummaryDTO>> searchSummaries(
+			@NotNull @Valid @RequestBody final RecipeSearchExpression recipeSearchExpression,
+			@RequestParam(name = ApiConstants.QueryParams.LIMIT, required = false) final Integer limit,
+			@RequestParam(name = ApiConstants.QueryParams.AFTER, required = false) final String after) {
+
+		if (Objects.isNull(limit) && Objects.isNull(after))
+			return ResponseEntity.ok(this.recipeSearchService.searchSummaries(recipeSearchExpression));
+
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(limit, after);
+
+		return KeysetPageResponses.toResponseEntity(
+				this.recipeSearchService.searchSummaries(recipeSearchExpression, keysetPageRequest), keysetPageRequest);
+	}
+
+	/**
+	 * Batch of searches, so that results of several criteria are served by one request.
+	 *
+	 * Every criteria is validated and searched on its own, failure of one criteria
+	 * e.g. no matching recipe or invalid criteria, is reported as error of its result
+	 * instead of failing whole batch.
+	 *
+	 * @param recipeSearchCriteriaList in request body
+	 * @return {@link HttpStatus#OK} with one result per criteria, in order of criteria
+	 */
+	@PostMapping(ApiConstants.Endpoints.BATCH)
+	public List<RecipeSearchResultDTO> search(
+			@NotNull @RequestBody final List<RecipeSearchCriteria> recipeSearchCriteriaList) {
+		return this.recipeBatchSearchService.search(recipeSearchCriteriaList);
+	}
+
+	/**
+	 * Facets provide number of matching recipes per vegetarian flag, number of servings and ingredient,
+	 * so that all counts are served by one request and no recipe is transferred.
+	 *
+	 * Unlike search, criteria are optional, without criteria all recipes are counted.
+	 * Given criteria are validated like for search.
+	 *
+	 * @param recipeSearchCriteria in request body, optional
+	 * @return {@link HttpStatus#OK} with facet counts in response body, even if no recipe is matched
+	 */
+	@PostMapping(ApiConstants.Endpoints.FACETS)
+	public RecipeFacetsDTO countFacets(
+			@Valid @RequestBody(required = false) final RecipeSearchCriteria recipeSearchCriteria) {
+		return this.recipeSearchService.countFacets(recipeSearchCriteria);
 	}
 }
@@ -8,8 +8,10 @@ import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -22,14 +24,13 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 @ResponseBody
 public class ApiExceptionControllerAdvice {
 
-	private static final String REQUEST_VALIDATION_FAILED = "Request validation failed.";
-
 	@ExceptionHandler(HttpRequestMethodNotSupportedException.class)
 	public ResponseEntity<ExceptionWrapper> handleException(final HttpRequestMethodNotSupportedException ex) {
 
 		String supportedMethods
 				= String.join(", ",
-				HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.GET.name(), HttpMethod.DELETE.name());
+				HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(),
+				HttpMethod.GET.name(), HttpMethod.DELETE.name());
 
 		ExceptionWrapper exceptionWrapper
 				= ExceptionWrapper.builder()
@@ -44,6 +45,21 @@ public class ApiExceptionControllerAdvice {
 				.body(exceptionWrapper);
 	}
 
+	@ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+	public ResponseEntity<ExceptionWrapper> handleException(final HttpMediaTypeNotSupportedException ex) {
+
+		ExceptionWrapper exceptionWrapper
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+				.error("Media type not supported")
+				.description("Supported media types are - " + MediaType.toString(ex.getSupportedMediaTypes()))
+				.build();
+
+		return ResponseEntity
+				.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+				.body(exceptionWrapper);
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ExceptionWrapper> handleException(final MethodArgumentNotValidException ex) {
 
@@ -55,7 +71,7 @@ public class ApiExceptionControllerAdvice {
 		ExceptionWrapper exceptionWrapper
 				= ExceptionWrapper.builder()
 				.httpStatus(HttpStatus.BAD_REQUEST)
-				.error(REQUEST_VALIDATION_FAILED)
+				.error(ExceptionWrapper.REQUEST_VALIDATION_FAILED)
 				.description(errorDescription)
 				.build();
 
@@ -70,7 +86,7 @@ public class ApiExceptionControllerAdvice {
 		ExceptionWrapper exceptionWrapper
 				= ExceptionWrapper.builder()
 				.httpStatus(HttpStatus.BAD_REQUEST)
-				.error(REQUEST_VALIDATION_FAILED)
+				.error(ExceptionWrapper.REQUEST_VALIDATION_FAILED)
 				.description("Data validation failed.")
 				.build();
 
@@ -85,7 +101,7 @@ public class ApiExceptionControllerAdvice {
 		ExceptionWrapper exceptionWrapper
 				= ExceptionWrapper.builder()
 				.httpStatus(HttpStatus.BAD_REQUEST)
-				.error(REQUEST_VALIDATION_FAILED)
+				.error(ExceptionWrapper.REQUEST_VALIDATION_FAILED)
 				.description("Request is not valid. Please verify request contents.")
 				.build();
 
@@ -45,6 +45,21 @@ public class ApplicationExceptionControllerAdvice {
 				.body(exceptionWrapper);
 	}
 
+	@ExceptionHandler(ApplicationException.RecipeVersionMismatchException.class)
+	public ResponseEntity<ExceptionWrapper> handleException(final ApplicationException.RecipeVersionMismatchException ex) {
+
+		ExceptionWrapper exceptionWrapper
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.PRECONDITION_FAILED)
+				.error("Recipe version does not match")
+				.description(ex.getMessage())
+				.build();
+
+		return ResponseEntity
+				.status(HttpStatus.PRECONDITION_FAILED)
+				.body(exceptionWrapper);
+	}
+
 	@ExceptionHandler(ApplicationException.RecipeNotFoundException.class)
 	public ResponseEntity<Void> handleException(final ApplicationException.RecipeNotFoundException ex) {
 
@@ -66,4 +81,79 @@ public class ApplicationExceptionControllerAdvice {
 				.status(HttpStatus.BAD_REQUEST)
 				.body(exceptionWrapper);
 	}
+
+	@ExceptionHandler(ApplicationException.RecipeIndexNotReadyException.class)
+	public ResponseEntity<ExceptionWrapper> handleException(final ApplicationException.RecipeIndexNotReadyException ex) {
+
+		ExceptionWrapper exceptionWrapper
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.SERVICE_UNAVAILABLE)
+				.error("Recipe search not available yet.")
+				.description(ex.getMessage())
+				.build();
+
+		return ResponseEntity
+				.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.body(exceptionWrapper);
+	}
+
+	@ExceptionHandler(ApplicationException.InvalidPageRequestException.class)
+	public ResponseEntity<ExceptionWrapper> handleException(final ApplicationException.InvalidPageRequestException ex) {
+
+		ExceptionWrapper exceptionWrapper
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Invalid page request.")
+				.description(ex.getMessage())
+				.build();
+
+		return ResponseEntity
+				.status(HttpStatus.BAD_REQUEST)
+				.body(exceptionWrapper);
+	}
+
+	@ExceptionHandler(ApplicationException.InvalidSearchBatchException.class)
+	public ResponseEntity<ExceptionWrapper> handleException(final ApplicationException.InvalidSearchBatchException ex) {
+
+		ExceptionWrapper exceptionWrapper
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Invalid search batch.")
+				.description(ex.getMessage())
+				.build();
+
+		return ResponseEntity
+				.status(HttpStatus.BAD_REQUEST)
+				.body(exceptionWrapper);
+	}
+
+	@ExceptionHandler(ApplicationException.InvalidBulkRequestException.class)
+	public ResponseEntity<ExceptionWrapper> handleException(final ApplicationException.InvalidBulkRequestException ex) {
+
+		ExceptionWrapper exceptionWrapper
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Invalid bulk request.")
+				.description(ex.getMessage())
+				.build();
+
+		return ResponseEntity
+				.status(HttpStatus.BAD_REQUEST)
+				.body(exceptionWrapper);
+	}
+
+	@ExceptionHandler(ApplicationException.InvalidRecipePatchException.class)
+	public ResponseEntity<ExceptionWrapper> handleException(final ApplicationException.InvalidRecipePatchException ex) {
+
+		ExceptionWrapper exceptionWrapper
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Invalid recipe patch.")
+				.description(ex.getMessage())
+				.build();
+
+		return ResponseEntity
+				.status(HttpStatus.BAD_REQUEST)
+				.body(exceptionWrapper);
+	}
 }
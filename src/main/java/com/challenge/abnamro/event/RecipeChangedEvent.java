@@ -0,0 +1,66 @@
+package com.challenge.abnamro.event;
+
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.entity.Recipe;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Application event published whenever a {@link Recipe} is saved or deleted.
+ *
+ * Event carries a detached snapshot of recipe state instead of JPA managed entity,
+ * so that listeners can safely consume it after transaction is committed.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@ToString
+public class RecipeChangedEvent {
+
+	public enum Type {
+		SAVED,
+		DELETED
+	}
+
+	private final Type type;
+	private final Long recipeId;
+
+	@Getter(AccessLevel.NONE)
+	private final Boolean vegetarian;
+
+	private final Integer numberOfServings;
+	private final Set<String> ingredientNames;
+	private final String instructions;
+
+	public static RecipeChangedEvent saved(final Recipe recipe) {
+
+		Set<String> ingredientNames
+				= Objects.isNull(recipe.getIngredients())
+				? Collections.emptySet()
+				: recipe.getIngredients().stream()
+					.map(Ingredient::getName)
+					.collect(Collectors.toSet());
+
+		return new RecipeChangedEvent(
+				Type.SAVED,
+				recipe.getId(),
+				recipe.isVegetarian(),
+				recipe.getNumberOfServings(),
+				ingredientNames,
+				recipe.getInstructions());
+	}
+
+	public static RecipeChangedEvent deleted(final long recipeId) {
+		return new RecipeChangedEvent(Type.DELETED, recipeId, null, null, Collections.emptySet(), null);
+	}
+
+	public Boolean isVegetarian() {
+		return this.vegetarian;
+	}
+}
@@ -16,6 +16,13 @@ public class ApplicationException {
 		}
 	}
 
+	public static class RecipeVersionMismatchException extends RuntimeException {
+
+		public RecipeVersionMismatchException(String message) {
+			super(message);
+		}
+	}
+
 	public static class RecipeNotFoundException extends RuntimeException {
 
 		public RecipeNotFoundException(String message) {
@@ -29,4 +36,39 @@ public class ApplicationException {
 			super(message);
 		}
 	}
+
+	public static class RecipeIndexNotReadyException extends RuntimeException {
+
+		public RecipeIndexNotReadyException(String message) {
+			super(message);
+		}
+	}
+
+	public static class InvalidPageRequestException extends RuntimeException {
+
+		public InvalidPageRequestException(String message) {
+			super(message);
+		}
+	}
+
+	public static class InvalidSearchBatchException extends RuntimeException {
+
+		public InvalidSearchBatchException(String message) {
+			super(message);
+		}
+	}
+
+	public static class InvalidBulkRequestException extends RuntimeException {
+
+		public InvalidBulkRequestException(String message) {
+			super(message);
+		}
+	}
+
+	public static class InvalidRecipePatchException extends RuntimeException {
+
+		public InvalidRecipePatchException(String message) {
+			super(message);
+		}
+	}
 }
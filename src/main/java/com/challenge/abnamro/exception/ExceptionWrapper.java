@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.springframework.http.HttpStatus;
 
+import javax.validation.ConstraintViolation;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.stream.Collectors;
 
 @Builder
 @NoArgsConstructor
@@ -18,6 +21,8 @@ import java.io.Serializable;
 @ToString
 public class ExceptionWrapper implements Serializable {
 
+	public static final String REQUEST_VALIDATION_FAILED = "Request validation failed.";
+
 	public static final ExceptionWrapper INTERNAL_SERVER_ERROR
 			= ExceptionWrapper.builder()
 			.httpStatus(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -28,4 +33,39 @@ public class ExceptionWrapper implements Serializable {
 	private HttpStatus httpStatus;
 	private String error;
 	private String description;
+
+	public static ExceptionWrapper of(final HttpStatus httpStatus, final String error, final String description) {
+
+		return ExceptionWrapper.builder()
+				.httpStatus(httpStatus)
+				.error(error)
+				.description(description)
+				.build();
+	}
+
+	/**
+	 * Error of a request failing validation, see {@link ExceptionWrapper#describe(Collection)}.
+	 *
+	 * @param constraintViolations of request, at least one
+	 * @return bad request error
+	 */
+	public static ExceptionWrapper ofConstraintViolations(
+			final Collection<? extends ConstraintViolation<?>> constraintViolations) {
+		return of(HttpStatus.BAD_REQUEST, REQUEST_VALIDATION_FAILED, describe(constraintViolations));
+	}
+
+	/**
+	 * Messages of violations are sorted and separated by space,
+	 * so that description does not depend on order in which constraints are validated.
+	 *
+	 * @param constraintViolations to describe
+	 * @return description of violations
+	 */
+	public static String describe(final Collection<? extends ConstraintViolation<?>> constraintViolations) {
+
+		return constraintViolations.stream()
+				.map(ConstraintViolation::getMessage)
+				.sorted()
+				.collect(Collectors.joining(" "));
+	}
 }
@@ -0,0 +1,187 @@
+package com.challenge.abnamro.index;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.model.entity.InstructionsTerms;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * In-memory full-text inverted index of recipe instructions.
+ *
+ * Instructions are split into terms by {@link InstructionsTerms}. For every term index keeps posting list (bitmap)
+ * of recipes, and for every recipe the sequence of its terms, which is used to verify phrases.
+ *
+ * Searched text is matched as phrase, see {@link InstructionsTerms}.
+ * Text is not matched by database, hence searches with text wait until index is built.
+ */
+@Component
+public class InstructionsTextIndex extends RecipeIndex<InstructionsTextIndex.TextIndexState> {
+
+	@Override
+	protected TextIndexState newIndexState() {
+		return new TextIndexState();
+	}
+
+	/**
+	 * Find ids of recipes having given text in instructions.
+	 *
+	 * @param textInInstructions to search for
+	 * @return  bitmap of matching recipe ids,
+	 *          or empty if index is not ready or text does not contain any term
+	 */
+	public Optional<RoaringBitmap> match(final String textInInstructions) {
+
+		List<String> terms = InstructionsTerms.tokenize(textInInstructions);
+
+		if (terms.isEmpty())
+			return Optional.empty();
+
+		boolean lastTermIsPrefix = InstructionsTerms.isLastTermPrefix(textInInstructions);
+
+		return query(textIndexState -> textIndexState.matchPhrase(terms, lastTermIsPrefix));
+	}
+
+	static class TextIndexState implements RecipeIndex.IndexState {
+
+		private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+		//sorted by term to support prefix lookups, term ids are never reused
+		private final NavigableMap<String, Integer> termIds = new TreeMap<>();
+		private final List<RoaringBitmap> recipesByTermId = new ArrayList<>();
+
+		//instructions of every recipe as sequence of term ids, used to verify phrases
+		//and to remove recipe from posting lists when it is updated or deleted
+		private final Map<Integer, int[]> termIdSequenceByRecipe = new HashMap<>();
+
+		@Override
+		public void apply(final RecipeChangedEvent recipeChangedEvent) {
+
+			int recipeId = Math.toIntExact(recipeChangedEvent.getRecipeId());
+
+			remove(recipeId);
+
+			if (recipeChangedEvent.getType() == RecipeChangedEvent.Type.SAVED)
+				add(recipeId, recipeChangedEvent.getInstructions());
+		}
+
+		private void add(final int recipeId, final String instructions) {
+
+			List<String> terms = InstructionsTerms.tokenize(instructions);
+			int[] termIdSequence = new int[terms.size()];
+
+			for (int position = 0; position < terms.size(); ++position) {
+
+				int termId = this.termIds.computeIfAbsent(terms.get(position), term -> {
+					this.recipesByTermId.add(new RoaringBitmap());
+					return this.recipesByTermId.size() - 1;
+				});
+
+				this.recipesByTermId.get(termId).add(recipeId);
+				termIdSequence[position] = termId;
+			}
+
+			this.termIdSequenceByRecipe.put(recipeId, termIdSequence);
+		}
+
+		private void remove(final int recipeId) {
+
+			int[] termIdSequence = this.termIdSequenceByRecipe.remove(recipeId);
+
+			if (Objects.isNull(termIdSequence))
+				return;
+
+			for (int termId : termIdSequence)
+				this.recipesByTermId.get(termId).remove(recipeId);
+		}
+
+		private RoaringBitmap matchPhrase(final List<String> terms, final boolean lastTermIsPrefix) {
+
+			int lastTermIndex = terms.size() - 1;
+
+			//ids of every term of phrase, last term may expand to many term ids
+			List<RoaringBitmap> termIdsOfPhrase = new ArrayList<>(terms.size());
+
+			//recipes containing all terms
+			RoaringBitmap candidateRecipes = null;
+
+			for (int i = 0; i <= lastTermIndex; ++i) {
+
+				RoaringBitmap termIdsOfTerm
+						= i == lastTermIndex && lastTermIsPrefix
+						? getTermIdsForPrefix(terms.get(i))
+						: getTermIdsForTerm(terms.get(i));
+
+				RoaringBitmap recipesOfTerm = new RoaringBitmap();
+				termIdsOfTerm.forEach((int termId) -> recipesOfTerm.or(this.recipesByTermId.get(termId)));
+
+				if (Objects.isNull(candidateRecipes))
+					candidateRecipes = recipesOfTerm;
+				else
+					candidateRecipes.and(recipesOfTerm);
+
+				if (candidateRecipes.isEmpty())
+					return candidateRecipes;
+
+				termIdsOfPhrase.add(termIdsOfTerm);
+			}
+
+			if (terms.size() == 1)
+				return candidateRecipes;
+
+			//recipes containing all terms next to each other
+			RoaringBitmap matchedRecipes = new RoaringBitmap();
+
+			for (int recipeId : candidateRecipes)
+				if (containsPhrase(this.termIdSequenceByRecipe.get(recipeId), termIdsOfPhrase))
+					matchedRecipes.add(recipeId);
+
+			return matchedRecipes;
+		}
+
+		private static boolean containsPhrase(final int[] termIdSequence, final List<RoaringBitmap> termIdsOfPhrase) {
+
+			for (int start = 0; start + termIdsOfPhrase.size() <= termIdSequence.length; ++start) {
+
+				boolean matched = true;
+
+				for (int i = 0; i < termIdsOfPhrase.size() && matched; ++i)
+					matched = termIdsOfPhrase.get(i).contains(termIdSequence[start + i]);
+
+				if (matched)
+					return true;
+			}
+
+			return false;
+		}
+
+		private RoaringBitmap getTermIdsForTerm(final String term) {
+
+			Integer termId = this.termIds.get(term);
+
+			return Objects.isNull(termId)
+					? EMPTY
+					: RoaringBitmap.bitmapOf(termId);
+		}
+
+		private RoaringBitmap getTermIdsForPrefix(final String prefix) {
+
+			RoaringBitmap termIdsForPrefix = new RoaringBitmap();
+
+			this.termIds
+					.subMap(prefix, true, prefix + Character.MAX_VALUE, true)
+					.values()
+					.forEach(termIdsForPrefix::add);
+
+			return termIdsForPrefix;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package com.challenge.abnamro.index;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.model.dto.RecipeFacetsDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import lombok.AllArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index of recipes, backed by compressed (Roaring) bitmaps of recipe ids.
+ *
+ * Index maintains one bitmap per ingredient name, per vegetarian flag and per number of servings.
+ * Search criteria are answered with bitmap operations only,
+ * i.e. included ingredients as AND, excluded ingredients as AND-NOT.
+ */
+@Component
+public class RecipeBitmapIndex extends RecipeIndex<RecipeBitmapIndex.BitmapIndexState> {
+
+	@Override
+	protected BitmapIndexState newIndexState() {
+		return new BitmapIndexState();
+	}
+
+	/**
+	 * Find ids of recipes matching to vegetarian, number of servings and ingredients based criteria.
+	 * Text in instructions is not considered by this index.
+	 *
+	 * @param recipeSearchCriteria to match
+	 * @return  bitmap of matching recipe ids,
+	 *          or empty if index is not ready or criteria does not contain any criteria known to this index
+	 */
+	public Optional<RoaringBitmap> match(final RecipeSearchCriteria recipeSearchCriteria) {
+		return query(bitmapIndexState -> bitmapIndexState.match(recipeSearchCriteria));
+	}
+
+	/**
+	 * @return bitmap of all recipe ids, or empty if index is not ready
+	 */
+	public Optional<RoaringBitmap> matchAll() {
+		return query(bitmapIndexState -> bitmapIndexState.allRecipes.clone());
+	}
+
+	/**
+	 * Count recipes per facet value, by intersecting matched recipes with bitmap of every facet value.
+	 *
+	 * @param matchedRecipeIds recipes to count, all recipes if null
+	 * @param maxIngredients maximum number of most frequent ingredients to count
+	 * @return facet counts, or empty if index is not ready
+	 */
+	public Optional<RecipeFacetsDTO> countFacets(@Nullable final RoaringBitmap matchedRecipeIds,
+												 final int maxIngredients) {
+		return query(bitmapIndexState -> bitmapIndexState.countFacets(matchedRecipeIds, maxIngredients));
+	}
+
+	static class BitmapIndexState implements RecipeIndex.IndexState {
+
+		private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+		private final RoaringBitmap allRecipes = new RoaringBitmap();
+		private final RoaringBitmap vegetarianRecipes = new RoaringBitmap();
+		private final RoaringBitmap nonVegetarianRecipes = new RoaringBitmap();
+		private final Map<Integer, RoaringBitmap> recipesByNumberOfServings = new HashMap<>();
+		private final Map<String, RoaringBitmap> recipesByIngredient = new HashMap<>();
+
+		//forward index is needed to remove recipe from bitmaps when it is updated or deleted
+		private final Map<Integer, IndexedRecipe> indexedRecipes = new HashMap<>();
+
+		@Override
+		public void apply(final RecipeChangedEvent recipeChangedEvent) {
+
+			int recipeId = Math.toIntExact(recipeChangedEvent.getRecipeId());
+
+			remove(recipeId);
+
+			if (recipeChangedEvent.getType() == RecipeChangedEvent.Type.SAVED)
+				add(recipeId, recipeChangedEvent);
+		}
+
+		private void add(final int recipeId, final RecipeChangedEvent recipeChangedEvent) {
+
+			IndexedRecipe indexedRecipe
+					= new IndexedRecipe(
+							recipeChangedEvent.isVegetarian(),
+							recipeChangedEvent.getNumberOfServings(),
+							recipeChangedEvent.getIngredientNames());
+
+			this.allRecipes.add(recipeId);
+
+			if (Objects.nonNull(indexedRecipe.vegetarian))
+				(indexedRecipe.vegetarian ? this.vegetarianRecipes : this.nonVegetarianRecipes).add(recipeId);
+
+			if (Objects.nonNull(indexedRecipe.numberOfServings))
+				this.recipesByNumberOfServings
+						.computeIfAbsent(indexedRecipe.numberOfServings, numberOfServings -> new RoaringBitmap())
+						.add(recipeId);
+
+			for (String ingredientName : indexedRecipe.ingredientNames)
+				this.recipesByIngredient
+						.computeIfAbsent(ingredientName, name -> new RoaringBitmap())
+						.add(recipeId);
+
+			this.indexedRecipes.put(recipeId, indexedRecipe);
+		}
+
+		private void remove(final int recipeId) {
+
+			IndexedRecipe indexedRecipe = this.indexedRecipes.remove(recipeId);
+
+			if (Objects.isNull(indexedRecipe))
+				return;
+
+			this.allRecipes.remove(recipeId);
+			this.vegetarianRecipes.remove(recipeId);
+			this.nonVegetarianRecipes.remove(recipeId);
+
+			if (Objects.nonNull(indexedRecipe.numberOfServings))
+				removeFromBitmap(this.recipesByNumberOfServings, indexedRecipe.numberOfServings, recipeId);
+
+			for (String ingredientName : indexedRecipe.ingredientNames)
+				removeFromBitmap(this.recipesByIngredient, ingredientName, recipeId);
+		}
+
+		private RoaringBitmap match(final RecipeSearchCriteria recipeSearchCriteria) {
+
+			RoaringBitmap matchedRecipes = null;
+
+			if (Objects.nonNull(recipeSearchCriteria.isVegetarian()))
+				matchedRecipes
+						= intersect(matchedRecipes,
+								recipeSearchCriteria.isVegetarian() ? this.vegetarianRecipes : this.nonVegetarianRecipes);
+
+			if (Objects.nonNull(recipeSearchCriteria.getNumberOfServings()))
+				matchedRecipes
+						= intersect(matchedRecipes,
+								this.recipesByNumberOfServings.getOrDefault(recipeSearchCriteria.getNumberOfServings(), EMPTY));
+
+			if (Objects.nonNull(recipeSearchCriteria.getIncludedIngredients()))
+				for (String ingredientName : getIngredientNames(recipeSearchCriteria.getIncludedIngredients()))
+					matchedRecipes
+							= intersect(matchedRecipes, this.recipesByIngredient.getOrDefault(ingredientName, EMPTY));
+
+			if (Objects.nonNull(recipeSearchCriteria.getExcludedIngredients())
+					&& !recipeSearchCriteria.getExcludedIngredients().isEmpty()) {
+
+				if (Objects.isNull(matchedRecipes))
+					matchedRecipes = this.allRecipes.clone();
+
+				for (String ingredientName : getIngredientNames(recipeSearchCriteria.getExcludedIngredients()))
+					matchedRecipes.andNot(this.recipesByIngredient.getOrDefault(ingredientName, EMPTY));
+			}
+
+			return matchedRecipes;
+		}
+
+		private RecipeFacetsDTO countFacets(final RoaringBitmap matchedRecipeIds, final int maxIngredients) {
+
+			RoaringBitmap recipes = Objects.isNull(matchedRecipeIds) ? this.allRecipes : matchedRecipeIds;
+
+			Map<Boolean, Long> vegetarianCounts = new TreeMap<>();
+			putCount(vegetarianCounts, false, recipes, this.nonVegetarianRecipes);
+			putCount(vegetarianCounts, true, recipes, this.vegetarianRecipes);
+
+			Map<Integer, Long> numberOfServingsCounts = new TreeMap<>();
+			this.recipesByNumberOfServings.forEach((numberOfServings, recipesWithNumberOfServings) ->
+					putCount(numberOfServingsCounts, numberOfServings, recipes, recipesWithNumberOfServings));
+
+			Map<String, Long> ingredientCounts = new HashMap<>();
+			this.recipesByIngredient.forEach((ingredientName, recipesWithIngredient) ->
+					putCount(ingredientCounts, ingredientName, recipes, recipesWithIngredient));
+
+			//most frequent ingredients first, same order as database
+			Map<String, Long> topIngredientCounts
+					= ingredientCounts.entrySet().stream()
+						.sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+								.thenComparing(Map.Entry.comparingByKey()))
+						.limit(maxIngredients)
+						.collect(Collectors.toMap(
+								Map.Entry::getKey, Map.Entry::getValue, (count, otherCount) -> count, LinkedHashMap::new));
+
+			return RecipeFacetsDTO.builder()
+					.total(recipes.getLongCardinality())
+					.vegetarian(vegetarianCounts)
+					.numberOfServings(numberOfServingsCounts)
+					.ingredients(topIngredientCounts)
+					.build();
+		}
+
+		private static <K> void putCount(final Map<K, Long> counts,
+										 final K facetValue,
+										 final RoaringBitmap matchedRecipes,
+										 final RoaringBitmap recipesWithFacetValue) {
+
+			long count = RoaringBitmap.andCardinality(matchedRecipes, recipesWithFacetValue);
+
+			if (count > 0)
+				counts.put(facetValue, count);
+		}
+
+		private static RoaringBitmap intersect(final RoaringBitmap matchedRecipes, final RoaringBitmap recipes) {
+
+			if (Objects.isNull(matchedRecipes))
+				return recipes.clone();
+
+			matchedRecipes.and(recipes);
+			return matchedRecipes;
+		}
+
+		private static <K> void removeFromBitmap(final Map<K, RoaringBitmap> bitmaps, final K key, final int recipeId) {
+
+			RoaringBitmap recipes = bitmaps.get(key);
+
+			if (Objects.isNull(recipes))
+				return;
+
+			recipes.remove(recipeId);
+
+			if (recipes.isEmpty())
+				bitmaps.remove(key);
+		}
+
+		private static Set<String> getIngredientNames(final Set<Ingredient> ingredients) {
+
+			return ingredients.stream()
+					.map(Ingredient::getName)
+					.collect(Collectors.toSet());
+		}
+	}
+
+	@AllArgsConstructor
+	private static class IndexedRecipe {
+
+		private final Boolean vegetarian;
+		private final Integer numberOfServings;
+		private final Set<String> ingredientNames;
+	}
+}
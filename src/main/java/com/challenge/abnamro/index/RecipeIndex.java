@@ -0,0 +1,142 @@
+package com.challenge.abnamro.index;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Base class for in-memory recipe indexes.
+ *
+ * Index is built once by {@link RecipeIndexInitializer} and afterwards kept up to date
+ * by {@link RecipeChangedEvent} published on every committed change.
+ * Changes committed while index is being rebuilt are replayed on top of rebuilt index.
+ *
+ * Until index is built, it does not answer any query, so that caller can fall back to database search,
+ * or wait for index to be built if query can not be answered by database, see {@link RecipeIndex#awaitReady(Duration)}.
+ * Note that index is local to a running instance and only sees changes committed through this instance.
+ *
+ * @param <S> type of index state i.e. data structures holding indexed data
+ */
+public abstract class RecipeIndex<S extends RecipeIndex.IndexState> {
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private S indexState = newIndexState();
+	private S rebuiltIndexState;
+	private List<RecipeChangedEvent> pendingChanges;
+
+	private final CountDownLatch built = new CountDownLatch(1);
+
+	private volatile boolean ready;
+
+	protected abstract S newIndexState();
+
+	public void startRebuild() {
+
+		this.lock.writeLock().lock();
+		try {
+			this.rebuiltIndexState = newIndexState();
+			this.pendingChanges = new ArrayList<>();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * Rebuilt index state is not visible to readers, hence no locking is needed.
+	 */
+	public void addToRebuild(final RecipeChangedEvent recipeChangedEvent) {
+		this.rebuiltIndexState.apply(recipeChangedEvent);
+	}
+
+	public void completeRebuild() {
+
+		this.lock.writeLock().lock();
+		try {
+			this.pendingChanges.forEach(this.rebuiltIndexState::apply);
+			this.indexState = this.rebuiltIndexState;
+			this.rebuiltIndexState = null;
+			this.pendingChanges = null;
+			this.ready = true;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+
+		this.built.countDown();
+	}
+
+	public void rebuild(final Iterable<RecipeChangedEvent> recipeChangedEvents) {
+
+		startRebuild();
+		recipeChangedEvents.forEach(this::addToRebuild);
+		completeRebuild();
+	}
+
+	@TransactionalEventListener
+	public void onRecipeChanged(final RecipeChangedEvent recipeChangedEvent) {
+
+		this.lock.writeLock().lock();
+		try {
+			if (Objects.nonNull(this.pendingChanges))
+				this.pendingChanges.add(recipeChangedEvent);
+
+			this.indexState.apply(recipeChangedEvent);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	public boolean isReady() {
+		return this.ready;
+	}
+
+	/**
+	 * Wait until index is built for the first time, e.g. while it is being built at startup.
+	 *
+	 * @param timeout maximum time to wait
+	 * @return true if index is ready, false if it is not built within timeout or waiting thread is interrupted
+	 */
+	public boolean awaitReady(final Duration timeout) {
+
+		try {
+			return this.built.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Run query on current index state.
+	 *
+	 * @param query to run, it may return null if it can not be answered by index
+	 * @return result of query, or empty if index is not ready or query can not be answered
+	 */
+	protected <T> Optional<T> query(final Function<S, T> query) {
+
+		if (!this.ready)
+			return Optional.empty();
+
+		this.lock.readLock().lock();
+		try {
+			return Optional.ofNullable(query.apply(this.indexState));
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	protected interface IndexState {
+
+		void apply(final RecipeChangedEvent recipeChangedEvent);
+	}
+}
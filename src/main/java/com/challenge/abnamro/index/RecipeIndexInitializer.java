@@ -0,0 +1,69 @@
+package com.challenge.abnamro.index;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.repository.RecipeRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds all {@link RecipeIndex} once application is ready.
+ * Recipes are read from database only once and fed to every index.
+ *
+ * Recipes are streamed and persistence context is cleared periodically, like by export,
+ * so that memory usage does not grow with size of catalog, apart from indexes themselves.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class RecipeIndexInitializer {
+
+	//number of recipes after which persistence context is cleared
+	private static final int PERSISTENCE_CONTEXT_CLEAR_INTERVAL = 500;
+
+	private final RecipeRepository recipeRepository;
+	private final List<RecipeIndex<?>> recipeIndexes;
+	private final EntityManager entityManager;
+
+	/*
+	 * Transaction is not read-only, so that recipes are read from primary database,
+	 * as indexes are kept up to date by changes committed to primary and replica may lag behind it.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional
+	public void initialize() {
+
+		log.info("Preparing to build {} recipe indexes", this.recipeIndexes.size());
+
+		this.recipeIndexes.forEach(RecipeIndex::startRebuild);
+
+		long indexedRecipes = 0;
+
+		try (Stream<Recipe> recipes = this.recipeRepository.streamAll()) {
+
+			Iterator<Recipe> recipeIterator = recipes.iterator();
+
+			while (recipeIterator.hasNext()) {
+
+				RecipeChangedEvent recipeChangedEvent = RecipeChangedEvent.saved(recipeIterator.next());
+				this.recipeIndexes.forEach(recipeIndex -> recipeIndex.addToRebuild(recipeChangedEvent));
+
+				if (++indexedRecipes % PERSISTENCE_CONTEXT_CLEAR_INTERVAL == 0)
+					this.entityManager.clear();
+			}
+		}
+
+		this.recipeIndexes.forEach(RecipeIndex::completeRebuild);
+
+		log.info("Built recipe indexes with {} recipes", indexedRecipes);
+	}
+}
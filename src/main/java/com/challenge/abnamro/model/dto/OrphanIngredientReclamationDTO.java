@@ -0,0 +1,30 @@
+package com.challenge.abnamro.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Progress of reclamation of orphaned ingredients, i.e. of current run if it is running, otherwise of last run.
+ * Number of ingredients deleted by all runs since startup is provided as well.
+ */
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class OrphanIngredientReclamationDTO {
+
+	private boolean running;
+	private Instant startedAt;
+	private Instant finishedAt;
+	private long scanned;
+	private long deleted;
+	private long totalDeleted;
+}
@@ -0,0 +1,22 @@
+package com.challenge.abnamro.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Result of a bulk delete, i.e. number of deleted recipes.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class RecipeBulkDeleteResultDTO {
+
+	private int deleted;
+}
@@ -0,0 +1,25 @@
+package com.challenge.abnamro.model.dto;
+
+import com.challenge.abnamro.exception.ExceptionWrapper;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Result of one recipe in a bulk create.
+ * Either id of created recipe or error is provided, error is reported in the same way as for a single create.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class RecipeBulkResultDTO {
+
+	private Long id;
+	private ExceptionWrapper error;
+}
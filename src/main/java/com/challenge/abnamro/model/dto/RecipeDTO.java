@@ -1,6 +1,7 @@
 package com.challenge.abnamro.model.dto;
 
 import com.challenge.abnamro.model.entity.Recipe;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -50,6 +51,11 @@ public class RecipeDTO {
 	@Size(max = 4000, message = "Instructions are too long.")
 	private String instructions;
 
+	//exposed as ETag header of recipe and not in body, hence it is not compared either
+	@JsonIgnore
+	@EqualsAndHashCode.Exclude
+	private Long version;
+
 	public Boolean isVegetarian() {
 		return this.vegetarian;
 	}
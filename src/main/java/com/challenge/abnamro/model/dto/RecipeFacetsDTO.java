@@ -0,0 +1,32 @@
+package com.challenge.abnamro.model.dto;
+
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * This class is used as DTO for number of recipes matching to {@link RecipeSearchCriteria},
+ * in total and per value of every facet.
+ *
+ * Values without any matching recipe are left out.
+ * Only most frequent ingredients are provided, ordered by number of recipes.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class RecipeFacetsDTO {
+
+	private long total;
+	private Map<Boolean, Long> vegetarian;
+	private Map<Integer, Long> numberOfServings;
+	private Map<String, Long> ingredients;
+}
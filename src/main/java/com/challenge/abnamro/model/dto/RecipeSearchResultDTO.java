@@ -0,0 +1,27 @@
+package com.challenge.abnamro.model.dto;
+
+import com.challenge.abnamro.exception.ExceptionWrapper;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Result of one search criteria in a batch of searches.
+ * Either matched recipes or error is provided, error is reported in the same way as for a single search.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class RecipeSearchResultDTO {
+
+	private List<RecipeDTO> recipes;
+	private ExceptionWrapper error;
+}
@@ -0,0 +1,44 @@
+package com.challenge.abnamro.model.dto;
+
+import com.challenge.abnamro.model.entity.Recipe;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * This class is used as summary DTO for {@link Recipe} in lists of recipes.
+ *
+ * Summary leaves out instructions and carries names of ingredients only,
+ * complete recipe is available by its id.
+ */
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+public class RecipeSummaryDTO {
+
+	private Long id;
+
+	private String name;
+
+	@Getter(AccessLevel.NONE)
+	private Boolean vegetarian;
+
+	private Integer numberOfServings;
+
+	private Set<String> ingredients;
+
+	public Boolean isVegetarian() {
+		return this.vegetarian;
+	}
+}
@@ -1,18 +1,24 @@
 package com.challenge.abnamro.model.entity;
 
+import com.challenge.abnamro.configuration.SecondLevelCacheConfiguration;
+import com.challenge.abnamro.model.entity.id.BlockSequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import java.util.Objects;
@@ -32,16 +38,20 @@ import java.util.Objects;
 @ToString
 @Table(uniqueConstraints = {
 		@UniqueConstraint(name = "UniqueIngredient", columnNames = "name")})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.INGREDIENT_REGION)
 public class Ingredient {
 
+	/*
+	 * Ids are allocated in blocks, see {@link BlockSequenceGenerator}.
+	 */
 	@Id
 	@GeneratedValue(
 			strategy = GenerationType.SEQUENCE,
 			generator = "INGREDIENT_ID_SEQUENCE_GENERATOR")
-	@SequenceGenerator(
+	@GenericGenerator(
 			name = "INGREDIENT_ID_SEQUENCE_GENERATOR",
-			sequenceName = "INGREDIENT_ID_SEQUENCE",
-			allocationSize = 1)
+			strategy = BlockSequenceGenerator.STRATEGY,
+			parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "INGREDIENT_ID_SEQUENCE"))
 	private Long id;
 
 	@Column(length = 200)
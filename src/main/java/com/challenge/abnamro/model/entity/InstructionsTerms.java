@@ -0,0 +1,98 @@
+package com.challenge.abnamro.model.entity;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Terms of recipe instructions, as indexed by {@link com.challenge.abnamro.index.InstructionsTextIndex}.
+ *
+ * Instructions are split into terms on every character which is not a letter or a digit,
+ * and terms are case folded.
+ *
+ * Searched text is treated as phrase i.e. its terms must appear next to each other.
+ * Last term of searched text is treated as prefix, unless searched text ends with separator,
+ * e.g. "boil wat" matches "Boil water", but "boil wat " does not.
+ * Text without any term does not match any recipe.
+ *
+ * Terms are not stored in database, instructions are stored compressed, see
+ * {@link com.challenge.abnamro.model.entity.compression.CompressedInstructions}.
+ */
+public final class InstructionsTerms {
+
+	private InstructionsTerms() {
+	}
+
+	public static List<String> tokenize(@Nullable final String text) {
+
+		List<String> terms = new ArrayList<>();
+
+		if (Objects.isNull(text))
+			return terms;
+
+		int termStart = -1;
+
+		for (int i = 0; i <= text.length(); ++i) {
+
+			boolean isTermCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+			if (isTermCharacter && termStart < 0) {
+				termStart = i;
+			} else if (!isTermCharacter && termStart >= 0) {
+				terms.add(text.substring(termStart, i).toLowerCase(Locale.ROOT));
+				termStart = -1;
+			}
+		}
+
+		return terms;
+	}
+
+	/**
+	 * @param text searched text, not empty
+	 * @return true if last term of text is matched as prefix, i.e. text does not end with separator
+	 */
+	public static boolean isLastTermPrefix(final String text) {
+		return Character.isLetterOrDigit(text.charAt(text.length() - 1));
+	}
+
+	/**
+	 * Match text in instructions of one recipe, the same way as by text index.
+	 *
+	 * @param instructions of recipe
+	 * @param text searched text
+	 * @return true if instructions contain text
+	 */
+	public static boolean contains(@Nullable final String instructions, final String text) {
+
+		List<String> terms = tokenize(text);
+
+		if (terms.isEmpty())
+			return false;
+
+		boolean lastTermIsPrefix = isLastTermPrefix(text);
+		int lastTermIndex = terms.size() - 1;
+		List<String> instructionsTerms = tokenize(instructions);
+
+		for (int start = 0; start + terms.size() <= instructionsTerms.size(); ++start) {
+
+			boolean matched = true;
+
+			for (int i = 0; i <= lastTermIndex && matched; ++i) {
+
+				String instructionsTerm = instructionsTerms.get(start + i);
+
+				matched = i == lastTermIndex && lastTermIsPrefix
+						? instructionsTerm.startsWith(terms.get(i))
+						: instructionsTerm.equals(terms.get(i));
+			}
+
+			if (matched)
+				return true;
+		}
+
+		return false;
+	}
+}
@@ -1,5 +1,9 @@
 package com.challenge.abnamro.model.entity;
 
+import com.challenge.abnamro.configuration.SecondLevelCacheConfiguration;
+import com.challenge.abnamro.model.entity.compression.CompressedInstructions;
+import com.challenge.abnamro.model.entity.compression.CompressedInstructionsConverter;
+import com.challenge.abnamro.model.entity.id.BlockSequenceGenerator;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -7,20 +11,28 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
-import javax.persistence.CascadeType;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
-import javax.persistence.SequenceGenerator;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 import java.util.Objects;
 import java.util.Set;
 
@@ -35,6 +47,11 @@ import java.util.Set;
  *
  * But Recipe(name = "Pasta", vegetarian = "true", number of servings = 2)
  * and Recipe(name = "Pasta", vegetarian = "true", number of servings = 5) will be considered as same entities.
+ *
+ * Update statements are generated per update and set changed columns only,
+ * e.g. change of number of servings does not rewrite instructions.
+ *
+ * Instructions are stored compressed, see {@link CompressedInstructions}.
  */
 @Entity
 @Builder(toBuilder = true)
@@ -45,16 +62,29 @@ import java.util.Set;
 @ToString
 @Table(uniqueConstraints = {
 		@UniqueConstraint(name = "UniqueRecipe", columnNames = {"name", "vegetarian"})})
+@NamedEntityGraph(
+		name = Recipe.WITH_INGREDIENTS,
+		attributeNodes = @NamedAttributeNode("ingredients"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.RECIPE_REGION)
+@DynamicUpdate
 public class Recipe {
 
+	/**
+	 * Fetch plan loading recipe together with its ingredients.
+	 */
+	public static final String WITH_INGREDIENTS = "Recipe.withIngredients";
+
+	/*
+	 * Ids are allocated in blocks, see {@link BlockSequenceGenerator}.
+	 */
 	@Id
 	@GeneratedValue(
 			strategy = GenerationType.SEQUENCE,
 			generator = "RECIPE_ID_SEQUENCE_GENERATOR")
-	@SequenceGenerator(
+	@GenericGenerator(
 			name = "RECIPE_ID_SEQUENCE_GENERATOR",
-			sequenceName = "RECIPE_ID_SEQUENCE",
-			allocationSize = 1)
+			strategy = BlockSequenceGenerator.STRATEGY,
+			parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "RECIPE_ID_SEQUENCE"))
 	private Long id;
 
 	@Column(length = 200)
@@ -65,29 +95,78 @@ public class Recipe {
 
 	private Integer numberOfServings;
 
-	@ManyToMany(
-			cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH},
-			fetch = FetchType.EAGER)
+	/*
+	 * Ingredients are not cascaded, they are persisted by service before recipe is saved.
+	 * Ingredients are lazy, use cases needing them fetch them using {@link Recipe#WITH_INGREDIENTS}.
+	 * Ingredients of recipes loaded without it are initialized for up to 100 recipes by one query.
+	 * Ids of ingredients are cached along with recipe, ingredients themselves are cached by their own region.
+	 * Ingredients are excluded from toString, so that logging a recipe does not load them.
+	 */
+	@ManyToMany
+	@BatchSize(size = 100)
+	@ToString.Exclude
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.RECIPE_INGREDIENTS_REGION)
 	@JoinTable(
 			name = "RECIPE_INGREDIENTS",
 			joinColumns = @JoinColumn(name = "recipes_id"),
 			inverseJoinColumns = @JoinColumn(name = "ingredients_id"))
 	private Set<Ingredient> ingredients;
 
-	@Column(length = 4000)
-	private String instructions;
+	/*
+	 * Accessed as text by getter, setter and builder, text is decompressed only when it is read.
+	 * Column is defined explicitly, as Hibernate expects long binary type for binary values of converters.
+	 */
+	@Convert(converter = CompressedInstructionsConverter.class)
+	@Column(columnDefinition = "binary varying(" + CompressedInstructions.MAX_LENGTH + ")")
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private CompressedInstructions instructions;
+
+	/*
+	 * Incremented by every update, including change of ingredients, and checked by updates and deletes,
+	 * i.e. concurrent change of same recipe fails instead of being lost.
+	 * Primitive, so that recipe with id but without version is still merged and not persisted.
+	 */
+	@Version
+	private long version;
 
 	public void merge(final Recipe otherRecipe) {
 
 		this.numberOfServings = otherRecipe.numberOfServings;
-		this.ingredients = otherRecipe.ingredients;
+		mergeIngredients(otherRecipe.ingredients);
 		this.instructions = otherRecipe.instructions;
 	}
 
+	/**
+	 * Change ingredients of recipe in place, i.e. remove missing ones and add new ones,
+	 * so that only rows of removed and added ingredients are deleted and inserted,
+	 * instead of all rows of recipe being deleted and inserted again by replaced collection.
+	 *
+	 * @param otherIngredients new ingredients of recipe
+	 */
+	public void mergeIngredients(final Set<Ingredient> otherIngredients) {
+
+		if (Objects.isNull(this.ingredients) || Objects.isNull(otherIngredients)) {
+			this.ingredients = otherIngredients;
+			return;
+		}
+
+		this.ingredients.retainAll(otherIngredients);
+		this.ingredients.addAll(otherIngredients);
+	}
+
 	public Boolean isVegetarian() {
 		return this.vegetarian;
 	}
 
+	public String getInstructions() {
+		return Objects.isNull(this.instructions) ? null : this.instructions.getText();
+	}
+
+	public void setInstructions(final String instructions) {
+		this.instructions = CompressedInstructions.of(instructions);
+	}
+
 	@Override
 	public boolean equals(final Object other) {
 
@@ -108,4 +187,21 @@ public class Recipe {
 				this.name,
 				this.vegetarian);
 	}
+
+	/*
+	 * Builder takes instructions as text, like setter, remaining methods are generated.
+	 */
+	public static class RecipeBuilder {
+
+		public RecipeBuilder instructions(final String instructions) {
+			this.instructions = CompressedInstructions.of(instructions);
+			return this;
+		}
+
+		//used by toBuilder(), so that instructions are copied without decompressing them
+		private RecipeBuilder instructions(final CompressedInstructions instructions) {
+			this.instructions = instructions;
+			return this;
+		}
+	}
 }
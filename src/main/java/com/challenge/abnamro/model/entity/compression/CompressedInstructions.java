@@ -0,0 +1,84 @@
+package com.challenge.abnamro.model.entity.compression;
+
+import org.hibernate.annotations.Immutable;
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Instructions of recipe as stored in database, compressed by {@link InstructionsCompression}.
+ *
+ * Text is decompressed every time it is read and it is not kept, i.e. recipes which are loaded
+ * but whose instructions are not read, e.g. by update or from second-level cache, never decompress them
+ * and hold compressed instructions only.
+ *
+ * Value is immutable, so that Hibernate neither copies it for dirty checking nor for second-level cache,
+ * second-level cache holds it as it is, i.e. compressed.
+ * Equal texts are compressed to equal values, hence setting unchanged instructions does not update them.
+ */
+@Immutable
+public final class CompressedInstructions implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Maximum length of compressed value, i.e. format byte and 4000 characters of at most 3 bytes in UTF-8.
+	 */
+	public static final int MAX_LENGTH = 1 + 3 * 4000;
+
+	private final byte[] value;
+
+	private CompressedInstructions(final byte[] value) {
+		this.value = value;
+	}
+
+	/**
+	 * @param text of instructions
+	 * @return compressed instructions, null if text is null
+	 */
+	@Nullable
+	public static CompressedInstructions of(@Nullable final String text) {
+		return Objects.isNull(text) ? null : new CompressedInstructions(InstructionsCompression.compress(text));
+	}
+
+	@Nullable
+	static CompressedInstructions fromDatabase(@Nullable final byte[] value) {
+		return Objects.isNull(value) ? null : new CompressedInstructions(value);
+	}
+
+	byte[] toDatabase() {
+		return this.value;
+	}
+
+	public String getText() {
+		return InstructionsCompression.decompress(this.value);
+	}
+
+	public int getCompressedLength() {
+		return this.value.length;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+
+		if (this == other)
+			return true;
+
+		if (other == null || getClass() != other.getClass())
+			return false;
+
+		return Arrays.equals(this.value, ((CompressedInstructions) other).value);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(this.value);
+	}
+
+	@Override
+	public String toString() {
+		return "CompressedInstructions(compressedLength=" + this.value.length + ")";
+	}
+}
@@ -0,0 +1,22 @@
+package com.challenge.abnamro.model.entity.compression;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.Objects;
+
+/**
+ * Stores {@link CompressedInstructions} as binary column, without decompressing them.
+ */
+@Converter
+public class CompressedInstructionsConverter implements AttributeConverter<CompressedInstructions, byte[]> {
+
+	@Override
+	public byte[] convertToDatabaseColumn(final CompressedInstructions compressedInstructions) {
+		return Objects.isNull(compressedInstructions) ? null : compressedInstructions.toDatabase();
+	}
+
+	@Override
+	public CompressedInstructions convertToEntityAttribute(final byte[] value) {
+		return CompressedInstructions.fromDatabase(value);
+	}
+}
@@ -0,0 +1,160 @@
+package com.challenge.abnamro.model.entity.compression;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of recipe instructions using deflate with a preset dictionary of phrases common in instructions,
+ * so that also instructions of few sentences are compressed.
+ *
+ * Compressed value starts with a format byte, followed by
+ * <ul>
+ *     <li>{@link #UNCOMPRESSED} - UTF-8 text as is, if deflate would not make it shorter</li>
+ *     <li>{@link #DEFLATED_V1} - zlib stream of UTF-8 text, deflated using dictionary version 1</li>
+ * </ul>
+ * Dictionary of a format must never change once values are stored, changed dictionary needs a new format.
+ *
+ * Database never decompresses instructions, text in instructions is searched by
+ * {@link com.challenge.abnamro.index.InstructionsTextIndex}.
+ */
+public final class InstructionsCompression {
+
+	private static final byte UNCOMPRESSED = 0;
+	private static final byte DEFLATED_V1 = 1;
+
+	private static final byte[] DICTIONARY_V1 = loadDictionary("/compression/instructions-dictionary-v1.txt");
+
+	private static final int BUFFER_SIZE = 1024;
+
+	private InstructionsCompression() {
+	}
+
+	/**
+	 * @param text to compress
+	 * @return compressed value, null if text is null
+	 */
+	@Nullable
+	public static byte[] compress(@Nullable final String text) {
+
+		if (Objects.isNull(text))
+			return null;
+
+		byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+		try {
+			deflater.setDictionary(DICTIONARY_V1);
+			deflater.setInput(utf8);
+			deflater.finish();
+
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(utf8.length / 2 + 16);
+			compressed.write(DEFLATED_V1);
+
+			byte[] buffer = new byte[BUFFER_SIZE];
+
+			while (!deflater.finished())
+				compressed.write(buffer, 0, deflater.deflate(buffer));
+
+			if (compressed.size() < utf8.length + 1)
+				return compressed.toByteArray();
+		} finally {
+			deflater.end();
+		}
+
+		byte[] uncompressed = new byte[utf8.length + 1];
+		uncompressed[0] = UNCOMPRESSED;
+		System.arraycopy(utf8, 0, uncompressed, 1, utf8.length);
+
+		return uncompressed;
+	}
+
+	/**
+	 * @param value compressed by {@link #compress(String)}
+	 * @return text, null if value is null
+	 * @throws IllegalArgumentException if value is not compressed text
+	 */
+	@Nullable
+	public static String decompress(@Nullable final byte[] value) {
+
+		if (Objects.isNull(value))
+			return null;
+
+		if (value.length == 0)
+			throw new IllegalArgumentException("Compressed instructions are empty.");
+
+		switch (value[0]) {
+
+			case UNCOMPRESSED:
+				return new String(value, 1, value.length - 1, StandardCharsets.UTF_8);
+
+			case DEFLATED_V1:
+				return new String(inflate(value, DICTIONARY_V1), StandardCharsets.UTF_8);
+
+			default:
+				throw new IllegalArgumentException("Unknown format of compressed instructions: " + value[0]);
+		}
+	}
+
+	private static byte[] inflate(final byte[] value, final byte[] dictionary) {
+
+		Inflater inflater = new Inflater();
+
+		try {
+			inflater.setInput(value, 1, value.length - 1);
+
+			ByteArrayOutputStream decompressed = new ByteArrayOutputStream(value.length * 4);
+			byte[] buffer = new byte[BUFFER_SIZE];
+
+			while (!inflater.finished()) {
+
+				int length = inflater.inflate(buffer);
+
+				//zlib header names the dictionary by its checksum, it is set once inflater asks for it
+				if (length == 0 && inflater.needsDictionary())
+					inflater.setDictionary(dictionary);
+				else if (length == 0 && inflater.needsInput())
+					throw new IllegalArgumentException("Compressed instructions are truncated.");
+
+				decompressed.write(buffer, 0, length);
+			}
+
+			return decompressed.toByteArray();
+		} catch (DataFormatException ex) {
+			throw new IllegalArgumentException("Compressed instructions are corrupted.", ex);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/*
+	 * Line endings are normalized, so that dictionary does not depend on how resource is checked out.
+	 */
+	private static byte[] loadDictionary(final String resource) {
+
+		try (InputStream inputStream = InstructionsCompression.class.getResourceAsStream(resource)) {
+
+			if (Objects.isNull(inputStream))
+				throw new IllegalStateException("Dictionary " + resource + " not found.");
+
+			String dictionary
+					= StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8)
+					.replace("\r\n", "\n")
+					.trim();
+
+			return dictionary.getBytes(StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
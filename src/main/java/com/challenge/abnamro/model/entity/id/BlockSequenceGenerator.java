@@ -0,0 +1,37 @@
+package com.challenge.abnamro.model.entity.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence based id generator which allocates ids in blocks.
+ *
+ * Sequence is incremented by block size and ids of a block are handed out in memory (pooled-lo optimizer),
+ * hence only one sequence call is made per block instead of one per persisted row,
+ * and inserts of several rows can be sent to database as one JDBC batch.
+ *
+ * Block size is fixed, as sequences are created with the same increment by migration V1__create_schema.sql
+ * and Hibernate refuses to start if increment of a sequence differs from block size.
+ * Changing block size needs a migration altering increment of the sequences.
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+	public static final String STRATEGY = "com.challenge.abnamro.model.entity.id.BlockSequenceGenerator";
+	public static final int BLOCK_SIZE = 50;
+
+	@Override
+	public void configure(final Type type,
+						  final Properties params,
+						  final ServiceRegistry serviceRegistry) throws MappingException {
+
+		params.setProperty(INCREMENT_PARAM, Integer.toString(BLOCK_SIZE));
+		params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+		super.configure(type, params, serviceRegistry);
+	}
+}
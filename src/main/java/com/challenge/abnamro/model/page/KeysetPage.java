@@ -0,0 +1,49 @@
+package com.challenge.abnamro.model.page;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Page of recipes along with opaque cursor of the next page.
+ *
+ * @param <T> type of page content
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@EqualsAndHashCode
+@ToString
+public class KeysetPage<T> {
+
+	private final List<T> content;
+
+	//null for the last page
+	private final String nextCursor;
+
+	/**
+	 * @param content of page
+	 * @param fetchedIds ids fetched for {@link KeysetPageRequest#getFetchSize()}, in ascending order
+	 * @param keysetPageRequest requested page
+	 * @return page, with next cursor if more ids were fetched than requested
+	 */
+	public static <T> KeysetPage<T> of(final List<T> content,
+									   final List<Long> fetchedIds,
+									   final KeysetPageRequest keysetPageRequest) {
+
+		String nextCursor
+				= fetchedIds.size() > keysetPageRequest.getLimit()
+				? KeysetPageRequest.encodeCursor(fetchedIds.get(keysetPageRequest.getLimit() - 1))
+				: null;
+
+		return new KeysetPage<>(content, nextCursor);
+	}
+
+	public boolean hasNext() {
+		return Objects.nonNull(this.nextCursor);
+	}
+}
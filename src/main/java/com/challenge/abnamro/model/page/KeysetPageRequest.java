@@ -0,0 +1,83 @@
+package com.challenge.abnamro.model.page;
+
+import com.challenge.abnamro.exception.ApplicationException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Request for a page of recipes ordered by recipe id.
+ *
+ * Page starts right after the recipe identified by opaque cursor ({@link KeysetPageRequest#afterId}),
+ * hence database seeks directly to the page using primary key instead of scanning skipped rows as with OFFSET.
+ * Cursor of the next page is provided by {@link KeysetPage}.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@EqualsAndHashCode
+@ToString
+public class KeysetPageRequest {
+
+	public static final int DEFAULT_LIMIT = 100;
+	public static final int MAX_LIMIT = 1000;
+
+	private final int limit;
+
+	//null for the first page
+	private final Long afterId;
+
+	/**
+	 * @param limit maximum number of recipes in page, {@link KeysetPageRequest#DEFAULT_LIMIT} if not provided
+	 * @param after cursor received with previous page, null for the first page
+	 * @return page request
+	 * @throws ApplicationException.InvalidPageRequestException if limit is out of range or cursor is not valid
+	 */
+	public static KeysetPageRequest of(final Integer limit, final String after) {
+
+		int pageLimit = Objects.isNull(limit) ? DEFAULT_LIMIT : limit;
+
+		if (pageLimit < 1 || pageLimit > MAX_LIMIT)
+			throw new ApplicationException.InvalidPageRequestException(
+					"Limit must be between 1 and " + MAX_LIMIT + ".");
+
+		return new KeysetPageRequest(pageLimit, Objects.isNull(after) ? null : decodeCursor(after));
+	}
+
+	/*
+	 * One more id than limit is fetched to find out whether next page exists.
+	 */
+	public int getFetchSize() {
+		return this.limit + 1;
+	}
+
+	public List<Long> getPageIds(final List<Long> fetchedIds) {
+		return fetchedIds.size() > this.limit ? fetchedIds.subList(0, this.limit) : fetchedIds;
+	}
+
+	static String encodeCursor(final long id) {
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Long decodeCursor(final String after) {
+
+		try {
+			long id = Long.parseLong(new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8));
+
+			if (id < 0)
+				throw new IllegalArgumentException("Negative id");
+
+			return id;
+		} catch (IllegalArgumentException ex) {
+			throw new ApplicationException.InvalidPageRequestException("Cursor is not valid.");
+		}
+	}
+}
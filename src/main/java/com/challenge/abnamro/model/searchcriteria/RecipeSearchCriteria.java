@@ -16,7 +16,7 @@ import java.util.Set;
 /**
  * This class represents search criteria body.
  * All search criteria will be combined using AND.
- * To perform OR operation, separate requests need to be made by client.
+ * To perform OR or NOT operation, criteria can be combined using {@link RecipeSearchExpression}.
  *
  * Validation rules for search criteria are as follows.
  *
@@ -0,0 +1,98 @@
+package com.challenge.abnamro.model.searchcriteria;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * This class represents boolean search expression body.
+ * Expression is a tree combining {@link RecipeSearchCriteria} using AND, OR and NOT,
+ * so that recipes matching to any of several criteria can be searched with one request.
+ *
+ * e.g. vegetarian recipes for 4 persons or recipes without salmon
+ * <pre>
+ * {"anyOf": [
+ *     {"criteria": {"vegetarian": true, "numberOfServings": 4}},
+ *     {"not": {"criteria": {"includedIngredients": [{"name": "salmon"}]}}}
+ * ]}
+ * </pre>
+ *
+ * Validation rules for search expression are as follows.
+ *
+ * Exactly one of {@link RecipeSearchExpression#criteria}, {@link RecipeSearchExpression#allOf},
+ * {@link RecipeSearchExpression#anyOf} and {@link RecipeSearchExpression#not} must be not-null.
+ *
+ * {@link RecipeSearchExpression#allOf} and {@link RecipeSearchExpression#anyOf}
+ * must contain at least one expression.
+ *
+ * Whole expression may contain at most {@link RecipeSearchExpression#MAX_NODES} nodes,
+ * as it is compiled into a single database query.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+@ToString
+public class RecipeSearchExpression {
+
+	public static final int MAX_NODES = 100;
+
+	//leaf, criteria combined using AND
+	@Valid
+	private RecipeSearchCriteria criteria;
+
+	@Valid
+	private List<RecipeSearchExpression> allOf;
+
+	@Valid
+	private List<RecipeSearchExpression> anyOf;
+
+	@Valid
+	private RecipeSearchExpression not;
+
+	@JsonIgnore
+	@AssertTrue(message = "Search expression must be valid.")
+	public boolean isValid() {
+
+		long nonNullOperands
+				= Stream.of(this.criteria, this.allOf, this.anyOf, this.not)
+				.filter(Objects::nonNull)
+				.count();
+
+		if (nonNullOperands != 1)
+			return false;
+
+		if (Objects.nonNull(this.allOf) && (this.allOf.isEmpty() || this.allOf.contains(null)))
+			return false;
+
+		if (Objects.nonNull(this.anyOf) && (this.anyOf.isEmpty() || this.anyOf.contains(null)))
+			return false;
+
+		return countNodes() <= MAX_NODES;
+	}
+
+	private int countNodes() {
+
+		if (Objects.nonNull(this.not))
+			return 1 + this.not.countNodes();
+
+		List<RecipeSearchExpression> operands = Objects.nonNull(this.allOf) ? this.allOf : this.anyOf;
+
+		if (Objects.isNull(operands))
+			return 1;
+
+		int nodes = 1;
+
+		for (RecipeSearchExpression operand : operands)
+			nodes += Objects.isNull(operand) ? 1 : operand.countNodes();
+
+		return nodes;
+	}
+}
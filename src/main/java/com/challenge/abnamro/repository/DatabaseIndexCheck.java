@@ -0,0 +1,135 @@
+package com.challenge.abnamro.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Startup check of indexes which search and list queries rely on.
+ *
+ * Indexes are created by migrations, but a database may have been created or changed otherwise.
+ * Query still works without an index, but does a full scan, hence missing index is reported as warning.
+ * Index is found by its leading columns, irrespective of its name.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class DatabaseIndexCheck {
+
+	//leading columns of expected indexes by table
+	private static final String[][] EXPECTED_INDEXES = {
+			{"recipe", "name", "vegetarian"},
+			{"recipe", "vegetarian", "number_of_servings"},
+			{"recipe", "id", "name", "vegetarian", "number_of_servings"},
+			{"ingredient", "name"},
+			{"recipe_ingredients", "recipes_id", "ingredients_id"},
+			{"recipe_ingredients", "ingredients_id", "recipes_id"}};
+
+	private final DataSource dataSource;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void check() {
+
+		List<String> missingIndexes = findMissingIndexes();
+
+		if (missingIndexes.isEmpty())
+			log.info("All {} expected database indexes are available", EXPECTED_INDEXES.length);
+		else
+			missingIndexes.forEach(missingIndex ->
+					log.warn("Database index on {} is missing, queries using it do full scan", missingIndex));
+	}
+
+	/**
+	 * @return expected indexes which are not available, as <code>table(column, ...)</code>
+	 */
+	public List<String> findMissingIndexes() {
+
+		Connection connection = DataSourceUtils.getConnection(this.dataSource);
+
+		try {
+			DatabaseMetaData metaData = connection.getMetaData();
+			Map<String, Collection<List<String>>> indexColumnsByTable = new HashMap<>();
+			List<String> missingIndexes = new ArrayList<>();
+
+			for (String[] expectedIndex : EXPECTED_INDEXES) {
+
+				String table = expectedIndex[0];
+				List<String> expectedColumns = Arrays.asList(expectedIndex).subList(1, expectedIndex.length);
+
+				Collection<List<String>> indexColumns
+						= indexColumnsByTable.computeIfAbsent(table, name -> getIndexColumns(metaData, name));
+
+				boolean available
+						= indexColumns.stream()
+						.anyMatch(columns ->
+								columns.size() >= expectedColumns.size()
+										&& columns.subList(0, expectedColumns.size()).equals(expectedColumns));
+
+				if (!available)
+					missingIndexes.add(table + "(" + String.join(", ", expectedColumns) + ")");
+			}
+
+			return missingIndexes;
+		} catch (SQLException ex) {
+			throw new IllegalStateException("Database indexes could not be read", ex);
+		} finally {
+			DataSourceUtils.releaseConnection(connection, this.dataSource);
+		}
+	}
+
+	/*
+	 * Columns of every index of table, in index order and in lower case.
+	 */
+	private static Collection<List<String>> getIndexColumns(final DatabaseMetaData metaData, final String table) {
+
+		Map<String, TreeMap<Short, String>> columnsByIndex = new HashMap<>();
+
+		try {
+			String tableName
+					= metaData.storesUpperCaseIdentifiers()
+					? table.toUpperCase(Locale.ROOT)
+					: table;
+
+			try (ResultSet indexInfo = metaData.getIndexInfo(null, null, tableName, false, false)) {
+
+				while (indexInfo.next()) {
+
+					String indexName = indexInfo.getString("INDEX_NAME");
+					String columnName = indexInfo.getString("COLUMN_NAME");
+
+					//statistics rows have neither index nor column
+					if (indexName == null || columnName == null)
+						continue;
+
+					columnsByIndex
+							.computeIfAbsent(indexName, name -> new TreeMap<>())
+							.put(indexInfo.getShort("ORDINAL_POSITION"), columnName.toLowerCase(Locale.ROOT));
+				}
+			}
+		} catch (SQLException ex) {
+			throw new IllegalStateException("Indexes of table " + table + " could not be read", ex);
+		}
+
+		List<List<String>> indexColumns = new ArrayList<>();
+		columnsByIndex.values().forEach(columns -> indexColumns.add(new ArrayList<>(columns.values())));
+
+		return indexColumns;
+	}
+}
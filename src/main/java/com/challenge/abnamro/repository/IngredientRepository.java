@@ -2,12 +2,43 @@ package com.challenge.abnamro.repository;
 
 import com.challenge.abnamro.model.entity.Ingredient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
 
-	Optional<Ingredient> findByName(final String name);
+	/*
+	 * Results are cached by query cache, they are invalidated by any change of ingredients.
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+	List<Ingredient> findByNameIn(final Collection<String> names);
+
+	/*
+	 * Orphaned ingredients are not used by any recipe.
+	 * They are found by anti-join on ingredients of recipes, using index of join table by ingredient.
+	 */
+	@Query(value = "SELECT * FROM ingredient i WHERE i.id > :afterId"
+			+ " AND NOT EXISTS (SELECT 1 FROM recipe_ingredients ri WHERE ri.ingredients_id = i.id)"
+			+ " ORDER BY i.id LIMIT :limit",
+			nativeQuery = true)
+	List<Ingredient> findOrphans(@Param("afterId") long afterId, @Param("limit") int limit);
+
+	/*
+	 * Ingredients are deleted only if they are still orphaned, i.e. ingredient used by a recipe meanwhile is kept.
+	 * Hibernate invalidates second-level cache region of ingredients and cached query results of ingredients.
+	 */
+	@Modifying
+	@Query(value = "DELETE FROM ingredient WHERE id IN (:ids)"
+			+ " AND NOT EXISTS (SELECT 1 FROM recipe_ingredients ri WHERE ri.ingredients_id = ingredient.id)",
+			nativeQuery = true)
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES, value = "INGREDIENT"))
+	int deleteOrphansByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,33 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.model.entity.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * Repository fragment for counting recipes per facet value with GROUP BY,
+ * implemented by {@link RecipeFacetRepositoryImpl}. Recipes themselves are never loaded.
+ */
+public interface RecipeFacetRepository {
+
+	/**
+	 * @param spec to match, all recipes if null
+	 * @return number of matching recipes per vegetarian flag
+	 */
+	Map<Boolean, Long> countByVegetarian(@Nullable Specification<Recipe> spec);
+
+	/**
+	 * @param spec to match, all recipes if null
+	 * @return number of matching recipes per number of servings
+	 */
+	Map<Integer, Long> countByNumberOfServings(@Nullable Specification<Recipe> spec);
+
+	/**
+	 * @param spec to match, all recipes if null
+	 * @param limit maximum number of ingredients
+	 * @return number of matching recipes per ingredient name, for most frequent ingredients in descending order
+	 */
+	Map<String, Long> countByIngredient(@Nullable Specification<Recipe> spec, int limit);
+}
@@ -0,0 +1,85 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.entity.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+class RecipeFacetRepositoryImpl implements RecipeFacetRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Map<Boolean, Long> countByVegetarian(final Specification<Recipe> spec) {
+		return countBy(spec, root -> root.get("vegetarian"), Integer.MAX_VALUE, new TreeMap<>());
+	}
+
+	@Override
+	public Map<Integer, Long> countByNumberOfServings(final Specification<Recipe> spec) {
+		return countBy(spec, root -> root.get("numberOfServings"), Integer.MAX_VALUE, new TreeMap<>());
+	}
+
+	@Override
+	public Map<String, Long> countByIngredient(final Specification<Recipe> spec, final int limit) {
+
+		return countBy(spec, root -> {
+			Join<Recipe, Ingredient> ingredients = root.join("ingredients");
+			return ingredients.get("name");
+		}, limit, new LinkedHashMap<>());
+	}
+
+	/*
+	 * SELECT facet, COUNT(r) FROM Recipe r WHERE spec GROUP BY facet ORDER BY COUNT(r) DESC, facet
+	 */
+	private <K> Map<K, Long> countBy(final Specification<Recipe> spec,
+									 final Function<Root<Recipe>, Expression<K>> facetProvider,
+									 final int limit,
+									 final Map<K, Long> counts) {
+
+		CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+		Root<Recipe> root = query.from(Recipe.class);
+		Expression<K> facet = facetProvider.apply(root);
+		Expression<Long> count = criteriaBuilder.count(root);
+
+		query.multiselect(facet, count)
+				.groupBy(facet)
+				.orderBy(criteriaBuilder.desc(count), criteriaBuilder.asc(facet));
+
+		if (Objects.nonNull(spec)) {
+
+			Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+
+			if (Objects.nonNull(predicate))
+				query.where(predicate);
+		}
+
+		List<Tuple> tuples
+				= this.entityManager.createQuery(query)
+					.setMaxResults(limit)
+					.getResultList();
+
+		//recipes without value of facet are not counted
+		for (Tuple tuple : tuples)
+			if (Objects.nonNull(tuple.get(0)))
+				counts.put(tuple.get(0, facet.getJavaType()), tuple.get(1, Long.class));
+
+		return counts;
+	}
+}
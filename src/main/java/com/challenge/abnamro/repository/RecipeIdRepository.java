@@ -0,0 +1,36 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.model.entity.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Repository fragment for queries selecting recipe ids only, implemented by {@link RecipeIdRepositoryImpl}.
+ */
+public interface RecipeIdRepository {
+
+	/**
+	 * Find ids of recipes matching to specification, in ascending order, starting after given id.
+	 * Query seeks using primary key, i.e. <code>WHERE ... AND id > :afterId ORDER BY id LIMIT :limit</code>.
+	 *
+	 * @param spec to match, all recipes if null
+	 * @param afterId exclusive lower bound of ids, no bound if null
+	 * @param limit maximum number of ids
+	 * @return ids of matching recipes
+	 */
+	List<Long> findIds(@Nullable Specification<Recipe> spec, @Nullable Long afterId, int limit);
+
+	/**
+	 * Same as {@link RecipeIdRepository#findIds(Specification, Long, int)}, but rows of found recipes are locked
+	 * until end of transaction, i.e. <code>SELECT ... FOR UPDATE</code>,
+	 * so that found recipes can not change before transaction acts on them, e.g. deletes them.
+	 *
+	 * @param spec to match, all recipes if null
+	 * @param afterId exclusive lower bound of ids, no bound if null
+	 * @param limit maximum number of ids
+	 * @return ids of matching recipes
+	 */
+	List<Long> findIdsForUpdate(@Nullable Specification<Recipe> spec, @Nullable Long afterId, int limit);
+}
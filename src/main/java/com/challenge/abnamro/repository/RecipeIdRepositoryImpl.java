@@ -0,0 +1,64 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.model.entity.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+class RecipeIdRepositoryImpl implements RecipeIdRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Long> findIds(final Specification<Recipe> spec, final Long afterId, final int limit) {
+		return createQuery(spec, afterId, limit).getResultList();
+	}
+
+	@Override
+	public List<Long> findIdsForUpdate(final Specification<Recipe> spec, final Long afterId, final int limit) {
+
+		return createQuery(spec, afterId, limit)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+	}
+
+	private TypedQuery<Long> createQuery(final Specification<Recipe> spec, final Long afterId, final int limit) {
+
+		CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+		Root<Recipe> root = query.from(Recipe.class);
+		Path<Long> id = root.get("id");
+
+		List<Predicate> predicates = new ArrayList<>();
+
+		if (Objects.nonNull(spec)) {
+
+			Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+
+			if (Objects.nonNull(predicate))
+				predicates.add(predicate);
+		}
+
+		if (Objects.nonNull(afterId))
+			predicates.add(criteriaBuilder.greaterThan(id, afterId));
+
+		query.select(id)
+				.where(predicates.toArray(new Predicate[0]))
+				.orderBy(criteriaBuilder.asc(id));
+
+		return this.entityManager.createQuery(query)
+				.setMaxResults(limit);
+	}
+}
@@ -1,30 +1,76 @@
 package com.challenge.abnamro.repository;
 
 import com.challenge.abnamro.model.entity.Recipe;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface RecipeRepository extends JpaRepository<Recipe, Long>, JpaSpecificationExecutor<Recipe> {
+public interface RecipeRepository
+		extends JpaRepository<Recipe, Long>, JpaSpecificationExecutor<Recipe>, RecipeIdRepository, RecipeFacetRepository,
+		RecipeSummaryRepository {
 
 	/*
-	 * @EntityGraph helps to avoid N+1 problem by enabling joins for eager fetch of ingredients.
+	 * @EntityGraph helps to avoid N+1 problem by enabling joins for fetch of lazy ingredients.
 	 */
 	@EntityGraph(
 			type = EntityGraph.EntityGraphType.FETCH,
-			attributePaths = "ingredients"
+			value = Recipe.WITH_INGREDIENTS
 	)
 	List<Recipe> findAll();
 
 	@EntityGraph(
 			type = EntityGraph.EntityGraphType.FETCH,
-			attributePaths = "ingredients"
+			value = Recipe.WITH_INGREDIENTS
 	)
 	List<Recipe> findAll(@Nullable Specification<Recipe> spec);
+
+	@EntityGraph(
+			type = EntityGraph.EntityGraphType.FETCH,
+			value = Recipe.WITH_INGREDIENTS
+	)
+	List<Recipe> findAll(@Nullable Specification<Recipe> spec, Sort sort);
+
+	/*
+	 * Recipe along with its ingredients, by one query.
+	 * Use findById(...) instead, if ingredients are not needed.
+	 */
+	@EntityGraph(
+			type = EntityGraph.EntityGraphType.FETCH,
+			value = Recipe.WITH_INGREDIENTS
+	)
+	Optional<Recipe> findWithIngredientsById(long id);
+
+	/*
+	 * Recipes are streamed from database cursor instead of being loaded at once.
+	 * Rows are ordered by recipe id, so that Hibernate can assemble fetched ingredients of a recipe
+	 * from consecutive rows. Stream must be consumed within transaction and closed after use.
+	 */
+	@Query("SELECT r FROM Recipe r LEFT JOIN FETCH r.ingredients ORDER BY r.id")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	Stream<Recipe> streamAll();
+
+	/*
+	 * Bulk statements delete rows without loading recipes, bypassing persistence context.
+	 * Hibernate deletes ingredient rows of matching recipes first, by one statement selecting recipes by same condition,
+	 * and invalidates second-level cache regions of deleted rows as whole, i.e. recipes and their ingredient ids.
+	 * Hence they are used for deletion by criteria only, single recipe is deleted as entity.
+	 */
+	@Modifying
+	@Query("DELETE FROM Recipe r WHERE r.id IN (:ids)")
+	int bulkDeleteByIdIn(@Param("ids") Collection<Long> ids);
 }
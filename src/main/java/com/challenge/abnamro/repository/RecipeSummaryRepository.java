@@ -0,0 +1,24 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.entity.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Repository fragment for queries selecting summary columns of recipes only,
+ * implemented by {@link RecipeSummaryRepositoryImpl}. Recipes themselves are never loaded.
+ */
+public interface RecipeSummaryRepository {
+
+	/**
+	 * Find summaries of recipes matching to specification, in ascending order of ids, by one query.
+	 * Instructions are neither selected nor held by persistence context.
+	 *
+	 * @param spec to match, all recipes if null
+	 * @return summaries of matching recipes
+	 */
+	List<RecipeSummaryDTO> findSummaries(@Nullable Specification<Recipe> spec);
+}
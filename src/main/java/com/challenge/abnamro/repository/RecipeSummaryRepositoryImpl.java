@@ -0,0 +1,86 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.entity.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+class RecipeSummaryRepositoryImpl implements RecipeSummaryRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/*
+	 * SELECT r.id, r.name, r.vegetarian, r.numberOfServings, i.name
+	 * FROM Recipe r LEFT JOIN r.ingredients i WHERE spec ORDER BY r.id
+	 *
+	 * One row per ingredient, rows of a recipe are consecutive as they are ordered by recipe id.
+	 */
+	@Override
+	public List<RecipeSummaryDTO> findSummaries(final Specification<Recipe> spec) {
+
+		CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+		Root<Recipe> root = query.from(Recipe.class);
+		Join<Recipe, Ingredient> ingredients = root.join("ingredients", JoinType.LEFT);
+		Path<Long> id = root.get("id");
+
+		query.multiselect(
+						id,
+						root.get("name"),
+						root.get("vegetarian"),
+						root.get("numberOfServings"),
+						ingredients.get("name"))
+				.orderBy(criteriaBuilder.asc(id));
+
+		if (Objects.nonNull(spec)) {
+
+			Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+
+			if (Objects.nonNull(predicate))
+				query.where(predicate);
+		}
+
+		List<RecipeSummaryDTO> summaries = new ArrayList<>();
+		RecipeSummaryDTO summary = null;
+
+		for (Tuple tuple : this.entityManager.createQuery(query).getResultList()) {
+
+			Long recipeId = tuple.get(0, Long.class);
+
+			if (Objects.isNull(summary) || !summary.getId().equals(recipeId)) {
+
+				summary = RecipeSummaryDTO.builder()
+						.id(recipeId)
+						.name(tuple.get(1, String.class))
+						.vegetarian(tuple.get(2, Boolean.class))
+						.numberOfServings(tuple.get(3, Integer.class))
+						.ingredients(new TreeSet<>())
+						.build();
+
+				summaries.add(summary);
+			}
+
+			//recipe without ingredients is selected once, without ingredient name
+			if (Objects.nonNull(tuple.get(4)))
+				summary.getIngredients().add(tuple.get(4, String.class));
+		}
+
+		return summaries;
+	}
+}
@@ -1,18 +1,47 @@
 package com.challenge.abnamro.repository.filter;
 
+import com.challenge.abnamro.model.entity.Ingredient;
 import com.challenge.abnamro.model.entity.Recipe;
 import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
-import org.apache.logging.log4j.util.Strings;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchExpression;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class RecipeSearchSpecification {
 
 	public static List<Specification<Recipe>> getRecipeSearchSpecifications(
 			final RecipeSearchCriteria recipeSearchCriteria) {
+		return getRecipeSearchSpecifications(recipeSearchCriteria, null);
+	}
+
+	/**
+	 * Same as {@link RecipeSearchSpecification#getRecipeSearchSpecifications(RecipeSearchCriteria)},
+	 * but ingredients are matched by id instead of name, when ids can be found.
+	 *
+	 * Recipe can not contain an unknown ingredient, so criteria including one match nothing
+	 * and unknown excluded ingredients are ignored, without querying ingredients at all.
+	 *
+	 * Text in instructions is not matched by database, as instructions are stored compressed,
+	 * it is matched by InstructionsTextIndex.
+	 *
+	 * @param recipeSearchCriteria to match
+	 * @param ingredientIdFinder finds ids of known ingredients by name, ingredients are matched by name if null
+	 * @return specifications to be combined using AND
+	 */
+	public static List<Specification<Recipe>> getRecipeSearchSpecifications(
+			final RecipeSearchCriteria recipeSearchCriteria,
+			final Function<Collection<String>, Map<String, Long>> ingredientIdFinder) {
 
 		List<Specification<Recipe>> recipeSearchSpecifications = new LinkedList<>();
 
@@ -24,18 +53,64 @@ public class RecipeSearchSpecification {
 			recipeSearchSpecifications.add(numberOfServings(recipeSearchCriteria.getNumberOfServings()));
 		}
 
-		if (Strings.isNotBlank(recipeSearchCriteria.getTextInInstructions())) {
-			recipeSearchSpecifications.add(textInInstructions(recipeSearchCriteria.getTextInInstructions()));
+		if (Objects.nonNull(recipeSearchCriteria.getIncludedIngredients())
+				&& !recipeSearchCriteria.getIncludedIngredients().isEmpty()) {
+			recipeSearchSpecifications.add(
+					containsAllOf(recipeSearchCriteria.getIncludedIngredients(), ingredientIdFinder));
+		}
+
+		if (Objects.nonNull(recipeSearchCriteria.getExcludedIngredients())
+				&& !recipeSearchCriteria.getExcludedIngredients().isEmpty()) {
+			recipeSearchSpecifications.add(
+					containsNoneOf(recipeSearchCriteria.getExcludedIngredients(), ingredientIdFinder));
 		}
 
 		return recipeSearchSpecifications;
 	}
 
+	/**
+	 * Compile search expression into one specification, so that whole expression is answered by a single query.
+	 *
+	 * Criteria of a leaf are combined using AND, as for search by {@link RecipeSearchCriteria},
+	 * expression must not contain text in instructions, which is not matched by database.
+	 * Operands of {@link RecipeSearchExpression#getAllOf()} and {@link RecipeSearchExpression#getAnyOf()}
+	 * are combined using AND and OR respectively, {@link RecipeSearchExpression#getNot()} is negated.
+	 */
+	public static Specification<Recipe> getRecipeSearchSpecification(
+			final RecipeSearchExpression recipeSearchExpression) {
+
+		if (Objects.nonNull(recipeSearchExpression.getCriteria()))
+			return getRecipeSearchSpecifications(recipeSearchExpression.getCriteria()).stream()
+					.reduce(defaultSpecification(), Specification::and);
+
+		if (Objects.nonNull(recipeSearchExpression.getAllOf()))
+			return recipeSearchExpression.getAllOf().stream()
+					.map(RecipeSearchSpecification::getRecipeSearchSpecification)
+					.reduce(defaultSpecification(), Specification::and);
+
+		if (Objects.nonNull(recipeSearchExpression.getAnyOf()))
+			return recipeSearchExpression.getAnyOf().stream()
+					.map(RecipeSearchSpecification::getRecipeSearchSpecification)
+					.reduce(noneSpecification(), Specification::or);
+
+		return Specification.not(getRecipeSearchSpecification(recipeSearchExpression.getNot()));
+	}
+
 	public static Specification<Recipe> defaultSpecification() {
 		return (root, query, criteriaBuilder) ->
 				criteriaBuilder.conjunction();
 	}
 
+	public static Specification<Recipe> idIn(final Collection<Long> recipeIds) {
+		return (root, query, criteriaBuilder) ->
+				root.get("id").in(recipeIds);
+	}
+
+	private static Specification<Recipe> noneSpecification() {
+		return (root, query, criteriaBuilder) ->
+				criteriaBuilder.disjunction();
+	}
+
 	private static Specification<Recipe> isVegetarian(final boolean vegetarian) {
 		return (root, query, criteriaBuilder) ->
 				criteriaBuilder.equal(root.get("vegetarian"), vegetarian);
@@ -46,10 +121,92 @@ public class RecipeSearchSpecification {
 				criteriaBuilder.equal(root.get("numberOfServings"), numberOfServings);
 	}
 
-	private static Specification<Recipe> textInInstructions(final String textInInstructions) {
+	private static Specification<Recipe> containsAllOf(
+			final Set<Ingredient> ingredients,
+			final Function<Collection<String>, Map<String, Long>> ingredientIdFinder) {
 
-		return (root, query, criteriaBuilder) ->
-				criteriaBuilder.like(
-						root.get("instructions"), "%" + textInInstructions + "%");
+		Set<String> ingredientNames = getIngredientNames(ingredients);
+
+		if (Objects.isNull(ingredientIdFinder))
+			return containsAllOf("name", ingredientNames);
+
+		Map<String, Long> ingredientIds = ingredientIdFinder.apply(ingredientNames);
+
+		return ingredientIds.size() < ingredientNames.size()
+				? noneSpecification()
+				: containsAllOf("id", ingredientIds.values());
+	}
+
+	private static Specification<Recipe> containsNoneOf(
+			final Set<Ingredient> ingredients,
+			final Function<Collection<String>, Map<String, Long>> ingredientIdFinder) {
+
+		Set<String> ingredientNames = getIngredientNames(ingredients);
+
+		if (Objects.isNull(ingredientIdFinder))
+			return containsNoneOf("name", ingredientNames);
+
+		Map<String, Long> ingredientIds = ingredientIdFinder.apply(ingredientNames);
+
+		return ingredientIds.isEmpty()
+				? defaultSpecification()
+				: containsNoneOf("id", ingredientIds.values());
+	}
+
+	/**
+	 * Recipe must contain every given ingredient.
+	 *
+	 * Expressed as
+	 * <code>id IN (SELECT r.id FROM Recipe r JOIN r.ingredients i WHERE i.attribute IN (...)
+	 * GROUP BY r.id HAVING COUNT(DISTINCT i.attribute) = n)</code>,
+	 * so that one sub-query serves any number of ingredients.
+	 */
+	private static Specification<Recipe> containsAllOf(final String attribute, final Collection<?> values) {
+
+		return (root, query, criteriaBuilder) -> {
+
+			Subquery<Long> subquery = query.subquery(Long.class);
+			Root<Recipe> subqueryRoot = subquery.from(Recipe.class);
+			Join<Recipe, Ingredient> subqueryIngredients = subqueryRoot.join("ingredients");
+
+			subquery.select(subqueryRoot.get("id"))
+					.where(subqueryIngredients.get(attribute).in(values))
+					.groupBy(subqueryRoot.get("id"))
+					.having(criteriaBuilder.equal(
+							criteriaBuilder.countDistinct(subqueryIngredients.get(attribute)),
+							(long) values.size()));
+
+			return root.get("id").in(subquery);
+		};
+	}
+
+	/**
+	 * Recipe must not contain any of given ingredients.
+	 *
+	 * Expressed as correlated
+	 * <code>NOT EXISTS (SELECT r.id FROM Recipe r JOIN r.ingredients i WHERE r.id = root.id AND i.attribute IN (...))</code>.
+	 */
+	private static Specification<Recipe> containsNoneOf(final String attribute, final Collection<?> values) {
+
+		return (root, query, criteriaBuilder) -> {
+
+			Subquery<Long> subquery = query.subquery(Long.class);
+			Root<Recipe> subqueryRoot = subquery.from(Recipe.class);
+			Join<Recipe, Ingredient> subqueryIngredients = subqueryRoot.join("ingredients");
+
+			subquery.select(subqueryRoot.get("id"))
+					.where(
+							criteriaBuilder.equal(subqueryRoot.get("id"), root.get("id")),
+							subqueryIngredients.get(attribute).in(values));
+
+			return criteriaBuilder.not(criteriaBuilder.exists(subquery));
+		};
+	}
+
+	private static Set<String> getIngredientNames(final Set<Ingredient> ingredients) {
+
+		return ingredients.stream()
+				.map(Ingredient::getName)
+				.collect(Collectors.toSet());
 	}
 }
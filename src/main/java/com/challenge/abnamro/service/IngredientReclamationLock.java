@@ -0,0 +1,79 @@
+package com.challenge.abnamro.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes writing of recipes against reclamation of orphaned ingredients.
+ *
+ * Ingredient resolved for a recipe is not referred by any row until the recipe is inserted, hence it may look orphaned,
+ * e.g. an orphaned ingredient whose id is cached is used again, or a new ingredient is committed before recipes.
+ * Writers of recipes share the lock from resolving ingredients until recipes referring them are committed,
+ * while reclamation deletes a batch of orphans only if it gets the lock exclusively.
+ * Reclamation never waits for the lock, so that writers are not queued behind it and wait at most for one batch.
+ *
+ * Lock is local to the application instance, like {@link com.challenge.abnamro.cache.IngredientIdCache}.
+ */
+@Component
+public class IngredientReclamationLock {
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Share the lock until current transaction is completed, lock is shared again if already held by current thread.
+	 */
+	public void shareUntilCompletion() {
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+			return;
+
+		this.lock.readLock().lock();
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCompletion(final int status) {
+				IngredientReclamationLock.this.lock.readLock().unlock();
+			}
+		});
+	}
+
+	/**
+	 * Share the lock while writing recipes by several transactions.
+	 *
+	 * @param writer of recipes
+	 */
+	public void share(final Runnable writer) {
+
+		this.lock.readLock().lock();
+
+		try {
+			writer.run();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reclaim orphaned ingredients if the lock is not held by any writer of recipes.
+	 *
+	 * @param reclamation of orphaned ingredients
+	 * @return result of reclamation, empty if the lock is held
+	 */
+	public <T> Optional<T> tryExclusively(final Supplier<T> reclamation) {
+
+		if (!this.lock.writeLock().tryLock())
+			return Optional.empty();
+
+		try {
+			return Optional.of(reclamation.get());
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.cache.IngredientIdCache;
+import com.challenge.abnamro.mapper.IngredientDTOMapper;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.repository.IngredientRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class IngredientService {
+
+	private final IngredientRepository ingredientRepository;
+	private final IngredientDTOMapper ingredientDTOMapper;
+	private final IngredientIdCache ingredientIdCache;
+	private final IngredientReclamationLock ingredientReclamationLock;
+
+	/**
+	 * Resolve ingredients by name, i.e. use already persisted ingredients and persist missing ones.
+	 *
+	 * Ids of persisted ingredients are taken from {@link IngredientIdCache},
+	 * which finds names that are not cached together, instead of one query per ingredient.
+	 * Missing ingredients are inserted together, so that they are sent to database as JDBC batch.
+	 * Their ids are cached once transaction is committed.
+	 * Resolved ingredients are not reclaimed as orphans until transaction is completed, see {@link IngredientReclamationLock}.
+	 *
+	 * @param ingredientDTOs to resolve, ingredients with same name are resolved once
+	 * @return persisted ingredients by name, already persisted ingredients are detached and hold id and name only
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Map<String, Ingredient> resolve(final Collection<IngredientDTO> ingredientDTOs) {
+
+		this.ingredientReclamationLock.shareUntilCompletion();
+
+		Map<String, IngredientDTO> ingredientDTOsByName = new LinkedHashMap<>();
+
+		for (IngredientDTO ingredientDTO : ingredientDTOs)
+			ingredientDTOsByName.putIfAbsent(ingredientDTO.getName(), ingredientDTO);
+
+		Map<String, Ingredient> ingredientsByName = new HashMap<>();
+
+		//recipe refers ingredient by id only, so persisted ingredient does not need to be loaded
+		findIds(ingredientDTOsByName.keySet())
+				.forEach((name, id) -> ingredientsByName.put(name, Ingredient.builder().id(id).name(name).build()));
+
+		//missing ingredient is new, even if id is provided
+		List<Ingredient> missingIngredients
+				= ingredientDTOsByName.values().stream()
+				.filter(ingredientDTO -> !ingredientsByName.containsKey(ingredientDTO.getName()))
+				.map(ingredientDTO -> this.ingredientDTOMapper.fromDTO(ingredientDTO.toBuilder().id(null).build()))
+				.collect(Collectors.toList());
+
+		if (!missingIngredients.isEmpty()) {
+
+			log.info("Creating {} new ingredients", missingIngredients.size());
+
+			List<Ingredient> savedIngredients = this.ingredientRepository.saveAll(missingIngredients);
+			savedIngredients.forEach(ingredient -> ingredientsByName.put(ingredient.getName(), ingredient));
+
+			this.ingredientIdCache.putAfterCommit(savedIngredients);
+		}
+
+		return ingredientsByName;
+	}
+
+	/**
+	 * Find ids of persisted ingredients by name, using {@link IngredientIdCache}.
+	 *
+	 * @param names of ingredients
+	 * @return ids by name, unknown names are left out
+	 */
+	public Map<String, Long> findIds(final Collection<String> names) {
+		return this.ingredientIdCache.getAll(names);
+	}
+}
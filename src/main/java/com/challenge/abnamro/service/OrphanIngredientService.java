@@ -0,0 +1,171 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.cache.IngredientIdCache;
+import com.challenge.abnamro.model.dto.OrphanIngredientReclamationDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.repository.IngredientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Reclamation of orphaned ingredients, i.e. ingredients left behind by updates and deletes of recipes,
+ * which are not used by any recipe anymore.
+ *
+ * Orphans are found in id order and deleted in small batches, one short transaction per batch,
+ * pausing between batches, so that writers are never blocked for long.
+ * Deletion checks again that ingredient is orphaned, hence ingredient used by a recipe meanwhile is kept.
+ * Batch is deleted only while no recipe is being written, as ingredients resolved for a recipe look orphaned
+ * until the recipe is committed, otherwise it is retried after pause, see {@link IngredientReclamationLock}.
+ * Ids of deleted ingredients are invalidated from {@link IngredientIdCache}.
+ */
+@Service
+@Slf4j
+public class OrphanIngredientService {
+
+	private final IngredientRepository ingredientRepository;
+	private final IngredientIdCache ingredientIdCache;
+	private final IngredientReclamationLock ingredientReclamationLock;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final Duration batchDelay;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile OrphanIngredientReclamationDTO progress = OrphanIngredientReclamationDTO.builder().build();
+
+	public OrphanIngredientService(final IngredientRepository ingredientRepository,
+								   final IngredientIdCache ingredientIdCache,
+								   final IngredientReclamationLock ingredientReclamationLock,
+								   final TransactionTemplate transactionTemplate,
+								   @Value("${recipe.ingredient.orphan-reclamation.batch-size:100}") final int batchSize,
+								   @Value("${recipe.ingredient.orphan-reclamation.batch-delay:100ms}") final Duration batchDelay) {
+
+		this.ingredientRepository = ingredientRepository;
+		this.ingredientIdCache = ingredientIdCache;
+		this.ingredientReclamationLock = ingredientReclamationLock;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+		this.batchDelay = batchDelay;
+	}
+
+	@Scheduled(
+			initialDelayString = "${recipe.ingredient.orphan-reclamation.initial-delay:PT1M}",
+			fixedDelayString = "${recipe.ingredient.orphan-reclamation.interval:PT1H}")
+	public void scheduledReclaim() {
+		reclaim();
+	}
+
+	/**
+	 * Delete all orphaned ingredients, unless reclamation is already running.
+	 *
+	 * @return progress of this run, or of run already running
+	 */
+	public OrphanIngredientReclamationDTO reclaim() {
+
+		if (!this.running.compareAndSet(false, true)) {
+			log.info("Reclamation of orphaned ingredients is already running");
+			return this.progress;
+		}
+
+		try {
+			this.progress
+					= OrphanIngredientReclamationDTO.builder()
+					.running(true)
+					.startedAt(Instant.now())
+					.totalDeleted(this.progress.getTotalDeleted())
+					.build();
+
+			long afterId = 0;
+			List<Ingredient> orphans;
+
+			do {
+				orphans = this.ingredientRepository.findOrphans(afterId, this.batchSize);
+
+				if (orphans.isEmpty())
+					break;
+
+				int deleted = deleteOrphans(orphans);
+
+				this.progress
+						= this.progress.toBuilder()
+						.scanned(this.progress.getScanned() + orphans.size())
+						.deleted(this.progress.getDeleted() + deleted)
+						.totalDeleted(this.progress.getTotalDeleted() + deleted)
+						.build();
+
+				afterId = orphans.get(orphans.size() - 1).getId();
+			} while (orphans.size() == this.batchSize && pause());
+		} finally {
+
+			this.progress
+					= this.progress.toBuilder()
+					.running(false)
+					.finishedAt(Instant.now())
+					.build();
+
+			this.running.set(false);
+		}
+
+		log.info("Deleted {} out of {} orphaned ingredients", this.progress.getDeleted(), this.progress.getScanned());
+
+		return this.progress;
+	}
+
+	public OrphanIngredientReclamationDTO getProgress() {
+		return this.progress;
+	}
+
+	private int deleteOrphans(final List<Ingredient> orphans) {
+
+		Optional<Integer> deleted;
+
+		while (!(deleted = this.ingredientReclamationLock.tryExclusively(() -> deleteOrphansNow(orphans))).isPresent())
+			if (!pause())
+				return 0;
+
+		return deleted.get();
+	}
+
+	private int deleteOrphansNow(final List<Ingredient> orphans) {
+
+		return this.transactionTemplate.execute(transactionStatus -> {
+
+			int deleted
+					= this.ingredientRepository.deleteOrphansByIdIn(
+							orphans.stream()
+									.map(Ingredient::getId)
+									.collect(Collectors.toList()));
+
+			//ingredients which are kept are invalidated as well, they are loaded again on demand
+			this.ingredientIdCache.invalidateAfterCompletion(
+					orphans.stream()
+							.map(Ingredient::getName)
+							.collect(Collectors.toList()));
+
+			return deleted;
+		});
+	}
+
+	/*
+	 * Rate limit between batches, reclamation is stopped if thread is interrupted.
+	 */
+	private boolean pause() {
+
+		try {
+			Thread.sleep(this.batchDelay.toMillis());
+			return true;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
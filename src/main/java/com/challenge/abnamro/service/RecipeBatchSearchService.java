@@ -0,0 +1,135 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.exception.ExceptionWrapper;
+import com.challenge.abnamro.model.dto.RecipeSearchResultDTO;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class RecipeBatchSearchService {
+
+	private final RecipeSearchService recipeSearchService;
+	private final Validator validator;
+	private final int maxBatchSize;
+
+	/*
+	 * Executor is owned by this service instead of being a bean,
+	 * as an executor bean would replace the application task executor used by asynchronous requests.
+	 * Pool and queue are bounded, a search which does not fit is run by the request thread itself.
+	 */
+	private final ThreadPoolTaskExecutor searchExecutor;
+
+	public RecipeBatchSearchService(final RecipeSearchService recipeSearchService,
+									final Validator validator,
+									@Value("${recipe.search.batch.max-size:50}") final int maxBatchSize,
+									@Value("${recipe.search.batch.threads:4}") final int threads) {
+
+		this.recipeSearchService = recipeSearchService;
+		this.validator = validator;
+		this.maxBatchSize = maxBatchSize;
+
+		this.searchExecutor = new ThreadPoolTaskExecutor();
+		this.searchExecutor.setCorePoolSize(threads);
+		this.searchExecutor.setMaxPoolSize(threads);
+		this.searchExecutor.setQueueCapacity(maxBatchSize);
+		this.searchExecutor.setThreadNamePrefix("recipe-search-");
+		this.searchExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		this.searchExecutor.initialize();
+	}
+
+	/**
+	 * Search recipes for every criteria, concurrently.
+	 * Equal criteria are searched only once and share result.
+	 * Failure of a search, including invalid criteria, is reported as error of its result
+	 * and does not fail other searches.
+	 *
+	 * @param recipeSearchCriteriaList criteria to search
+	 * @return one result per criteria, in order of criteria
+	 * @throws ApplicationException.InvalidSearchBatchException if there are more criteria than allowed
+	 */
+	public List<RecipeSearchResultDTO> search(final List<RecipeSearchCriteria> recipeSearchCriteriaList) {
+
+		if (recipeSearchCriteriaList.size() > this.maxBatchSize)
+			throw new ApplicationException.InvalidSearchBatchException(
+					"At most " + this.maxBatchSize + " search criteria can be provided.");
+
+		Map<RecipeSearchCriteria, CompletableFuture<RecipeSearchResultDTO>> resultsByCriteria = new LinkedHashMap<>();
+
+		for (RecipeSearchCriteria recipeSearchCriteria : recipeSearchCriteriaList)
+			resultsByCriteria.computeIfAbsent(recipeSearchCriteria, this::searchAsync);
+
+		log.info("Searching {} distinct criteria out of {}.", resultsByCriteria.size(), recipeSearchCriteriaList.size());
+
+		return recipeSearchCriteriaList.stream()
+				.map(recipeSearchCriteria -> resultsByCriteria.get(recipeSearchCriteria).join())
+				.collect(Collectors.toList());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.searchExecutor.shutdown();
+	}
+
+	private CompletableFuture<RecipeSearchResultDTO> searchAsync(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		ExceptionWrapper validationError = validate(recipeSearchCriteria);
+
+		//invalid criteria are not searched
+		if (Objects.nonNull(validationError))
+			return CompletableFuture.completedFuture(
+					RecipeSearchResultDTO.builder().error(validationError).build());
+
+		return CompletableFuture.supplyAsync(() -> search(recipeSearchCriteria), this.searchExecutor);
+	}
+
+	private RecipeSearchResultDTO search(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		try {
+			return RecipeSearchResultDTO.builder()
+					.recipes(this.recipeSearchService.search(recipeSearchCriteria))
+					.build();
+		} catch (ApplicationException.RecipeNotFoundException ex) {
+			return RecipeSearchResultDTO.builder()
+					.error(ExceptionWrapper.of(HttpStatus.NOT_FOUND, "Recipe not found.", ex.getMessage()))
+					.build();
+		} catch (RuntimeException ex) {
+			log.error("Search failed for criteria - {}", recipeSearchCriteria, ex);
+			return RecipeSearchResultDTO.builder()
+					.error(ExceptionWrapper.INTERNAL_SERVER_ERROR)
+					.build();
+		}
+	}
+
+	private ExceptionWrapper validate(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		if (Objects.isNull(recipeSearchCriteria))
+			return ExceptionWrapper.of(
+					HttpStatus.BAD_REQUEST, ExceptionWrapper.REQUEST_VALIDATION_FAILED, "Search criteria must be provided.");
+
+		Set<ConstraintViolation<RecipeSearchCriteria>> constraintViolations
+				= this.validator.validate(recipeSearchCriteria);
+
+		if (constraintViolations.isEmpty())
+			return null;
+
+		return ExceptionWrapper.ofConstraintViolations(constraintViolations);
+	}
+}
@@ -0,0 +1,353 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.exception.ExceptionWrapper;
+import com.challenge.abnamro.mapper.RecipeDTOMapper;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkDeleteResultDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkResultDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.entity.InstructionsTerms;
+import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.repository.RecipeRepository;
+import com.challenge.abnamro.repository.filter.RecipeSearchSpecification;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.jpa.domain.Specification.where;
+
+@Service
+@Slf4j
+public class RecipeBulkService {
+
+	private static final String RECIPE_CREATION_FAILED = "Recipe creation failed";
+
+	private final RecipeRepository recipeRepository;
+	private final IngredientService ingredientService;
+	private final IngredientReclamationLock ingredientReclamationLock;
+	private final RecipeSearchService recipeSearchService;
+	private final RecipeDTOMapper recipeDTOMapper;
+	private final ApplicationEventPublisher applicationEventPublisher;
+	private final EntityManager entityManager;
+	private final TransactionTemplate transactionTemplate;
+	private final Validator validator;
+	private final int maxBulkSize;
+	private final int chunkSize;
+
+	public RecipeBulkService(final RecipeRepository recipeRepository,
+							 final IngredientService ingredientService,
+							 final IngredientReclamationLock ingredientReclamationLock,
+							 final RecipeSearchService recipeSearchService,
+							 final RecipeDTOMapper recipeDTOMapper,
+							 final ApplicationEventPublisher applicationEventPublisher,
+							 final EntityManager entityManager,
+							 final TransactionTemplate transactionTemplate,
+							 final Validator validator,
+							 @Value("${recipe.bulk.max-size:10000}") final int maxBulkSize,
+							 @Value("${recipe.bulk.chunk-size:500}") final int chunkSize) {
+
+		this.recipeRepository = recipeRepository;
+		this.ingredientService = ingredientService;
+		this.ingredientReclamationLock = ingredientReclamationLock;
+		this.recipeSearchService = recipeSearchService;
+		this.recipeDTOMapper = recipeDTOMapper;
+		this.applicationEventPublisher = applicationEventPublisher;
+		this.entityManager = entityManager;
+		this.transactionTemplate = transactionTemplate;
+		this.validator = validator;
+		this.maxBulkSize = maxBulkSize;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Create recipes in bulk.
+	 *
+	 * All recipes are validated first and ingredients of valid recipes are resolved once for whole bulk.
+	 * Recipes are then persisted in chunks, one transaction per chunk, using batched inserts.
+	 * If a chunk violates database constraints, its recipes are persisted one by one to find the failing ones.
+	 * Failure of a recipe is reported as error of its result and does not fail other recipes.
+	 *
+	 * @param recipeDTOs to create
+	 * @return one result per recipe, in order of recipes
+	 * @throws ApplicationException.InvalidBulkRequestException if there are more recipes than allowed
+	 */
+	public List<RecipeBulkResultDTO> create(final List<RecipeDTO> recipeDTOs) {
+
+		if (recipeDTOs.size() > this.maxBulkSize)
+			throw new ApplicationException.InvalidBulkRequestException(
+					"At most " + this.maxBulkSize + " recipes can be provided.");
+
+		log.info("Preparing to create {} recipes in bulk", recipeDTOs.size());
+
+		RecipeBulkResultDTO[] results = new RecipeBulkResultDTO[recipeDTOs.size()];
+		List<Integer> validIndexes = validate(recipeDTOs, results);
+
+		//resolved ingredients are not reclaimed as orphans until all chunks are created
+		this.ingredientReclamationLock.share(() -> createChunks(recipeDTOs, validIndexes, results));
+
+		log.info("Created {} out of {} recipes in bulk",
+				validIndexes.stream().filter(index -> Objects.nonNull(results[index].getId())).count(),
+				recipeDTOs.size());
+
+		List<RecipeBulkResultDTO> resultList = new ArrayList<>(results.length);
+
+		for (RecipeBulkResultDTO result : results)
+			resultList.add(result);
+
+		return resultList;
+	}
+
+	/**
+	 * Delete all recipes matching to search criteria in bulk.
+	 *
+	 * Ids of matching recipes are found chunk by chunk, seeking by id, in the same way as search finds them,
+	 * i.e. by indexes if they can answer all criteria, so that the recipes shown by search are deleted.
+	 * Indexes are updated only after changes are committed, hence found recipes are locked and criteria checked again
+	 * by database, and text in instructions, which database does not search, on instructions of locked recipes.
+	 * Recipe changed to match criteria after indexes were last updated may therefore be left, but a recipe
+	 * which does not match is never deleted.
+	 * Every chunk is removed by one bulk statement, deleting its ingredient rows along with recipe rows.
+	 * Whole deletion runs in one transaction, so that either all matching recipes are deleted or none.
+	 *
+	 * @param recipeSearchCriteria to match
+	 * @return number of deleted recipes
+	 */
+	public RecipeBulkDeleteResultDTO delete(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		log.info("Preparing to delete recipes matching to {} in bulk", recipeSearchCriteria);
+
+		Integer deleted
+				= this.transactionTemplate.execute(transactionStatus -> {
+
+					Specification<Recipe> recipeSearchSpecification
+							= RecipeSearchSpecification.getRecipeSearchSpecifications(
+									recipeSearchCriteria, this.ingredientService::findIds).stream()
+							.reduce(RecipeSearchSpecification.defaultSpecification(), Specification::and);
+
+					int deletedRecipes = 0;
+					Long afterId = null;
+					List<Long> foundIds;
+
+					do {
+						foundIds = this.recipeSearchService.findIds(recipeSearchCriteria, afterId, this.chunkSize);
+
+						if (foundIds.isEmpty())
+							break;
+
+						List<Long> ids
+								= this.recipeRepository.findIdsForUpdate(
+										where(RecipeSearchSpecification.idIn(foundIds)).and(recipeSearchSpecification),
+										null,
+										this.chunkSize);
+
+						if (Strings.isNotBlank(recipeSearchCriteria.getTextInInstructions()))
+							ids = getIdsWithTextInInstructions(ids, recipeSearchCriteria.getTextInInstructions());
+
+						if (!ids.isEmpty()) {
+
+							deletedRecipes += this.recipeRepository.bulkDeleteByIdIn(ids);
+
+							//notify listeners, they are invoked once transaction is committed
+							ids.forEach(id -> this.applicationEventPublisher.publishEvent(RecipeChangedEvent.deleted(id)));
+						}
+
+						afterId = foundIds.get(foundIds.size() - 1);
+					} while (foundIds.size() == this.chunkSize);
+
+					return deletedRecipes;
+				});
+
+		log.info("Deleted {} recipes in bulk", deleted);
+
+		return RecipeBulkDeleteResultDTO.builder().deleted(deleted).build();
+	}
+
+	/*
+	 * Loaded recipes are deleted by bulk statement, which bypasses persistence context, hence they are detached.
+	 */
+	private List<Long> getIdsWithTextInInstructions(final List<Long> lockedIds, final String textInInstructions) {
+
+		if (lockedIds.isEmpty())
+			return lockedIds;
+
+		List<Long> ids
+				= this.recipeRepository.findAllById(lockedIds).stream()
+				.filter(recipe -> InstructionsTerms.contains(recipe.getInstructions(), textInInstructions))
+				.map(Recipe::getId)
+				.collect(Collectors.toList());
+
+		this.entityManager.clear();
+
+		return ids;
+	}
+
+	/*
+	 * Invalid recipes and repeated recipes, i.e. same name and vegetarian flag as an earlier one, get error result.
+	 */
+	private List<Integer> validate(final List<RecipeDTO> recipeDTOs, final RecipeBulkResultDTO[] results) {
+
+		List<Integer> validIndexes = new ArrayList<>(recipeDTOs.size());
+		Set<List<Object>> recipeKeys = new HashSet<>();
+
+		for (int index = 0; index < recipeDTOs.size(); ++index) {
+
+			RecipeDTO recipeDTO = recipeDTOs.get(index);
+
+			if (Objects.isNull(recipeDTO)) {
+				results[index] = getErrorResult(
+						HttpStatus.BAD_REQUEST, ExceptionWrapper.REQUEST_VALIDATION_FAILED, "Recipe must be provided.");
+				continue;
+			}
+
+			Set<ConstraintViolation<RecipeDTO>> constraintViolations = this.validator.validate(recipeDTO);
+
+			if (!constraintViolations.isEmpty()) {
+				results[index] = getErrorResult(ExceptionWrapper.ofConstraintViolations(constraintViolations));
+				continue;
+			}
+
+			List<Object> recipeKey = new ArrayList<>();
+			recipeKey.add(recipeDTO.getName());
+			recipeKey.add(recipeDTO.isVegetarian());
+
+			if (!recipeKeys.add(recipeKey)) {
+				results[index] = getErrorResult(
+						HttpStatus.UNPROCESSABLE_ENTITY, RECIPE_CREATION_FAILED, "Recipe is repeated in request.");
+				continue;
+			}
+
+			validIndexes.add(index);
+		}
+
+		return validIndexes;
+	}
+
+	private void createChunks(final List<RecipeDTO> recipeDTOs,
+							  final List<Integer> validIndexes,
+							  final RecipeBulkResultDTO[] results) {
+
+		//ingredients are resolved in their own transaction, so that they are available to every chunk
+		Map<String, Ingredient> ingredientsByName
+				= this.transactionTemplate.execute(transactionStatus ->
+						this.ingredientService.resolve(
+								validIndexes.stream()
+										.flatMap(index -> recipeDTOs.get(index).getIngredients().stream())
+										.collect(Collectors.toList())));
+
+		for (int from = 0; from < validIndexes.size(); from += this.chunkSize) {
+
+			List<Integer> chunkIndexes = validIndexes.subList(from, Math.min(from + this.chunkSize, validIndexes.size()));
+
+			try {
+				createChunk(recipeDTOs, chunkIndexes, ingredientsByName, results);
+			} catch (DataIntegrityViolationException ex) {
+
+				log.warn("Chunk of {} recipes violates recipe data, creating them one by one", chunkIndexes.size());
+
+				for (Integer index : chunkIndexes)
+					createOne(recipeDTOs, index, ingredientsByName, results);
+			}
+		}
+	}
+
+	/*
+	 * Recipes of chunk are flushed together and persistence context is cleared,
+	 * so that memory usage does not grow with number of chunks.
+	 */
+	private void createChunk(final List<RecipeDTO> recipeDTOs,
+							 final List<Integer> chunkIndexes,
+							 final Map<String, Ingredient> ingredientsByName,
+							 final RecipeBulkResultDTO[] results) {
+
+		List<Recipe> savedRecipes
+				= this.transactionTemplate.execute(transactionStatus -> {
+
+					List<Recipe> recipes = new ArrayList<>(chunkIndexes.size());
+
+					for (Integer index : chunkIndexes)
+						recipes.add(save(recipeDTOs.get(index), ingredientsByName));
+
+					this.recipeRepository.flush();
+					this.entityManager.clear();
+
+					return recipes;
+				});
+
+		for (int i = 0; i < chunkIndexes.size(); ++i)
+			results[chunkIndexes.get(i)] = RecipeBulkResultDTO.builder().id(savedRecipes.get(i).getId()).build();
+	}
+
+	private void createOne(final List<RecipeDTO> recipeDTOs,
+						   final int index,
+						   final Map<String, Ingredient> ingredientsByName,
+						   final RecipeBulkResultDTO[] results) {
+
+		try {
+			Recipe savedRecipe
+					= this.transactionTemplate.execute(transactionStatus -> {
+
+						Recipe recipe = save(recipeDTOs.get(index), ingredientsByName);
+						this.recipeRepository.flush();
+
+						return recipe;
+					});
+
+			results[index] = RecipeBulkResultDTO.builder().id(savedRecipe.getId()).build();
+		} catch (DataIntegrityViolationException ex) {
+			results[index] = getErrorResult(
+					HttpStatus.UNPROCESSABLE_ENTITY, RECIPE_CREATION_FAILED, "Requested changes violates Recipe data");
+		}
+	}
+
+	/*
+	 * Ingredients are detached entities resolved upfront, recipe refers them by id only.
+	 */
+	private Recipe save(final RecipeDTO recipeDTO, final Map<String, Ingredient> ingredientsByName) {
+
+		Recipe recipe = this.recipeDTOMapper.fromDTO(recipeDTO);
+		recipe.setId(null);
+		recipe.setIngredients(
+				recipeDTO.getIngredients().stream()
+						.map(IngredientDTO::getName)
+						.map(ingredientsByName::get)
+						.collect(Collectors.toSet()));
+
+		Recipe savedRecipe = this.recipeRepository.save(recipe);
+
+		//notify listeners, they are invoked once transaction is committed
+		this.applicationEventPublisher.publishEvent(RecipeChangedEvent.saved(savedRecipe));
+
+		return savedRecipe;
+	}
+
+	private static RecipeBulkResultDTO getErrorResult(final HttpStatus httpStatus,
+													  final String error,
+													  final String description) {
+		return getErrorResult(ExceptionWrapper.of(httpStatus, error, description));
+	}
+
+	private static RecipeBulkResultDTO getErrorResult(final ExceptionWrapper error) {
+		return RecipeBulkResultDTO.builder().error(error).build();
+	}
+}
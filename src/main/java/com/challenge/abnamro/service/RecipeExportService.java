@@ -0,0 +1,61 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.mapper.RecipeDTOMapper;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.repository.RecipeRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class RecipeExportService {
+
+	//number of recipes after which persistence context is cleared, to keep memory usage flat
+	private static final int PERSISTENCE_CONTEXT_CLEAR_INTERVAL = 500;
+
+	private final RecipeRepository recipeRepository;
+	private final RecipeDTOMapper recipeDTOMapper;
+	private final EntityManager entityManager;
+
+	/**
+	 * Pass every recipe to consumer, one at a time and in order of id.
+	 * Recipes are never held in memory all together.
+	 *
+	 * @param recipeDTOConsumer consumer of recipes
+	 * @return number of exported recipes
+	 */
+	@Transactional(readOnly = true)
+	public long export(final Consumer<RecipeDTO> recipeDTOConsumer) {
+
+		log.info("Preparing to export all recipes");
+
+		long exportedRecipes = 0;
+
+		try (Stream<Recipe> recipes = this.recipeRepository.streamAll()) {
+
+			Iterator<Recipe> recipeIterator = recipes.iterator();
+
+			while (recipeIterator.hasNext()) {
+
+				//return DTO and not entity
+				recipeDTOConsumer.accept(this.recipeDTOMapper.toDTO(recipeIterator.next()));
+
+				if (++exportedRecipes % PERSISTENCE_CONTEXT_CLEAR_INTERVAL == 0)
+					this.entityManager.clear();
+			}
+		}
+
+		log.info("Exported {} recipes", exportedRecipes);
+
+		return exportedRecipes;
+	}
+}
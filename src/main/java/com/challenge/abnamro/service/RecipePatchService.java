@@ -0,0 +1,158 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.exception.ExceptionWrapper;
+import com.challenge.abnamro.mapper.RecipeDTOMapper;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.repository.RecipeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class RecipePatchService {
+
+	private static final String NUMBER_OF_SERVINGS = "numberOfServings";
+	private static final String INGREDIENTS = "ingredients";
+	private static final String INSTRUCTIONS = "instructions";
+
+	//same fields as replaced by update, name and vegetarian flag identify recipe
+	private static final Set<String> PATCHABLE_FIELDS
+			= Collections.unmodifiableSet(new HashSet<>(Arrays.asList(NUMBER_OF_SERVINGS, INGREDIENTS, INSTRUCTIONS)));
+
+	private final RecipeRepository recipeRepository;
+	private final IngredientService ingredientService;
+	private final RecipeDTOMapper recipeDTOMapper;
+	private final ApplicationEventPublisher applicationEventPublisher;
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+
+	/**
+	 * Apply JSON merge patch (RFC 7396) to recipe.
+	 *
+	 * Only fields present in patch are validated and changed, null removes value of field, i.e. it is not valid.
+	 * Hibernate dynamic update writes changed columns only, and ingredients of recipe are written
+	 * only if patch provides them, in which case only removed and added ingredients are written.
+	 * Ingredients are read in any case to publish the change and to return patched recipe,
+	 * from second-level cache if they are cached.
+	 *
+	 * @param id of recipe
+	 * @param mergePatch JSON object with changed fields
+	 * @param expectedVersion version of recipe the patch is based on,
+	 * {@link RecipeService#ANY_VERSION} for any version of existing recipe, unconditional if null
+	 * @return patched recipe along with its new version
+	 * @throws ApplicationException.InvalidRecipePatchException if patch is not an object of valid patchable fields
+	 * @throws ApplicationException.RecipeNotFoundException if recipe is not found and no version is expected
+	 * @throws ApplicationException.RecipeVersionMismatchException if recipe is not in expected version or does not exist,
+	 * or it is changed concurrently
+	 */
+	@Transactional
+	public RecipeDTO patch(final long id, final JsonNode mergePatch, @Nullable final Long expectedVersion) {
+
+		log.info("Preparing to patch recipe with id = [{}] with patch {}", id, mergePatch);
+
+		RecipeDTO patchDTO = toValidPatchDTO(mergePatch);
+
+		try {
+			Optional<Recipe> persistedRecipe = this.recipeRepository.findById(id);
+
+			RecipeService.checkVersion(id, persistedRecipe.orElse(null), expectedVersion);
+
+			Recipe recipe
+					= persistedRecipe
+					.orElseThrow(() ->
+							new ApplicationException.RecipeNotFoundException("Recipe with id = [" + id + "] not found."));
+
+			if (mergePatch.has(NUMBER_OF_SERVINGS))
+				recipe.setNumberOfServings(patchDTO.getNumberOfServings());
+
+			if (mergePatch.has(INSTRUCTIONS))
+				recipe.setInstructions(patchDTO.getInstructions());
+
+			//only removed and added ingredients are written, i.e. nothing if ingredients are not changed
+			if (mergePatch.has(INGREDIENTS))
+				recipe.mergeIngredients(
+						new HashSet<>(this.ingredientService.resolve(patchDTO.getIngredients()).values()));
+
+			//flush, so that new version is returned and concurrent change is detected by this patch
+			this.recipeRepository.flush();
+
+			log.info("Patched {}", recipe);
+
+			//notify listeners, they are invoked once transaction is committed
+			this.applicationEventPublisher.publishEvent(RecipeChangedEvent.saved(recipe));
+
+			//return DTO and not entity
+			return this.recipeDTOMapper.toDTO(recipe);
+		} catch (DataIntegrityViolationException ex) {
+			throw new ApplicationException.RecipeUpdateFailedException("Requested changes violates Recipe data");
+		} catch (OptimisticLockingFailureException ex) {
+			throw new ApplicationException.RecipeVersionMismatchException(
+					"Recipe with id = [" + id + "] is changed concurrently.");
+		}
+	}
+
+	/*
+	 * Patchable fields are top level fields holding values or arrays, which are replaced as whole by merge patch,
+	 * hence patch itself holds new values of patched fields.
+	 */
+	private RecipeDTO toValidPatchDTO(final JsonNode mergePatch) {
+
+		if (!mergePatch.isObject())
+			throw new ApplicationException.InvalidRecipePatchException("Patch must be a JSON object.");
+
+		Set<String> fields = new TreeSet<>();
+		mergePatch.fieldNames().forEachRemaining(fields::add);
+
+		List<String> unknownFields
+				= fields.stream()
+				.filter(field -> !PATCHABLE_FIELDS.contains(field))
+				.collect(Collectors.toList());
+
+		if (!unknownFields.isEmpty())
+			throw new ApplicationException.InvalidRecipePatchException(
+					"Fields " + unknownFields + " can not be patched.");
+
+		RecipeDTO patchDTO;
+
+		try {
+			patchDTO = this.objectMapper.treeToValue(mergePatch, RecipeDTO.class);
+		} catch (JsonProcessingException | IllegalArgumentException ex) {
+			throw new ApplicationException.InvalidRecipePatchException(
+					"Patch is not valid. Please verify patch contents.");
+		}
+
+		List<ConstraintViolation<RecipeDTO>> constraintViolations
+				= fields.stream()
+				.flatMap(field -> this.validator.validateProperty(patchDTO, field).stream())
+				.collect(Collectors.toList());
+
+		if (!constraintViolations.isEmpty())
+			throw new ApplicationException.InvalidRecipePatchException(ExceptionWrapper.describe(constraintViolations));
+
+		return patchDTO;
+	}
+}
@@ -1,55 +1,255 @@
 package com.challenge.abnamro.service;
 
+import com.challenge.abnamro.configuration.CacheConfiguration;
 import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.index.InstructionsTextIndex;
+import com.challenge.abnamro.index.RecipeBitmapIndex;
 import com.challenge.abnamro.mapper.RecipeDTOMapper;
 import com.challenge.abnamro.model.dto.RecipeDTO;
-import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.dto.RecipeFacetsDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
 import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.model.page.KeysetPage;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
 import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchExpression;
 import com.challenge.abnamro.repository.RecipeRepository;
 import com.challenge.abnamro.repository.filter.RecipeSearchSpecification;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.logging.log4j.util.Strings;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static org.springframework.data.jpa.domain.Specification.where;
 
+/*
+ * Searches run in read-only transactions, i.e. they are served by replica database if it is configured
+ * and Hibernate neither snapshots nor flushes loaded recipes.
+ *
+ * Text in instructions is matched by text index only, as database does not search compressed instructions,
+ * hence searches with text wait until indexes are built, e.g. at startup, and fail if they are not built in time.
+ */
 @Service
-@AllArgsConstructor
+@Transactional(readOnly = true)
 @Slf4j
 public class RecipeSearchService {
 
+	//maximum number of recipe ids sent to database in one query when loading recipes matched by index
+	private static final int RECIPE_LOADING_BATCH_SIZE = 1000;
+
+	//number of most frequent ingredients provided as facets
+	private static final int MAX_INGREDIENT_FACETS = 10;
+
 	private final RecipeRepository recipeRepository;
 	private final RecipeDTOMapper recipeDTOMapper;
+	private final RecipeBitmapIndex recipeBitmapIndex;
+	private final InstructionsTextIndex instructionsTextIndex;
+	private final IngredientService ingredientService;
+	private final Duration indexAwaitTimeout;
+
+	public RecipeSearchService(final RecipeRepository recipeRepository,
+							   final RecipeDTOMapper recipeDTOMapper,
+							   final RecipeBitmapIndex recipeBitmapIndex,
+							   final InstructionsTextIndex instructionsTextIndex,
+							   final IngredientService ingredientService,
+							   @Value("${recipe.search.index-await-timeout:30s}") final Duration indexAwaitTimeout) {
+
+		this.recipeRepository = recipeRepository;
+		this.recipeDTOMapper = recipeDTOMapper;
+		this.recipeBitmapIndex = recipeBitmapIndex;
+		this.instructionsTextIndex = instructionsTextIndex;
+		this.ingredientService = ingredientService;
+		this.indexAwaitTimeout = indexAwaitTimeout;
+	}
 
+	/*
+	 * Search results are cached per catalog version, i.e. any committed recipe change invalidates them.
+	 * Results read from replica are not cached, see RecipeCatalogVersion.
+	 * Empty result is not cached, as it is reported by exception.
+	 */
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), #recipeSearchCriteria}",
+			condition = "@recipeCatalogVersion.cacheable")
 	public List<RecipeDTO> search(final RecipeSearchCriteria recipeSearchCriteria) {
 
 		log.info("Search recipe(s) using criteria - {}", recipeSearchCriteria);
 
-		//get search specifications as per provided criteria
-		List<Specification<Recipe>> recipeSearchSpecifications
-				= RecipeSearchSpecification.getRecipeSearchSpecifications(recipeSearchCriteria);
+		//return DTO and not entity
+		return this.recipeDTOMapper.toDTO(search(recipeSearchCriteria, this.recipeRepository::findAll));
+	}
 
-		//combine search specifications
-		Specification<Recipe> combinedRecipeSearchSpecifications
-				= combineRecipeSearchSpecifications(recipeSearchSpecifications);
+	/*
+	 * Summaries are searched in the same way as recipes, but only summary columns are selected,
+	 * see RecipeSummaryRepository. They are cached apart from complete search results.
+	 */
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), 'summaries', #recipeSearchCriteria}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public List<RecipeSummaryDTO> searchSummaries(final RecipeSearchCriteria recipeSearchCriteria) {
 
-		//perform search in database as per combined search specification
-		List<Recipe> matchedRecipesFromDatabase
-				= this.recipeRepository.findAll(where(combinedRecipeSearchSpecifications));
+		log.info("Search recipe summaries using criteria - {}", recipeSearchCriteria);
+
+		return search(recipeSearchCriteria, this.recipeRepository::findSummaries);
+	}
+
+	/*
+	 * Page of search results is cached like complete search results, see search(RecipeSearchCriteria).
+	 */
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), #recipeSearchCriteria, #keysetPageRequest}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public KeysetPage<RecipeDTO> search(final RecipeSearchCriteria recipeSearchCriteria,
+										final KeysetPageRequest keysetPageRequest) {
+
+		log.info("Search recipe(s) using criteria - {} for {}", recipeSearchCriteria, keysetPageRequest);
+
+		return loadPage(findIds(recipeSearchCriteria, keysetPageRequest), keysetPageRequest, this::loadRecipeDTOs);
+	}
 
-		log.info("Found {} recipes in database.", matchedRecipesFromDatabase.size());
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), 'summaries', #recipeSearchCriteria, #keysetPageRequest}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public KeysetPage<RecipeSummaryDTO> searchSummaries(final RecipeSearchCriteria recipeSearchCriteria,
+														final KeysetPageRequest keysetPageRequest) {
 
-		//TODO - research on how to use JPA Specification for filtering on collections
-		//perform filtering based on inclusion and/or exclusion of ingredients
-		List<Recipe> matchedRecipes = applyIngredientsBasedFilter(recipeSearchCriteria, matchedRecipesFromDatabase);
+		log.info("Search recipe summaries using criteria - {} for {}", recipeSearchCriteria, keysetPageRequest);
+
+		return loadPage(
+				findIds(recipeSearchCriteria, keysetPageRequest),
+				keysetPageRequest,
+				this.recipeRepository::findSummaries);
+	}
+
+	/*
+	 * Whole expression is compiled into one specification and answered by a single query,
+	 * instead of one search per OR operand. Expression containing text in instructions is evaluated by indexes.
+	 * Results are cached like search results by criteria.
+	 */
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), #recipeSearchExpression}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public List<RecipeDTO> search(final RecipeSearchExpression recipeSearchExpression) {
+
+		log.info("Search recipe(s) using expression - {}", recipeSearchExpression);
+
+		//return DTO and not entity
+		return this.recipeDTOMapper.toDTO(search(recipeSearchExpression, this.recipeRepository::findAll));
+	}
+
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), 'summaries', #recipeSearchExpression}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public List<RecipeSummaryDTO> searchSummaries(final RecipeSearchExpression recipeSearchExpression) {
+
+		log.info("Search recipe summaries using expression - {}", recipeSearchExpression);
+
+		return search(recipeSearchExpression, this.recipeRepository::findSummaries);
+	}
+
+	/*
+	 * Page of expression search results, see search(RecipeSearchCriteria, KeysetPageRequest).
+	 */
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), #recipeSearchExpression, #keysetPageRequest}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public KeysetPage<RecipeDTO> search(final RecipeSearchExpression recipeSearchExpression,
+										final KeysetPageRequest keysetPageRequest) {
+
+		log.info("Search recipe(s) using expression - {} for {}", recipeSearchExpression, keysetPageRequest);
+
+		return loadPage(findIds(recipeSearchExpression, keysetPageRequest), keysetPageRequest, this::loadRecipeDTOs);
+	}
+
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), 'summaries', #recipeSearchExpression, #keysetPageRequest}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public KeysetPage<RecipeSummaryDTO> searchSummaries(final RecipeSearchExpression recipeSearchExpression,
+														final KeysetPageRequest keysetPageRequest) {
+
+		log.info("Search recipe summaries using expression - {} for {}", recipeSearchExpression, keysetPageRequest);
+
+		return loadPage(
+				findIds(recipeSearchExpression, keysetPageRequest),
+				keysetPageRequest,
+				this.recipeRepository::findSummaries);
+	}
+
+	/**
+	 * Count recipes matching to criteria in total and per facet value, without loading any recipe.
+	 * Counts are taken from index if it can answer all criteria, otherwise they are grouped in database.
+	 *
+	 * @param recipeSearchCriteria to match, all recipes if null
+	 * @return facet counts
+	 */
+	@Cacheable(
+			cacheNames = CacheConfiguration.RECIPE_SEARCH_CACHE,
+			key = "{@recipeCatalogVersion.get(), 'facets', #recipeSearchCriteria}",
+			condition = "@recipeCatalogVersion.cacheable")
+	public RecipeFacetsDTO countFacets(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		log.info("Count facets of recipe(s) using criteria - {}", recipeSearchCriteria);
+
+		Optional<RecipeFacetsDTO> recipeFacetsDTO
+				= Objects.isNull(recipeSearchCriteria)
+				? this.recipeBitmapIndex.countFacets(null, MAX_INGREDIENT_FACETS)
+				: matchCompletelyUsingIndexes(recipeSearchCriteria)
+					.flatMap(matchedRecipeIds ->
+							this.recipeBitmapIndex.countFacets(matchedRecipeIds, MAX_INGREDIENT_FACETS));
+
+		return recipeFacetsDTO.orElseGet(() -> countFacetsInDatabase(recipeSearchCriteria));
+	}
+
+	private RecipeFacetsDTO countFacetsInDatabase(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		Specification<Recipe> recipeSearchSpecification
+				= Objects.isNull(recipeSearchCriteria)
+				? null
+				: combineRecipeSearchSpecifications(
+						getRecipeSearchSpecifications(recipeSearchCriteria));
+
+		return RecipeFacetsDTO.builder()
+				.total(this.recipeRepository.count(recipeSearchSpecification))
+				.vegetarian(this.recipeRepository.countByVegetarian(recipeSearchSpecification))
+				.numberOfServings(this.recipeRepository.countByNumberOfServings(recipeSearchSpecification))
+				.ingredients(this.recipeRepository.countByIngredient(recipeSearchSpecification, MAX_INGREDIENT_FACETS))
+				.build();
+	}
+
+	/*
+	 * Matching recipes are loaded by given loader, e.g. as entities or as summaries,
+	 * loader is given specification of recipes to load.
+	 */
+	private <T> List<T> search(final RecipeSearchCriteria recipeSearchCriteria,
+							   final Function<Specification<Recipe>, List<T>> recipeLoader) {
+
+		//use indexes if they are ready, otherwise perform search in database
+		List<T> matchedRecipes
+				= matchCompletelyUsingIndexes(recipeSearchCriteria)
+				.map(matchedRecipeIds -> loadMatchedRecipes(matchedRecipeIds, recipeLoader))
+				.orElseGet(() -> searchInDatabase(recipeSearchCriteria, recipeLoader));
 
 		log.info("Found {} recipes.", matchedRecipes.size());
 
@@ -57,51 +257,279 @@ public class RecipeSearchService {
 		if (CollectionUtils.isEmpty(matchedRecipes))
 			throw new ApplicationException.RecipeNotFoundException("No recipe fond.");
 
-		//return DTO and not entity
-		return this.recipeDTOMapper.toDTO(matchedRecipes);
+		return matchedRecipes;
 	}
 
-	private Specification<Recipe> combineRecipeSearchSpecifications(
-			final List<Specification<Recipe>> recipeSearchSpecifications) {
+	private <T> List<T> search(final RecipeSearchExpression recipeSearchExpression,
+							   final Function<Specification<Recipe>, List<T>> recipeLoader) {
 
-		//combine search specifications with AND operation
-		return recipeSearchSpecifications.stream()
-				.reduce(RecipeSearchSpecification.defaultSpecification(), Specification::and);
+		List<T> matchedRecipes
+				= containsTextInInstructions(recipeSearchExpression)
+				? loadMatchedRecipes(matchUsingIndexes(recipeSearchExpression), recipeLoader)
+				: recipeLoader.apply(RecipeSearchSpecification.getRecipeSearchSpecification(recipeSearchExpression));
+
+		log.info("Found {} recipes.", matchedRecipes.size());
+
+		//raise exception if nothing is found
+		if (CollectionUtils.isEmpty(matchedRecipes))
+			throw new ApplicationException.RecipeNotFoundException("No recipe fond.");
+
+		return matchedRecipes;
 	}
 
-	private List<Recipe> applyIngredientsBasedFilter(final RecipeSearchCriteria recipeSearchCriteria,
-													 final List<Recipe> recipes) {
+	/**
+	 * Find ids of recipes matching to search criteria, i.e. of the recipes found by search using the same criteria.
+	 *
+	 * Ids are matched by indexes if they can answer all criteria, otherwise by database,
+	 * criteria containing text in instructions wait until indexes are built.
+	 * Result is not cached, as callers act on the ids, e.g. bulk deletion.
+	 *
+	 * @param recipeSearchCriteria to match
+	 * @param afterId only ids greater than this one are found, null to find from the first id
+	 * @param limit maximum number of ids
+	 * @return ids in ascending order
+	 */
+	public List<Long> findIds(final RecipeSearchCriteria recipeSearchCriteria, final Long afterId, final int limit) {
+
+		return matchCompletelyUsingIndexes(recipeSearchCriteria)
+				.map(matchedRecipeIds -> getIdsAfter(matchedRecipeIds, afterId, limit))
+				.orElseGet(() ->
+						this.recipeRepository.findIds(
+								combineRecipeSearchSpecifications(
+										getRecipeSearchSpecifications(recipeSearchCriteria)),
+								afterId,
+								limit));
+	}
+
+	/*
+	 * Select only ids of page first, as fetch join of ingredients can not be limited in database.
+	 */
+	private List<Long> findIds(final RecipeSearchCriteria recipeSearchCriteria,
+							   final KeysetPageRequest keysetPageRequest) {
+		return findIds(recipeSearchCriteria, keysetPageRequest.getAfterId(), keysetPageRequest.getFetchSize());
+	}
 
-		Set<Ingredient> includedIngredients = recipeSearchCriteria.getIncludedIngredients();
-		Set<Ingredient> excludedIngredients = recipeSearchCriteria.getExcludedIngredients();
+	private List<Long> findIds(final RecipeSearchExpression recipeSearchExpression,
+							   final KeysetPageRequest keysetPageRequest) {
 
-		if (CollectionUtils.isEmpty(recipes)
-				|| (Objects.isNull(includedIngredients)
-					&& Objects.isNull(excludedIngredients)))
-			return recipes;
+		if (containsTextInInstructions(recipeSearchExpression))
+			return getIdsAfter(
+					matchUsingIndexes(recipeSearchExpression),
+					keysetPageRequest.getAfterId(),
+					keysetPageRequest.getFetchSize());
 
-		return recipes.stream()
-				.filter(recipe -> isIngredientCriteriaMatched(recipeSearchCriteria, recipe))
-				.collect(Collectors.toList());
+		return this.recipeRepository.findIds(
+				RecipeSearchSpecification.getRecipeSearchSpecification(recipeSearchExpression),
+				keysetPageRequest.getAfterId(),
+				keysetPageRequest.getFetchSize());
 	}
 
-	private boolean isIngredientCriteriaMatched(final RecipeSearchCriteria recipeSearchCriteria,
-												final Recipe recipe) {
+	private static <T> KeysetPage<T> loadPage(final List<Long> fetchedIds,
+											  final KeysetPageRequest keysetPageRequest,
+											  final Function<Specification<Recipe>, List<T>> recipeLoader) {
 
-		Set<Ingredient> recipeIngredients = recipe.getIngredients();
-		Set<Ingredient> includedIngredients = recipeSearchCriteria.getIncludedIngredients();
-		Set<Ingredient> excludedIngredients = recipeSearchCriteria.getExcludedIngredients();
+		List<Long> pageIds = keysetPageRequest.getPageIds(fetchedIds);
+
+		List<T> matchedRecipes
+				= pageIds.isEmpty()
+				? Collections.emptyList()
+				: recipeLoader.apply(RecipeSearchSpecification.idIn(pageIds));
+
+		log.info("Found {} recipes.", matchedRecipes.size());
+
+		//only first page is reported as not found, following pages may become empty due to changes
+		if (CollectionUtils.isEmpty(matchedRecipes) && Objects.isNull(keysetPageRequest.getAfterId()))
+			throw new ApplicationException.RecipeNotFoundException("No recipe fond.");
+
+		return KeysetPage.of(matchedRecipes, fetchedIds, keysetPageRequest);
+	}
+
+	//return DTO and not entity
+	private List<RecipeDTO> loadRecipeDTOs(final Specification<Recipe> recipeSearchSpecification) {
+		return this.recipeDTOMapper.toDTO(this.recipeRepository.findAll(recipeSearchSpecification, Sort.by("id")));
+	}
 
-		if (Objects.nonNull(includedIngredients)
-				&& (includedIngredients.isEmpty()
-						|| !recipeIngredients.containsAll(includedIngredients)))
-			return false;
+	/*
+	 * Indexes are used only if they can answer all criteria, otherwise criteria are matched by database.
+	 * Criteria containing text in instructions are always answered by indexes, once they are built.
+	 */
+	private Optional<RoaringBitmap> matchCompletelyUsingIndexes(final RecipeSearchCriteria recipeSearchCriteria) {
 
-		if (Objects.isNull(excludedIngredients))
-			return true;
+		if (!hasTextInInstructions(recipeSearchCriteria))
+			return this.recipeBitmapIndex.match(recipeSearchCriteria);
 
-		return recipeSearchCriteria.getExcludedIngredients()
-				.stream()
-				.noneMatch(recipeIngredients::contains);
+		awaitIndexes();
+
+		return Optional.of(matchUsingReadyIndexes(recipeSearchCriteria));
+	}
+
+	private RoaringBitmap matchUsingIndexes(final RecipeSearchExpression recipeSearchExpression) {
+
+		awaitIndexes();
+
+		return matchUsingReadyIndexes(recipeSearchExpression);
+	}
+
+	/*
+	 * Indexes are built at startup, both of them by one pass over recipes.
+	 */
+	private void awaitIndexes() {
+
+		if (!this.recipeBitmapIndex.awaitReady(this.indexAwaitTimeout)
+				|| !this.instructionsTextIndex.awaitReady(this.indexAwaitTimeout))
+			throw new ApplicationException.RecipeIndexNotReadyException(
+					"Recipe indexes are being built, text in instructions can not be searched yet.");
+	}
+
+	private RoaringBitmap matchUsingReadyIndexes(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		Optional<RoaringBitmap> recipeIdsMatchedByBitmapIndex = this.recipeBitmapIndex.match(recipeSearchCriteria);
+
+		if (!hasTextInInstructions(recipeSearchCriteria))
+			return recipeIdsMatchedByBitmapIndex.orElseGet(this::matchAll);
+
+		Optional<RoaringBitmap> recipeIdsMatchedByTextIndex
+				= this.instructionsTextIndex.match(recipeSearchCriteria.getTextInInstructions());
+
+		//text without any term does not match any recipe
+		if (!recipeIdsMatchedByTextIndex.isPresent())
+			return new RoaringBitmap();
+
+		return intersect(recipeIdsMatchedByBitmapIndex, recipeIdsMatchedByTextIndex);
+	}
+
+	/*
+	 * Operands are combined the same way as by RecipeSearchSpecification, using bitmap operations.
+	 */
+	private RoaringBitmap matchUsingReadyIndexes(final RecipeSearchExpression recipeSearchExpression) {
+
+		if (Objects.nonNull(recipeSearchExpression.getCriteria()))
+			return matchUsingReadyIndexes(recipeSearchExpression.getCriteria());
+
+		if (Objects.nonNull(recipeSearchExpression.getAllOf()))
+			return recipeSearchExpression.getAllOf().stream()
+					.map(this::matchUsingReadyIndexes)
+					.reduce((recipeIds, otherRecipeIds) -> RoaringBitmap.and(recipeIds, otherRecipeIds))
+					.orElseGet(this::matchAll);
+
+		if (Objects.nonNull(recipeSearchExpression.getAnyOf()))
+			return recipeSearchExpression.getAnyOf().stream()
+					.map(this::matchUsingReadyIndexes)
+					.reduce((recipeIds, otherRecipeIds) -> RoaringBitmap.or(recipeIds, otherRecipeIds))
+					.orElseGet(RoaringBitmap::new);
+
+		return RoaringBitmap.andNot(matchAll(), matchUsingReadyIndexes(recipeSearchExpression.getNot()));
+	}
+
+	private RoaringBitmap matchAll() {
+		return this.recipeBitmapIndex.matchAll().orElseGet(RoaringBitmap::new);
+	}
+
+	private static boolean hasTextInInstructions(final RecipeSearchCriteria recipeSearchCriteria) {
+		return Strings.isNotBlank(recipeSearchCriteria.getTextInInstructions());
+	}
+
+	private static boolean containsTextInInstructions(final RecipeSearchExpression recipeSearchExpression) {
+
+		if (Objects.nonNull(recipeSearchExpression.getCriteria()))
+			return hasTextInInstructions(recipeSearchExpression.getCriteria());
+
+		if (Objects.nonNull(recipeSearchExpression.getNot()))
+			return containsTextInInstructions(recipeSearchExpression.getNot());
+
+		List<RecipeSearchExpression> operands
+				= Objects.nonNull(recipeSearchExpression.getAllOf())
+				? recipeSearchExpression.getAllOf()
+				: recipeSearchExpression.getAnyOf();
+
+		return operands.stream().anyMatch(RecipeSearchService::containsTextInInstructions);
+	}
+
+	private static List<Long> getIdsAfter(final RoaringBitmap recipeIds, final Long afterId, final int limit) {
+
+		List<Long> idsAfter = new ArrayList<>(Math.min(limit, recipeIds.getCardinality()));
+
+		//index holds int ids only
+		if (Objects.nonNull(afterId) && afterId >= Integer.MAX_VALUE)
+			return idsAfter;
+
+		PeekableIntIterator recipeIdIterator = recipeIds.getIntIterator();
+
+		if (Objects.nonNull(afterId))
+			recipeIdIterator.advanceIfNeeded((int) (afterId + 1));
+
+		while (recipeIdIterator.hasNext() && idsAfter.size() < limit)
+			idsAfter.add((long) recipeIdIterator.next());
+
+		return idsAfter;
+	}
+
+	private <T> List<T> searchInDatabase(final RecipeSearchCriteria recipeSearchCriteria,
+										 final Function<Specification<Recipe>, List<T>> recipeLoader) {
+
+		//get search specifications as per provided criteria
+		List<Specification<Recipe>> recipeSearchSpecifications
+				= getRecipeSearchSpecifications(recipeSearchCriteria);
+
+		//combine search specifications
+		Specification<Recipe> combinedRecipeSearchSpecifications
+				= combineRecipeSearchSpecifications(recipeSearchSpecifications);
+
+		//perform search in database as per combined search specification
+		return recipeLoader.apply(where(combinedRecipeSearchSpecifications));
+	}
+
+	/*
+	 * Only recipes matched by indexes are loaded from database.
+	 */
+	private static <T> List<T> loadMatchedRecipes(final RoaringBitmap matchedRecipeIds,
+												  final Function<Specification<Recipe>, List<T>> recipeLoader) {
+
+		List<T> matchedRecipes = new ArrayList<>(matchedRecipeIds.getCardinality());
+
+		List<Long> recipeIds = new ArrayList<>(RECIPE_LOADING_BATCH_SIZE);
+
+		for (int recipeId : matchedRecipeIds) {
+
+			recipeIds.add((long) recipeId);
+
+			if (recipeIds.size() == RECIPE_LOADING_BATCH_SIZE) {
+				matchedRecipes.addAll(recipeLoader.apply(RecipeSearchSpecification.idIn(recipeIds)));
+				recipeIds = new ArrayList<>(RECIPE_LOADING_BATCH_SIZE);
+			}
+		}
+
+		if (!recipeIds.isEmpty())
+			matchedRecipes.addAll(recipeLoader.apply(RecipeSearchSpecification.idIn(recipeIds)));
+
+		return matchedRecipes;
+	}
+
+	private static RoaringBitmap intersect(final Optional<RoaringBitmap> recipeIds,
+										   final Optional<RoaringBitmap> otherRecipeIds) {
+
+		if (!recipeIds.isPresent())
+			return otherRecipeIds.get();
+
+		if (!otherRecipeIds.isPresent())
+			return recipeIds.get();
+
+		return RoaringBitmap.and(recipeIds.get(), otherRecipeIds.get());
+	}
+
+	/*
+	 * Ingredients are matched by id, ids are taken from ingredient id cache.
+	 */
+	private List<Specification<Recipe>> getRecipeSearchSpecifications(final RecipeSearchCriteria recipeSearchCriteria) {
+		return RecipeSearchSpecification.getRecipeSearchSpecifications(
+				recipeSearchCriteria, this.ingredientService::findIds);
+	}
+
+	private Specification<Recipe> combineRecipeSearchSpecifications(
+			final List<Specification<Recipe>> recipeSearchSpecifications) {
+
+		//combine search specifications with AND operation
+		return recipeSearchSpecifications.stream()
+				.reduce(RecipeSearchSpecification.defaultSpecification(), Specification::and);
 	}
 }
@@ -1,34 +1,49 @@
 package com.challenge.abnamro.service;
 
+import com.challenge.abnamro.event.RecipeChangedEvent;
 import com.challenge.abnamro.exception.ApplicationException;
-import com.challenge.abnamro.mapper.IngredientDTOMapper;
 import com.challenge.abnamro.mapper.RecipeDTOMapper;
 import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
 import com.challenge.abnamro.model.entity.Ingredient;
 import com.challenge.abnamro.model.entity.Recipe;
-import com.challenge.abnamro.repository.IngredientRepository;
+import com.challenge.abnamro.model.page.KeysetPage;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
 import com.challenge.abnamro.repository.RecipeRepository;
+import com.challenge.abnamro.repository.filter.RecipeSearchSpecification;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.LongPredicate;
 
 @Service
 @AllArgsConstructor
 @Slf4j
 public class RecipeService {
 
+	/**
+	 * Expected version matching any version of existing recipe, e.g. <code>If-Match: *</code>.
+	 */
+	public static final long ANY_VERSION = -1L;
+
 	private final RecipeRepository recipeRepository;
-	private final IngredientRepository ingredientRepository;
+	private final IngredientService ingredientService;
 	private final RecipeDTOMapper recipeDTOMapper;
-	private final IngredientDTOMapper ingredientDTOMapper;
+	private final ApplicationEventPublisher applicationEventPublisher;
 
 	@Transactional
 	public RecipeDTO create(final RecipeDTO recipeDTO) {
@@ -39,16 +54,9 @@ public class RecipeService {
 			//transform DTO to entity
 			Recipe recipe = this.recipeDTOMapper.fromDTO(recipeDTO);
 
-			/*
-			 * Check if any ingredient is already persisted.
-			 * If yes then use it, otherwise creates new.
-			 */
+			//use already persisted ingredients, create missing ones
 			Set<Ingredient> ingredients
-					= recipeDTO.getIngredients().stream()
-					.map(ingredientDTO ->
-							this.ingredientRepository.findByName(ingredientDTO.getName())
-									.orElseGet(() -> this.ingredientDTOMapper.fromDTO(ingredientDTO)))
-					.collect(Collectors.toSet());
+					= new HashSet<>(this.ingredientService.resolve(recipeDTO.getIngredients()).values());
 
 			//update ingredients list
 			recipe.setIngredients(ingredients);
@@ -58,6 +66,9 @@ public class RecipeService {
 
 			log.info("Created {}", savedRecipe);
 
+			//notify listeners, they are invoked once transaction is committed
+			this.applicationEventPublisher.publishEvent(RecipeChangedEvent.saved(savedRecipe));
+
 			//return DTO and not entity
 			return this.recipeDTOMapper.toDTO(savedRecipe);
 		} catch (DataIntegrityViolationException ex) {
@@ -65,6 +76,7 @@ public class RecipeService {
 		}
 	}
 
+	@Transactional(readOnly = true)
 	public List<RecipeDTO> getAll() {
 
 		log.info("Preparing to get all recipes");
@@ -80,6 +92,92 @@ public class RecipeService {
 		return this.recipeDTOMapper.toDTO(recipes);
 	}
 
+	@Transactional(readOnly = true)
+	public KeysetPage<RecipeDTO> getAll(final KeysetPageRequest keysetPageRequest) {
+
+		log.info("Preparing to get recipes for {}", keysetPageRequest);
+
+		//select only ids of page first, as fetch join of ingredients can not be limited in database
+		List<Long> fetchedIds
+				= this.recipeRepository.findIds(
+						null, keysetPageRequest.getAfterId(), keysetPageRequest.getFetchSize());
+
+		List<Long> pageIds = keysetPageRequest.getPageIds(fetchedIds);
+
+		List<Recipe> recipes
+				= pageIds.isEmpty()
+				? Collections.emptyList()
+				: this.recipeRepository.findAll(RecipeSearchSpecification.idIn(pageIds), Sort.by("id"));
+
+		//only first page is reported as not found, following pages may become empty due to deletion
+		if (CollectionUtils.isEmpty(recipes) && Objects.isNull(keysetPageRequest.getAfterId()))
+			throw new ApplicationException.RecipeNotFoundException("No recipe fond.");
+
+		log.info("Fetched {} recipes", recipes.size());
+
+		//return DTO and not entity
+		return KeysetPage.of(this.recipeDTOMapper.toDTO(recipes), fetchedIds, keysetPageRequest);
+	}
+
+	/**
+	 * Get summaries of all recipes, without their instructions, by one query.
+	 * Recipes are not loaded, i.e. neither persistence context nor second-level cache holds them.
+	 *
+	 * @return summaries of recipes, in ascending order of ids
+	 * @throws ApplicationException.RecipeNotFoundException if no recipe is found
+	 */
+	@Transactional(readOnly = true)
+	public List<RecipeSummaryDTO> getAllSummaries() {
+
+		log.info("Preparing to get summaries of all recipes");
+
+		List<RecipeSummaryDTO> recipeSummaries = this.recipeRepository.findSummaries(null);
+
+		if (CollectionUtils.isEmpty(recipeSummaries))
+			throw new ApplicationException.RecipeNotFoundException("No recipe fond.");
+
+		log.info("Fetched {} recipe summaries", recipeSummaries.size());
+
+		return recipeSummaries;
+	}
+
+	/**
+	 * Get page of recipe summaries, see {@link #getAll(KeysetPageRequest)} and {@link #getAllSummaries()}.
+	 *
+	 * @param keysetPageRequest requested page
+	 * @return page of recipe summaries
+	 * @throws ApplicationException.RecipeNotFoundException if first page is empty
+	 */
+	@Transactional(readOnly = true)
+	public KeysetPage<RecipeSummaryDTO> getAllSummaries(final KeysetPageRequest keysetPageRequest) {
+
+		log.info("Preparing to get recipe summaries for {}", keysetPageRequest);
+
+		List<Long> fetchedIds
+				= this.recipeRepository.findIds(
+						null, keysetPageRequest.getAfterId(), keysetPageRequest.getFetchSize());
+
+		List<Long> pageIds = keysetPageRequest.getPageIds(fetchedIds);
+
+		List<RecipeSummaryDTO> recipeSummaries
+				= pageIds.isEmpty()
+				? Collections.emptyList()
+				: this.recipeRepository.findSummaries(RecipeSearchSpecification.idIn(pageIds));
+
+		//only first page is reported as not found, following pages may become empty due to deletion
+		if (CollectionUtils.isEmpty(recipeSummaries) && Objects.isNull(keysetPageRequest.getAfterId()))
+			throw new ApplicationException.RecipeNotFoundException("No recipe fond.");
+
+		log.info("Fetched {} recipe summaries", recipeSummaries.size());
+
+		return KeysetPage.of(recipeSummaries, fetchedIds, keysetPageRequest);
+	}
+
+	/*
+	 * Recipe is found by id and not by query, so that recipe, ids of its ingredients and ingredients
+	 * are served from second-level cache. Ingredients which are not cached are loaded by one query.
+	 */
+	@Transactional(readOnly = true)
 	public RecipeDTO get(final long id) {
 
 		log.info("Get recipe with id = [{}]", id);
@@ -91,27 +189,61 @@ public class RecipeService {
 						new ApplicationException.RecipeNotFoundException("Recipe with id = [" + id + "] not found."));
 	}
 
+	/**
+	 * Get recipe unless its current version is known, e.g. to answer conditional request.
+	 * Recipe is read once like {@link #get(long)} and it is mapped only if its version is not known.
+	 *
+	 * @param id of recipe
+	 * @param isKnownVersion tells whether current version of recipe is known
+	 * @return recipe, empty if its version is known
+	 * @throws ApplicationException.RecipeNotFoundException if recipe is not found
+	 */
+	@Transactional(readOnly = true)
+	public Optional<RecipeDTO> getIfModified(final long id, final LongPredicate isKnownVersion) {
+
+		Recipe recipe
+				= this.recipeRepository.findById(id)
+				.orElseThrow(() ->
+						new ApplicationException.RecipeNotFoundException("Recipe with id = [" + id + "] not found."));
+
+		if (isKnownVersion.test(recipe.getVersion()))
+			return Optional.empty();
+
+		//return DTO and not entity
+		return Optional.of(this.recipeDTOMapper.toDTO(recipe));
+	}
+
 	@Transactional
 	public RecipeDTO update(final long id, final RecipeDTO recipeDTO) {
+		return update(id, recipeDTO, null);
+	}
+
+	/**
+	 * Update recipe, create it if it does not exist.
+	 *
+	 * @param id of recipe
+	 * @param recipeDTO new state of recipe
+	 * @param expectedVersion version of recipe the update is based on,
+	 * {@link #ANY_VERSION} for any version of existing recipe, unconditional if null
+	 * @return updated recipe along with its new version
+	 * @throws ApplicationException.RecipeVersionMismatchException if recipe does not exist in expected version,
+	 * or it is changed concurrently
+	 */
+	@Transactional
+	public RecipeDTO update(final long id, final RecipeDTO recipeDTO, @Nullable final Long expectedVersion) {
 
 		log.info("Preparing to update recipe with id = [{}] with update {}", id, recipeDTO);
 
 		try {
 			//find already persisted entity, create new if not found.
-			Recipe existingRecipe
-					= this.recipeRepository.findById(id)
-						.orElseGet(() -> this.recipeDTOMapper.fromDTO(recipeDTO));
-
-			/*
-			 * Check if any ingredient is already persisted.
-			 * If yes then use it, otherwise creates new.
-			 */
+			//its ingredients are loaded only when they are merged, from second-level cache if available
+			Optional<Recipe> persistedRecipe = this.recipeRepository.findById(id);
+
+			checkVersion(id, persistedRecipe.orElse(null), expectedVersion);
+
+			//use already persisted ingredients, create missing ones
 			Set<Ingredient> ingredients
-					= recipeDTO.getIngredients().stream()
-					.map(ingredientDTO ->
-							this.ingredientRepository.findByName(ingredientDTO.getName())
-									.orElseGet(() -> this.ingredientDTOMapper.fromDTO(ingredientDTO)))
-					.collect(Collectors.toSet());
+					= new HashSet<>(this.ingredientService.resolve(recipeDTO.getIngredients()).values());
 
 			//transform DTO to entity
 			Recipe newRecipe = this.recipeDTOMapper.fromDTO(recipeDTO);
@@ -119,39 +251,138 @@ public class RecipeService {
 			//update ingredients list
 			newRecipe.setIngredients(ingredients);
 
-			//merge new updates to persisted entity
-			existingRecipe.merge(newRecipe);
+			//merge new updates to persisted entity, it is already managed and is flushed as it is,
+			//as merging it would replace detached ingredients with proxies, loaded one by one.
+			//otherwise save new entity
+			Recipe savedRecipe;
 
-			//save entity
-			Recipe savedRecipe = this.recipeRepository.save(existingRecipe);
+			if (persistedRecipe.isPresent()) {
+				savedRecipe = persistedRecipe.get();
+				savedRecipe.merge(newRecipe);
+			} else {
+				savedRecipe = this.recipeRepository.save(newRecipe);
+			}
+
+			//flush, so that new version is returned and concurrent change is detected by this update
+			this.recipeRepository.flush();
 
 			log.info("Updated {}", savedRecipe);
 
+			//notify listeners, they are invoked once transaction is committed
+			this.applicationEventPublisher.publishEvent(RecipeChangedEvent.saved(savedRecipe));
+
 			//return DTO and not entity
 			return this.recipeDTOMapper.toDTO(savedRecipe);
 		} catch (DataIntegrityViolationException ex) {
 			throw new ApplicationException.RecipeUpdateFailedException("Requested changes violates Recipe data");
+		} catch (OptimisticLockingFailureException ex) {
+			throw new ApplicationException.RecipeVersionMismatchException(
+					"Recipe with id = [" + id + "] is changed concurrently.");
 		}
 	}
 
 	@Transactional
 	public RecipeDTO delete(final long id) {
+		return delete(id, null);
+	}
+
+	/**
+	 * Delete recipe and return it.
+	 * Recipe is loaded along with its ingredients by one query and then deleted like {@link #deleteById(long, Long)}.
+	 *
+	 * @param id of recipe
+	 * @param expectedVersion version of recipe the deletion is based on,
+	 * {@link #ANY_VERSION} for any version of existing recipe, unconditional if null
+	 * @return deleted recipe
+	 * @throws ApplicationException.RecipeNotFoundException if recipe is not found and no version is expected
+	 * @throws ApplicationException.RecipeVersionMismatchException if recipe is not in expected version or does not exist,
+	 * or it is changed concurrently
+	 */
+	@Transactional
+	public RecipeDTO delete(final long id, @Nullable final Long expectedVersion) {
+
+		//find already persisted entity along with ingredients, as they are returned, throw exception if not found.
+		Optional<Recipe> persistedRecipe = this.recipeRepository.findWithIngredientsById(id);
+
+		checkVersion(id, persistedRecipe.orElse(null), expectedVersion);
 
-		//find already persisted entity, throw exception if not found.
 		Recipe recipe
-				= this.recipeRepository.findById(id)
+				= persistedRecipe
 				.orElseThrow(() ->
 						new ApplicationException.RecipeNotFoundException("Recipe with id = [" + id + "] not found."));
 
-		//recommended in Spring documentation, hence flushing the EntityManager before calling deleteById()
-		this.recipeRepository.flush();
-
-		//delete persisted entity
-		this.recipeRepository.deleteById(id);
+		remove(recipe);
 
 		log.info("Deleted {}", recipe);
 
 		//return DTO and not entity
 		return this.recipeDTOMapper.toDTO(recipe);
 	}
+
+	/**
+	 * Delete recipe without loading its ingredients, i.e. by one statement deleting its ingredient rows
+	 * and one statement deleting recipe row. Recipe itself is usually served by second-level cache.
+	 *
+	 * @param id of recipe
+	 * @param expectedVersion version of recipe the deletion is based on,
+	 * {@link #ANY_VERSION} for any version of existing recipe, unconditional if null
+	 * @throws ApplicationException.RecipeNotFoundException if recipe is not found and no version is expected
+	 * @throws ApplicationException.RecipeVersionMismatchException if recipe is not in expected version or does not exist,
+	 * or it is changed concurrently
+	 */
+	@Transactional
+	public void deleteById(final long id, @Nullable final Long expectedVersion) {
+
+		Optional<Recipe> persistedRecipe = this.recipeRepository.findById(id);
+
+		checkVersion(id, persistedRecipe.orElse(null), expectedVersion);
+
+		Recipe recipe
+				= persistedRecipe
+				.orElseThrow(() ->
+						new ApplicationException.RecipeNotFoundException("Recipe with id = [" + id + "] not found."));
+
+		remove(recipe);
+
+		log.info("Deleted recipe with id = [{}]", id);
+	}
+
+	/*
+	 * Recipe is removed as entity, so that only this recipe and its ingredient ids are evicted from second-level cache,
+	 * bulk statements would invalidate whole cache regions, hence they are left for deletion by criteria.
+	 * Recipe row is deleted in loaded version, so that concurrent change is detected by this deletion.
+	 */
+	private void remove(final Recipe recipe) {
+
+		try {
+			this.recipeRepository.delete(recipe);
+			this.recipeRepository.flush();
+		} catch (OptimisticLockingFailureException ex) {
+			throw new ApplicationException.RecipeVersionMismatchException(
+					"Recipe with id = [" + recipe.getId() + "] is changed concurrently.");
+		}
+
+		//notify listeners, they are invoked once transaction is committed
+		this.applicationEventPublisher.publishEvent(RecipeChangedEvent.deleted(recipe.getId()));
+	}
+
+	/*
+	 * Recipe which does not exist has no version to match, not even any version,
+	 * i.e. conditional update does not create recipe and conditional deletion does not report it as not found.
+	 */
+	static void checkVersion(final long id,
+			@Nullable final Recipe persistedRecipe,
+			@Nullable final Long expectedVersion) {
+
+		if (Objects.isNull(expectedVersion))
+			return;
+
+		if (Objects.isNull(persistedRecipe))
+			throw new ApplicationException.RecipeVersionMismatchException(
+					"Recipe with id = [" + id + "] does not exist.");
+
+		if (expectedVersion != ANY_VERSION && persistedRecipe.getVersion() != expectedVersion)
+			throw new ApplicationException.RecipeVersionMismatchException(
+					"Recipe with id = [" + id + "] is not in version [" + expectedVersion + "].");
+	}
 }
@@ -0,0 +1,59 @@
+package db.migration;
+
+import com.challenge.abnamro.model.entity.compression.InstructionsCompression;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Instructions are stored compressed, see {@link com.challenge.abnamro.model.entity.compression.CompressedInstructions}.
+ *
+ * Existing instructions are compressed by application code, hence migration is written in Java,
+ * so that database schema itself does not refer to any application class.
+ * Compressed values start with their format, i.e. they stay readable if compression changes later.
+ */
+public class V4__Compress_recipe_instructions extends BaseJavaMigration {
+
+	private static final int BATCH_SIZE = 500;
+
+	@Override
+	public void migrate(final Context context) throws SQLException {
+
+		Connection connection = context.getConnection();
+
+		//format byte and 4000 characters of at most 3 bytes in UTF-8
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("alter table recipe add column compressed_instructions binary varying(12001)");
+		}
+
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("select id, instructions from recipe");
+			 PreparedStatement preparedStatement
+					 = connection.prepareStatement("update recipe set compressed_instructions = ? where id = ?")) {
+
+			int batchedRecipes = 0;
+
+			while (resultSet.next()) {
+
+				preparedStatement.setBytes(1, InstructionsCompression.compress(resultSet.getString(2)));
+				preparedStatement.setLong(2, resultSet.getLong(1));
+				preparedStatement.addBatch();
+
+				if (++batchedRecipes % BATCH_SIZE == 0)
+					preparedStatement.executeBatch();
+			}
+
+			preparedStatement.executeBatch();
+		}
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("alter table recipe drop column instructions");
+			statement.execute("alter table recipe alter column compressed_instructions rename to instructions");
+		}
+	}
+}
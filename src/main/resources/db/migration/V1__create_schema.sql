@@ -0,0 +1,31 @@
+-- Schema of recipe catalog, Hibernate validates entities against it at startup.
+-- Databases created by schema.sql before migrations were introduced are baselined at this version.
+
+-- ids are allocated in blocks of 50, same as recipes.id.block_size
+create sequence ingredient_id_sequence start with 1 increment by 50;
+create sequence recipe_id_sequence start with 1 increment by 50;
+
+create table ingredient (
+    id bigint not null,
+    name varchar(200),
+    primary key (id),
+    constraint UniqueIngredient unique (name)
+);
+
+create table recipe (
+    id bigint not null,
+    instructions varchar(4000),
+    name varchar(200),
+    number_of_servings integer,
+    vegetarian boolean,
+    primary key (id),
+    constraint UniqueRecipe unique (name, vegetarian)
+);
+
+create table recipe_ingredients (
+    recipes_id bigint not null,
+    ingredients_id bigint not null,
+    primary key (recipes_id, ingredients_id),
+    constraint FK_recipe_ingredients_recipe foreign key (recipes_id) references recipe,
+    constraint FK_recipe_ingredients_ingredient foreign key (ingredients_id) references ingredient
+);
@@ -0,0 +1,10 @@
+-- Secondary indexes of searchable columns and the join table, missing ones are logged at startup by DatabaseIndexCheck.
+
+-- search by vegetarian and number of servings, also by vegetarian only
+create index recipe_vegetarian_servings_idx on recipe (vegetarian, number_of_servings);
+
+-- recipes of an ingredient, primary key of join table serves ingredients of a recipe only
+create index recipe_ingredients_ingredient_idx on recipe_ingredients (ingredients_id, recipes_id);
+
+-- list views read recipes in id order without their instructions
+create index recipe_list_idx on recipe (id, name, vegetarian, number_of_servings);
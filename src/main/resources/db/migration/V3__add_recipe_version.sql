@@ -0,0 +1,4 @@
+-- Version of recipe, incremented by every update, used for optimistic locking and exposed as ETag.
+-- Recipes existing before versioning start at version 0.
+
+alter table recipe add column version bigint default 0 not null;
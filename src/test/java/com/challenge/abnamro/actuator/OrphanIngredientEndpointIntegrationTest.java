@@ -0,0 +1,63 @@
+package com.challenge.abnamro.actuator;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.service.OrphanIngredientService;
+import com.challenge.abnamro.util.IntegrationTestUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.challenge.abnamro.util.IntegrationTestUtils.OBJECT_MAPPER;
+import static com.challenge.abnamro.util.IntegrationTestUtils.REST_TEMPLATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class OrphanIngredientEndpointIntegrationTest {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private OrphanIngredientService orphanIngredientService;
+
+	@Test
+	@DirtiesContext
+	void test_progress_when_reclamation_has_run_then_return_its_progress() throws JsonProcessingException {
+
+		//given
+		this.orphanIngredientService.reclaim();
+
+		//when
+		ResponseEntity<String> actualResponse
+				= REST_TEMPLATE.getForEntity(
+						IntegrationTestUtils.getLocalUrlForPort(this.port, "/actuator/orphaningredients"), String.class);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+
+		JsonNode actualProgress = OBJECT_MAPPER.readTree(actualResponse.getBody());
+		assertFalse(actualProgress.get("running").asBoolean());
+		assertTrue(actualProgress.hasNonNull("startedAt"));
+		assertTrue(actualProgress.hasNonNull("finishedAt"));
+		assertEquals(0, actualProgress.get("deleted").asLong());
+		assertEquals(0, actualProgress.get("totalDeleted").asLong());
+	}
+}
@@ -0,0 +1,260 @@
+package com.challenge.abnamro.benchmark;
+
+import com.challenge.abnamro.model.entity.compression.CompressedInstructions;
+import com.challenge.abnamro.model.entity.compression.InstructionsCompression;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares storage of instructions as text against storage compressed by {@link InstructionsCompression}.
+ *
+ * Storage size is the size of database file and the total length of stored values,
+ * for comparison also of values deflated without dictionary.
+ * Read latency is measured for random reads of instructions by recipe id, including decompression.
+ *
+ * Benchmark is not part of regular build, run it with
+ * mvn test -Dtest=InstructionsCompressionBenchmark -Dbenchmark=true
+ */
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InstructionsCompressionBenchmark {
+
+	//{i} is replaced by an ingredient, {n} by a number
+	private static final String[] STEPS = {
+			"Preheat the oven to {n}0 degrees.",
+			"Peel and finely chop the {i}.",
+			"Heat the olive oil in a large frying pan over medium heat and fry the {i} for {n} minutes.",
+			"Add the {i} and the {i} and stir well.",
+			"Bring to the boil, then reduce the heat and simmer for {n} minutes.",
+			"Season to taste with salt and pepper.",
+			"Bake for {n} minutes until golden brown.",
+			"Whisk the {i} with the {i} in a large bowl until smooth.",
+			"Cut the {i} into thin slices and set aside.",
+			"Serve warm with {i} and fresh bread.",
+			"Leave to rest for {n} minutes before serving.",
+			"Stir in the {i} and cook for another {n} minutes, stirring occasionally.",
+			"Marinate the {i} in the refrigerator for at least {n} hours.",
+			"Grill the {i} for {n} minutes on each side until cooked through.",
+			"Garnish with chopped {i} and a squeeze of lemon juice."};
+
+	private static final String[] INGREDIENTS = {
+			"onion", "garlic", "carrots", "potatoes", "tomatoes", "chicken breast", "beef", "salmon fillets",
+			"mushrooms", "spinach", "courgette", "red pepper", "chickpeas", "lentils", "rice", "pasta", "noodles",
+			"cream", "butter", "eggs", "flour", "sugar", "cheese", "parsley", "coriander", "basil", "ginger",
+			"coconut milk", "soy sauce", "lime", "honey", "yoghurt", "feta", "aubergine", "sweet potato", "leeks"};
+
+	private static final int NUMBER_OF_READS = 50_000;
+	private static final int WARM_UP_READS = 10_000;
+
+	@TempDir
+	Path storagePath;
+
+	@ParameterizedTest
+	@ValueSource(ints = {10_000, 100_000})
+	void benchmark_storage_of_instructions(final int numberOfRecipes) throws SQLException, IOException {
+
+		//given
+		String[] instructions = new String[numberOfRecipes + 1];
+		Random random = new Random(numberOfRecipes);
+		long textLength = 0;
+		long deflatedLength = 0;
+
+		for (int id = 1; id <= numberOfRecipes; ++id) {
+
+			instructions[id] = generateInstructions(random);
+
+			textLength += instructions[id].getBytes(StandardCharsets.UTF_8).length;
+			deflatedLength += deflateWithoutDictionary(instructions[id]);
+		}
+
+		//when
+		Result text = measure("text", "VARCHAR(4000)", instructions, false);
+		Result compressed = measure("compressed", "BINARY VARYING(12001)", instructions, true);
+
+		//then
+		System.out.printf(
+				"recipes: %,d, values - text: %,d bytes, deflated without dictionary: %,d bytes%n",
+				numberOfRecipes, textLength, deflatedLength);
+
+		for (Result result : new Result[]{text, compressed})
+			System.out.printf(
+					"recipes: %,d, %s - values: %,d bytes, database file: %,d bytes, read: %.1f us%n",
+					numberOfRecipes, result.name, result.valuesLength, result.fileSize, result.readMicros);
+	}
+
+	private Result measure(final String name,
+						   final String columnType,
+						   final String[] instructions,
+						   final boolean compress) throws SQLException, IOException {
+
+		String url = "jdbc:h2:" + this.storagePath.resolve(name).toAbsolutePath();
+		long valuesLength;
+
+		try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE recipe(id BIGINT PRIMARY KEY, instructions " + columnType + ")");
+			}
+
+			try (PreparedStatement preparedStatement
+						 = connection.prepareStatement("INSERT INTO recipe(id, instructions) VALUES (?, ?)")) {
+
+				for (int id = 1; id < instructions.length; ++id) {
+
+					preparedStatement.setLong(1, id);
+
+					if (compress)
+						preparedStatement.setBytes(2, InstructionsCompression.compress(instructions[id]));
+					else
+						preparedStatement.setString(2, instructions[id]);
+
+					preparedStatement.addBatch();
+
+					if (id % 1000 == 0)
+						preparedStatement.executeBatch();
+				}
+
+				preparedStatement.executeBatch();
+			}
+
+			try (Statement statement = connection.createStatement();
+				 ResultSet resultSet = statement.executeQuery("SELECT SUM(OCTET_LENGTH(instructions)) FROM recipe")) {
+
+				resultSet.next();
+				valuesLength = resultSet.getLong(1);
+
+				//not compacted, as compaction compresses database file
+				statement.execute("SHUTDOWN");
+			}
+		}
+
+		long fileSize = Files.size(this.storagePath.resolve(name + ".mv.db"));
+
+		//reopened database starts with cold page cache, first reads warm it up
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+			 PreparedStatement preparedStatement
+					 = connection.prepareStatement("SELECT instructions FROM recipe WHERE id = ?")) {
+
+			Random random = new Random(42);
+
+			for (int read = 0; read < WARM_UP_READS; ++read)
+				read(preparedStatement, instructions, random, compress);
+
+			long readStart = System.nanoTime();
+
+			for (int read = 0; read < NUMBER_OF_READS; ++read)
+				read(preparedStatement, instructions, random, compress);
+
+			double readMicros = (System.nanoTime() - readStart) / 1_000.0 / NUMBER_OF_READS;
+
+			return new Result(name, valuesLength, fileSize, readMicros);
+		}
+	}
+
+	private static void read(final PreparedStatement preparedStatement,
+							 final String[] instructions,
+							 final Random random,
+							 final boolean compressed) throws SQLException {
+
+		int id = 1 + random.nextInt(instructions.length - 1);
+		preparedStatement.setLong(1, id);
+
+		try (ResultSet resultSet = preparedStatement.executeQuery()) {
+
+			resultSet.next();
+
+			String actualInstructions
+					= compressed
+					? InstructionsCompression.decompress(resultSet.getBytes(1))
+					: resultSet.getString(1);
+
+			assertEquals(instructions[id].length(), actualInstructions.length());
+		}
+	}
+
+	private static int deflateWithoutDictionary(final String instructions) {
+
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+		try {
+			deflater.setInput(instructions.getBytes(StandardCharsets.UTF_8));
+			deflater.finish();
+
+			byte[] buffer = new byte[CompressedInstructions.MAX_LENGTH];
+			int length = 0;
+
+			while (!deflater.finished())
+				length += deflater.deflate(buffer);
+
+			return length;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/*
+	 * Instructions of 3 to 12 steps, i.e. roughly 100 to 800 characters.
+	 */
+	private static String generateInstructions(final Random random) {
+
+		StringBuilder instructions = new StringBuilder();
+		int numberOfSteps = 3 + random.nextInt(10);
+
+		for (int step = 0; step < numberOfSteps; ++step) {
+
+			if (step > 0)
+				instructions.append(' ');
+
+			String template = STEPS[random.nextInt(STEPS.length)];
+
+			for (int i = 0; i < template.length(); ++i) {
+
+				if (template.startsWith("{i}", i)) {
+					instructions.append(INGREDIENTS[random.nextInt(INGREDIENTS.length)]);
+					i += 2;
+				} else if (template.startsWith("{n}", i)) {
+					instructions.append(1 + random.nextInt(45));
+					i += 2;
+				} else {
+					instructions.append(template.charAt(i));
+				}
+			}
+		}
+
+		return instructions.toString();
+	}
+
+	private static class Result {
+
+		private final String name;
+		private final long valuesLength;
+		private final long fileSize;
+		private final double readMicros;
+
+		private Result(final String name, final long valuesLength, final long fileSize, final double readMicros) {
+			this.name = name;
+			this.valuesLength = valuesLength;
+			this.fileSize = fileSize;
+			this.readMicros = readMicros;
+		}
+	}
+}
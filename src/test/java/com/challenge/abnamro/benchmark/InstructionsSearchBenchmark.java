@@ -0,0 +1,166 @@
+package com.challenge.abnamro.benchmark;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.index.InstructionsTextIndex;
+import com.challenge.abnamro.model.entity.Recipe;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares search of text in instructions using SQL LIKE '%text%' against {@link InstructionsTextIndex}.
+ *
+ * Benchmark is not part of regular build, run it with
+ * mvn test -Dtest=InstructionsSearchBenchmark -Dbenchmark=true
+ */
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InstructionsSearchBenchmark {
+
+	private static final String[] WORDS = {
+			"add", "bake", "boil", "chop", "cut", "fry", "grill", "heat", "mix", "pour", "roast", "season",
+			"slice", "stir", "whisk", "water", "oil", "salt", "pepper", "onion", "garlic", "pasta", "rice",
+			"chicken", "beef", "tomato", "cheese", "butter", "flour", "sugar", "minutes", "until", "golden",
+			"brown", "tender", "pan", "oven", "pot", "bowl", "then", "and", "with", "for", "the", "into"};
+
+	//words beyond cooking vocabulary are synthetic
+	private static final int VOCABULARY_SIZE = 5_000;
+
+	private static final String SEARCHED_TEXT = "golden brown";
+	private static final int WARM_UP_ITERATIONS = 3;
+	private static final int MEASURED_ITERATIONS = 10;
+
+	@ParameterizedTest
+	@ValueSource(ints = {10_000, 100_000, 1_000_000})
+	void benchmark_search_of_text_in_instructions(final int numberOfRecipes) throws SQLException {
+
+		//given
+		Random random = new Random(numberOfRecipes);
+		InstructionsTextIndex instructionsTextIndex = new InstructionsTextIndex();
+		long indexBuildNanos = 0;
+
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID())) {
+
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE recipe(id BIGINT PRIMARY KEY, instructions VARCHAR(2000))");
+			}
+
+			instructionsTextIndex.startRebuild();
+
+			try (PreparedStatement preparedStatement
+						 = connection.prepareStatement("INSERT INTO recipe(id, instructions) VALUES (?, ?)")) {
+
+				for (int id = 1; id <= numberOfRecipes; ++id) {
+
+					String instructions = generateInstructions(random);
+
+					preparedStatement.setLong(1, id);
+					preparedStatement.setString(2, instructions);
+					preparedStatement.addBatch();
+
+					if (id % 1000 == 0)
+						preparedStatement.executeBatch();
+
+					long indexAddStart = System.nanoTime();
+					instructionsTextIndex.addToRebuild(RecipeChangedEvent.saved(getRecipe(id, instructions)));
+					indexBuildNanos += System.nanoTime() - indexAddStart;
+				}
+
+				preparedStatement.executeBatch();
+			}
+
+			instructionsTextIndex.completeRebuild();
+			long indexBuildMillis = indexBuildNanos / 1_000_000;
+
+			//when
+			double likeMillis = measure(() -> searchUsingLike(connection));
+			double indexMillis = measure(() -> instructionsTextIndex.match(SEARCHED_TEXT).get().getCardinality());
+
+			//then
+			assertEquals(searchUsingLike(connection), instructionsTextIndex.match(SEARCHED_TEXT).get().getCardinality());
+
+			System.out.printf(
+					"recipes: %,d, index build: %,d ms, LIKE: %.3f ms/search, index: %.3f ms/search%n",
+					numberOfRecipes, indexBuildMillis, likeMillis, indexMillis);
+		}
+	}
+
+	private static int searchUsingLike(final Connection connection) {
+
+		try (PreparedStatement preparedStatement
+					 = connection.prepareStatement("SELECT id FROM recipe WHERE instructions LIKE ?")) {
+
+			preparedStatement.setString(1, "%" + SEARCHED_TEXT + "%");
+
+			int matchedRecipes = 0;
+
+			try (ResultSet resultSet = preparedStatement.executeQuery()) {
+				while (resultSet.next())
+					++matchedRecipes;
+			}
+
+			return matchedRecipes;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static double measure(final IntSupplier search) {
+
+		for (int i = 0; i < WARM_UP_ITERATIONS; ++i)
+			search.getAsInt();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < MEASURED_ITERATIONS; ++i)
+			search.getAsInt();
+
+		return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ITERATIONS;
+	}
+
+	/*
+	 * Generated instructions are lower case words separated by single space,
+	 * so that LIKE and index produce the same result for the searched text.
+	 * Words are drawn log-uniformly from vocabulary, i.e. few words are frequent and most are rare.
+	 */
+	private static String generateInstructions(final Random random) {
+
+		int numberOfWords = 20 + random.nextInt(40);
+		StringBuilder instructions = new StringBuilder();
+
+		for (int i = 0; i < numberOfWords; ++i) {
+
+			if (i > 0)
+				instructions.append(' ');
+
+			int wordIndex = (int) Math.pow(VOCABULARY_SIZE, random.nextDouble()) - 1;
+
+			instructions.append(wordIndex < WORDS.length ? WORDS[wordIndex] : "word" + wordIndex);
+		}
+
+		return instructions.toString();
+	}
+
+	private static Recipe getRecipe(final long id, final String instructions) {
+		return Recipe.builder()
+				.id(id)
+				.instructions(instructions)
+				.ingredients(Collections.emptySet())
+				.build();
+	}
+}
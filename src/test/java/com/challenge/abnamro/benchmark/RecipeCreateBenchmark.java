@@ -0,0 +1,110 @@
+package com.challenge.abnamro.benchmark;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.entity.id.BlockSequenceGenerator;
+import com.challenge.abnamro.service.RecipeService;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares insert throughput of recipe creation without and with JDBC batching.
+ * Ids are allocated in blocks by {@link BlockSequenceGenerator} in both cases, block size is fixed by schema.
+ *
+ * Single creates use one transaction per recipe, bulk creates use one transaction per chunk of recipes.
+ * In-memory H2 has almost no round trip cost, gain is larger with a database over network.
+ *
+ * Benchmark is not part of regular build, run it with
+ * mvn test -Dtest=RecipeCreateBenchmark -Dbenchmark=true
+ */
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RecipeCreateBenchmark {
+
+	private static final int NUMBER_OF_RECIPES = 5_000;
+	private static final int INGREDIENTS_PER_RECIPE = 10;
+	private static final int INGREDIENT_VOCABULARY_SIZE = 20_000;
+	private static final int BULK_CHUNK_SIZE = 100;
+
+	@ParameterizedTest(name = "JDBC batch size = {0}")
+	@ValueSource(ints = {0, 50})
+	void benchmark_create_of_recipes(final int jdbcBatchSize) {
+
+		try (ConfigurableApplicationContext applicationContext
+					 = new SpringApplicationBuilder(RecipeManagerApplication.class)
+					 .profiles("test")
+					 .web(WebApplicationType.NONE)
+					 //arguments take precedence over profile properties
+					 .run(
+							 "--spring.jpa.show-sql=false",
+							 "--logging.level.com.challenge.abnamro=WARN",
+							 "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize)) {
+
+			RecipeService recipeService = applicationContext.getBean(RecipeService.class);
+			TransactionTemplate transactionTemplate = applicationContext.getBean(TransactionTemplate.class);
+
+			//when
+			long singleStart = System.nanoTime();
+
+			for (int recipeNumber = 0; recipeNumber < NUMBER_OF_RECIPES; ++recipeNumber)
+				recipeService.create(getRecipeDTO("single", recipeNumber));
+
+			double singleSeconds = (System.nanoTime() - singleStart) / 1_000_000_000.0;
+
+			long bulkStart = System.nanoTime();
+
+			for (int chunkStart = 0; chunkStart < NUMBER_OF_RECIPES; chunkStart += BULK_CHUNK_SIZE) {
+
+				int firstRecipeNumber = chunkStart;
+
+				transactionTemplate.executeWithoutResult(transactionStatus -> {
+					for (int recipeNumber = firstRecipeNumber;
+						 recipeNumber < firstRecipeNumber + BULK_CHUNK_SIZE;
+						 ++recipeNumber)
+						recipeService.create(getRecipeDTO("bulk", recipeNumber));
+				});
+			}
+
+			double bulkSeconds = (System.nanoTime() - bulkStart) / 1_000_000_000.0;
+
+			//then
+			System.out.printf(
+					"id block size: %d, JDBC batch size: %d, single: %,.0f recipes/s, bulk: %,.0f recipes/s%n",
+					BlockSequenceGenerator.BLOCK_SIZE, jdbcBatchSize, NUMBER_OF_RECIPES / singleSeconds, NUMBER_OF_RECIPES / bulkSeconds);
+		}
+	}
+
+	/*
+	 * Ingredients are spread over vocabulary, so that early recipes mostly insert new ingredients
+	 * and later recipes mostly reuse persisted ones.
+	 */
+	private static RecipeDTO getRecipeDTO(final String prefix, final int recipeNumber) {
+
+		Set<IngredientDTO> ingredientDTOs
+				= IntStream.range(0, INGREDIENTS_PER_RECIPE)
+				.mapToObj(i -> IngredientDTO.builder()
+						.name("ingredient " + (recipeNumber * 7 + i * 1_009) % INGREDIENT_VOCABULARY_SIZE)
+						.build())
+				.collect(Collectors.toSet());
+
+		return RecipeDTO.builder()
+				.name(prefix + " recipe " + recipeNumber)
+				.vegetarian(recipeNumber % 2 == 0)
+				.numberOfServings(1 + recipeNumber % 6)
+				.ingredients(ingredientDTOs)
+				.instructions("Mix all ingredients and bake for " + recipeNumber % 60 + " minutes.")
+				.build();
+	}
+}
@@ -0,0 +1,152 @@
+package com.challenge.abnamro.benchmark;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
+import com.challenge.abnamro.service.RecipeService;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares in-memory database of test profile against file backed database of prod profile.
+ *
+ * Cold start is the time to start application context after a warm-up start within same JVM,
+ * for file backed database also with a populated catalog,
+ * which includes opening the file and rebuilding indexes. Steady-state latency is measured for create of a recipe,
+ * get of a recipe by id and get of a page of recipes, after a warm-up.
+ * Storage is the size of database file holding the catalog, after database is closed.
+ *
+ * Benchmark is not part of regular build, run it with
+ * mvn test -Dtest=StorageBenchmark -Dbenchmark=true
+ */
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StorageBenchmark {
+
+	private static final int NUMBER_OF_RECIPES = 5_000;
+	private static final int NUMBER_OF_READS = 20_000;
+	private static final int PAGE_SIZE = 50;
+	private static final int INGREDIENTS_PER_RECIPE = 10;
+	private static final int INGREDIENT_VOCABULARY_SIZE = 2_000;
+
+	@TempDir
+	Path storagePath;
+
+	@ParameterizedTest(name = "profiles = {0}")
+	@ValueSource(strings = {"test", "test,prod"})
+	void benchmark_storage(final String profiles) throws IOException {
+
+		//warm-up start, so that class loading of first start is not measured
+		start(profiles).close();
+
+		long startTime = System.nanoTime();
+
+		try (ConfigurableApplicationContext applicationContext = start(profiles)) {
+
+			double startMillis = (System.nanoTime() - startTime) / 1_000_000.0;
+
+			RecipeService recipeService = applicationContext.getBean(RecipeService.class);
+
+			//create
+			List<Long> recipeIds = new ArrayList<>(NUMBER_OF_RECIPES);
+			long createStart = System.nanoTime();
+
+			for (int recipeNumber = 0; recipeNumber < NUMBER_OF_RECIPES; ++recipeNumber)
+				recipeIds.add(recipeService.create(getRecipeDTO(recipeNumber)).getId());
+
+			double createMicros = (System.nanoTime() - createStart) / 1_000.0 / NUMBER_OF_RECIPES;
+
+			//get by id, first pass warms up second-level cache
+			Random random = new Random(42);
+			double getMicros = 0;
+
+			for (int pass = 0; pass < 2; ++pass) {
+
+				long getStart = System.nanoTime();
+
+				for (int read = 0; read < NUMBER_OF_READS; ++read)
+					recipeService.get(recipeIds.get(random.nextInt(recipeIds.size())));
+
+				getMicros = (System.nanoTime() - getStart) / 1_000.0 / NUMBER_OF_READS;
+			}
+
+			//get pages of whole catalog repeatedly, read from database every time
+			long pageStart = System.nanoTime();
+			int numberOfPages = NUMBER_OF_READS / PAGE_SIZE;
+			String cursor = null;
+
+			for (int read = 0; read < numberOfPages; ++read)
+				cursor = recipeService.getAll(KeysetPageRequest.of(PAGE_SIZE, cursor)).getNextCursor();
+
+			double pageMicros = (System.nanoTime() - pageStart) / 1_000.0 / numberOfPages;
+
+			System.out.printf(
+					"profiles: %s, cold start: %,.0f ms, create: %,.0f us, get: %,.1f us, page of %d: %,.0f us%n",
+					profiles, startMillis, createMicros, getMicros, PAGE_SIZE, pageMicros);
+		}
+
+		//only file backed database keeps catalog
+		if (profiles.contains("prod")) {
+
+			System.out.printf(
+					"profiles: %s, database file with %,d recipes: %,d bytes%n",
+					profiles, NUMBER_OF_RECIPES, Files.size(this.storagePath.resolve("RecipeDB.mv.db")));
+
+			long restartTime = System.nanoTime();
+
+			try (ConfigurableApplicationContext ignored = start(profiles)) {
+				System.out.printf(
+						"profiles: %s, cold start with %,d recipes: %,.0f ms%n",
+						profiles, NUMBER_OF_RECIPES, (System.nanoTime() - restartTime) / 1_000_000.0);
+			}
+		}
+	}
+
+	private ConfigurableApplicationContext start(final String profiles) {
+
+		return new SpringApplicationBuilder(RecipeManagerApplication.class)
+				.profiles(profiles.split(","))
+				.web(WebApplicationType.NONE)
+				//arguments take precedence over profile properties
+				.run(
+						"--spring.jpa.show-sql=false",
+						"--logging.level.com.challenge.abnamro=WARN",
+						"--recipe.storage.path=" + this.storagePath.toAbsolutePath());
+	}
+
+	private static RecipeDTO getRecipeDTO(final int recipeNumber) {
+
+		Set<IngredientDTO> ingredientDTOs
+				= IntStream.range(0, INGREDIENTS_PER_RECIPE)
+				.mapToObj(i -> IngredientDTO.builder()
+						.name("ingredient " + (recipeNumber * 7 + i * 1_009) % INGREDIENT_VOCABULARY_SIZE)
+						.build())
+				.collect(Collectors.toSet());
+
+		return RecipeDTO.builder()
+				.name("recipe " + recipeNumber)
+				.vegetarian(recipeNumber % 2 == 0)
+				.numberOfServings(1 + recipeNumber % 6)
+				.ingredients(ingredientDTOs)
+				.instructions("Mix all ingredients and bake for " + recipeNumber % 60 + " minutes.")
+				.build();
+	}
+}
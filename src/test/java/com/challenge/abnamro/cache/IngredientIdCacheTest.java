@@ -0,0 +1,164 @@
+package com.challenge.abnamro.cache;
+
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.repository.IngredientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class IngredientIdCacheTest {
+
+	private final IngredientRepository mockIngredientRepository = mock(IngredientRepository.class);
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final IngredientIdCache cut = new IngredientIdCache(this.mockIngredientRepository, this.meterRegistry, 100);
+
+	@AfterEach
+	void tearDown() {
+
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+			TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void test_getAll_when_cache_is_initialized_then_do_not_find_ingredients() {
+
+		//given
+		when(this.mockIngredientRepository.findAll(any(Pageable.class)))
+				.thenReturn(new PageImpl<>(Lists.list(getIngredient(1L, "salt"), getIngredient(2L, "onion"))));
+
+		this.cut.initialize();
+
+		//when
+		Map<String, Long> actualResult = this.cut.getAll(Lists.list("salt", "onion"));
+
+		//then
+		assertEquals(2, actualResult.size());
+		assertEquals(1L, actualResult.get("salt"));
+		assertEquals(2L, actualResult.get("onion"));
+		verify(this.mockIngredientRepository, never()).findByNameIn(anyCollection());
+	}
+
+	@Test
+	void test_getAll_when_names_are_not_cached_then_find_missing_names_only() {
+
+		//given
+		this.cut.putAfterCommit(Lists.list(getIngredient(1L, "salt")));
+
+		when(this.mockIngredientRepository.findByNameIn(anyCollection()))
+				.thenReturn(Lists.list(getIngredient(2L, "onion")));
+
+		//when
+		Map<String, Long> actualResult = this.cut.getAll(Lists.list("salt", "onion", "unknown"));
+
+		//then
+		assertEquals(2, actualResult.size());
+		assertEquals(1L, actualResult.get("salt"));
+		assertEquals(2L, actualResult.get("onion"));
+		verify(this.mockIngredientRepository).findByNameIn(Lists.list("onion", "unknown"));
+	}
+
+	@Test
+	void test_putAfterCommit_when_transaction_is_committed_then_cache_ids() {
+
+		//given
+		TransactionSynchronizationManager.initSynchronization();
+
+		this.cut.putAfterCommit(Lists.list(getIngredient(1L, "salt")));
+
+		//when
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		//then
+		assertEquals(Collections.singletonMap("salt", 1L), this.cut.getAll(Lists.list("salt")));
+		verify(this.mockIngredientRepository, never()).findByNameIn(anyCollection());
+	}
+
+	@Test
+	void test_putAfterCommit_when_transaction_is_rolled_back_then_invalidate_ids() {
+
+		//given
+		TransactionSynchronizationManager.initSynchronization();
+
+		this.cut.putAfterCommit(Lists.list(getIngredient(1L, "salt")));
+
+		//id found from uncommitted row
+		when(this.mockIngredientRepository.findByNameIn(anyCollection()))
+				.thenReturn(Lists.list(getIngredient(1L, "salt")))
+				.thenReturn(Collections.emptyList());
+
+		this.cut.getAll(Lists.list("salt"));
+
+		//when
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		//then
+		assertEquals(Collections.emptyMap(), this.cut.getAll(Lists.list("salt")));
+	}
+
+	@Test
+	void test_invalidateAfterCompletion_when_transaction_is_completed_then_find_ids_again() {
+
+		//given
+		this.cut.putAfterCommit(Lists.list(getIngredient(1L, "salt")));
+
+		TransactionSynchronizationManager.initSynchronization();
+
+		this.cut.invalidateAfterCompletion(Lists.list("salt"));
+
+		when(this.mockIngredientRepository.findByNameIn(anyCollection()))
+				.thenReturn(Collections.emptyList());
+
+		//id is cached until transaction is completed
+		assertEquals(Collections.singletonMap("salt", 1L), this.cut.getAll(Lists.list("salt")));
+
+		//when
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		//then
+		assertEquals(Collections.emptyMap(), this.cut.getAll(Lists.list("salt")));
+		verify(this.mockIngredientRepository).findByNameIn(Lists.list("salt"));
+	}
+
+	@Test
+	void test_constructor_when_created_then_register_metrics() {
+
+		//then
+		assertNotNull(this.meterRegistry.find("cache.size").tag("cache", IngredientIdCache.NAME).gauge());
+		assertNotNull(this.meterRegistry.find("cache.hit.ratio").tag("cache", IngredientIdCache.NAME).gauge());
+		assertNotNull(this.meterRegistry.find("cache.load.duration").tag("cache", IngredientIdCache.NAME).timeGauge());
+	}
+
+	private static void complete(final int status) {
+
+		for (TransactionSynchronization transactionSynchronization
+				: TransactionSynchronizationManager.getSynchronizations())
+			transactionSynchronization.afterCompletion(status);
+	}
+
+	private static Ingredient getIngredient(final long id, final String name) {
+		return Ingredient.builder().id(id).name(name).build();
+	}
+}
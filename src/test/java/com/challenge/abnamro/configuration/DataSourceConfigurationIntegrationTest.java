@@ -0,0 +1,218 @@
+package com.challenge.abnamro.configuration;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.index.RecipeBitmapIndex;
+import com.challenge.abnamro.index.RecipeIndexInitializer;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.service.RecipeSearchService;
+import com.challenge.abnamro.service.RecipeService;
+import com.challenge.abnamro.util.TestUtils;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		properties = {
+				"spring.datasource.url=jdbc:h2:mem:PrimaryDB",
+				"recipe.datasource.replica.jdbc-url=jdbc:h2:mem:ReplicaDB"})
+@Import(DataSourceConfigurationIntegrationTest.ReplicaMigrationConfiguration.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class DataSourceConfigurationIntegrationTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private DataSource replicaDataSource;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private RecipeService recipeService;
+
+	@Autowired
+	private RecipeSearchService recipeSearchService;
+
+	@Autowired
+	private RecipeIndexInitializer recipeIndexInitializer;
+
+	@Autowired
+	private RecipeBitmapIndex recipeBitmapIndex;
+
+	@Test
+	void test_dataSource_when_transaction_is_read_only_then_route_to_replica() {
+
+		//given
+		TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+		transactionTemplate.setReadOnly(true);
+
+		//when
+		String actualResult = transactionTemplate.execute(status -> getDatabaseName());
+
+		//then
+		assertEquals("REPLICADB", actualResult);
+	}
+
+	@Test
+	void test_dataSource_when_transaction_is_not_read_only_then_route_to_primary() {
+
+		//given
+		TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+
+		//when
+		String actualResult = transactionTemplate.execute(status -> getDatabaseName());
+
+		//then
+		assertEquals("PRIMARYDB", actualResult);
+	}
+
+	@Test
+	void test_dataSource_when_there_is_no_transaction_then_route_to_primary() {
+
+		//when
+		String actualResult = getDatabaseName();
+
+		//then
+		assertEquals("PRIMARYDB", actualResult);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_getAll_when_recipe_is_created_on_primary_only_then_it_is_not_read_from_replica() {
+
+		//given
+		this.recipeService.create(TestUtils.getRecipeDTO(1L));
+
+		//when - then
+		assertThrows(ApplicationException.RecipeNotFoundException.class, () -> this.recipeService.getAll());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_initialize_when_recipe_is_created_on_primary_only_then_index_it() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(TestUtils.getRecipeDTO(1L));
+
+		//when
+		this.recipeIndexInitializer.initialize();
+
+		//then
+		Optional<Boolean> actualResult
+				= this.recipeBitmapIndex.match(RecipeSearchCriteria.builder().vegetarian(TestUtils.VEGETARIAN).build())
+				.map(recipeIds -> recipeIds.contains(createdRecipeDTO.getId().intValue()));
+
+		assertTrue(actualResult.orElse(false));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_get_when_replica_lags_behind_primary_then_recipe_read_from_replica_is_not_cached() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(TestUtils.getRecipeDTO(1L));
+		replicate();
+
+		RecipeDTO recipeDTO = TestUtils.getRecipeDTO(createdRecipeDTO.getId());
+		recipeDTO.setNumberOfServings(4);
+		this.recipeService.update(createdRecipeDTO.getId(), recipeDTO);
+		this.entityManagerFactory.getCache().evictAll();
+
+		assertEquals(TestUtils.NUMBER_OF_SERVINGS, this.recipeService.get(createdRecipeDTO.getId()).getNumberOfServings());
+		replicate();
+
+		//when
+		RecipeDTO actualResult = this.recipeService.get(createdRecipeDTO.getId());
+
+		//then
+		assertEquals(4, actualResult.getNumberOfServings());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_replica_lags_behind_primary_then_result_read_from_replica_is_not_cached() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(TestUtils.getRecipeDTO(1L));
+		replicate();
+
+		RecipeSearchCriteria recipeSearchCriteria = RecipeSearchCriteria.builder().vegetarian(TestUtils.VEGETARIAN).build();
+
+		RecipeDTO recipeDTO = TestUtils.getRecipeDTO(createdRecipeDTO.getId());
+		recipeDTO.setNumberOfServings(4);
+		this.recipeService.update(createdRecipeDTO.getId(), recipeDTO);
+		this.entityManagerFactory.getCache().evictAll();
+
+		assertEquals(TestUtils.NUMBER_OF_SERVINGS,
+				this.recipeSearchService.search(recipeSearchCriteria).get(0).getNumberOfServings());
+		replicate();
+
+		//when
+		List<RecipeDTO> actualResult = this.recipeSearchService.search(recipeSearchCriteria);
+
+		//then
+		assertEquals(4, actualResult.get(0).getNumberOfServings());
+	}
+
+	private String getDatabaseName() {
+		return this.jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+	}
+
+	/*
+	 * Replica catches up with primary, i.e. it is replaced by a copy of primary.
+	 */
+	private void replicate() {
+
+		List<String> statements = this.jdbcTemplate.queryForList("SCRIPT", String.class);
+
+		JdbcTemplate replicaJdbcTemplate = new JdbcTemplate(this.replicaDataSource);
+		replicaJdbcTemplate.execute("DROP ALL OBJECTS");
+		statements.forEach(replicaJdbcTemplate::execute);
+	}
+
+	/*
+	 * Second local database stands in for replica, its schema is migrated like schema of primary.
+	 * Migration runs on startup, before caches and indexes are loaded from replica.
+	 * Configuration is imported by this test only, i.e. it is not annotated to be found by component scan.
+	 */
+	static class ReplicaMigrationConfiguration {
+
+		@Bean
+		public InitializingBean replicaMigration(@Qualifier("replicaDataSource") final DataSource replicaDataSource) {
+			return () -> Flyway.configure().dataSource(replicaDataSource).load().migrate();
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package com.challenge.abnamro.controller;
 
 import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.exception.ExceptionWrapper;
 import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkResultDTO;
 import com.challenge.abnamro.model.dto.RecipeDTO;
 import com.challenge.abnamro.util.IntegrationTestUtils;
 import com.challenge.abnamro.util.TestUtils;
@@ -25,10 +27,12 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import static com.challenge.abnamro.util.IntegrationTestUtils.RECIPES_API_URL;
 import static com.challenge.abnamro.util.IntegrationTestUtils.REST_TEMPLATE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(
@@ -77,6 +81,54 @@ public class RecipeControllerIntegrationTest {
 		assertEquals(createdRecipeDTO, actualResponse.getBody());
 	}
 
+	@Test
+	@DirtiesContext
+	void test_POST_bulk_when_some_recipes_are_not_valid_then_create_valid_recipes_and_report_others() {
+
+		//given
+		RecipeDTO existingRecipeDTO = postRecipeDTO(TestUtils.getRecipeDTO(1L).toBuilder().id(null).build()).getBody();
+
+		RecipeDTO recipeDTO2 = TestUtils.getRecipeDTO(2L).toBuilder().id(null).build();
+		RecipeDTO recipeDTO3 = TestUtils.getRecipeDTO(3L).toBuilder().id(null).build();
+
+		List<RecipeDTO> inputRecipeDTOs
+				= Lists.list(
+						recipeDTO2,
+						recipeDTO3.toBuilder().name(" ").build(),
+						recipeDTO3,
+						recipeDTO2.toBuilder().numberOfServings(10).build(),
+						existingRecipeDTO.toBuilder().id(null).build());
+
+		String url = getUrl(RECIPES_API_URL + ApiConstants.Endpoints.BULK);
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		HttpEntity<List<RecipeDTO>> httpEntityRequest = new HttpEntity<>(inputRecipeDTOs, httpHeaders);
+
+		//when
+		ResponseEntity<RecipeBulkResultDTO[]> actualResponse
+				= REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, RecipeBulkResultDTO[].class);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+
+		RecipeBulkResultDTO[] actualResults = actualResponse.getBody();
+		assertEquals(inputRecipeDTOs.size(), actualResults.length);
+
+		assertEquals(recipeDTO2.getName(), getRecipeDTO(actualResults[0].getId()).getBody().getName());
+		assertEquals(recipeDTO3.getName(), getRecipeDTO(actualResults[2].getId()).getBody().getName());
+
+		assertEquals(
+				getBulkErrorResult(HttpStatus.BAD_REQUEST, "Request validation failed.", "Recipe name can not be blank."),
+				actualResults[1]);
+		assertEquals(
+				getBulkErrorResult(HttpStatus.UNPROCESSABLE_ENTITY, "Recipe creation failed", "Recipe is repeated in request."),
+				actualResults[3]);
+		assertEquals(
+				getBulkErrorResult(
+						HttpStatus.UNPROCESSABLE_ENTITY, "Recipe creation failed", "Requested changes violates Recipe data"),
+				actualResults[4]);
+	}
+
 	/*
 	 * Tests for GET method
 	 */
@@ -130,6 +182,37 @@ public class RecipeControllerIntegrationTest {
 		assertEquals(expectedResult, Lists.list(actualResponse.getBody()));
 	}
 
+	@Test
+	@DirtiesContext
+	void test_GET_when_limit_provided_then_return_all_available_recipes_page_by_page() {
+
+		//given
+		List<RecipeDTO> expectedResult = new ArrayList<>();
+
+		for (long recipeId = 1; recipeId <= 5; ++recipeId)
+			expectedResult.add(postRecipeDTO(TestUtils.getRecipeDTO(recipeId)).getBody());
+
+		String url = getUrl(RECIPES_API_URL + "?limit=2");
+		List<Integer> actualPageSizes = new ArrayList<>();
+		List<RecipeDTO> actualResult = new ArrayList<>();
+
+		//when
+		while (Objects.nonNull(url)) {
+
+			ResponseEntity<RecipeDTO[]> actualResponse = REST_TEMPLATE.getForEntity(url, RecipeDTO[].class);
+			assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+
+			actualPageSizes.add(actualResponse.getBody().length);
+			actualResult.addAll(Lists.list(actualResponse.getBody()));
+
+			url = IntegrationTestUtils.getNextPageUrl(actualResponse.getHeaders());
+		}
+
+		//then
+		assertEquals(Lists.list(2, 2, 1), actualPageSizes);
+		assertEquals(expectedResult, actualResult);
+	}
+
 	@Test
 	@DirtiesContext
 	void test_GET_when_id_is_provided_and_data_is_available_then_return_data() {
@@ -170,6 +253,55 @@ public class RecipeControllerIntegrationTest {
 //				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
 	}
 
+	@Test
+	@DirtiesContext
+	void test_GET_when_if_none_match_is_current_version_then_return_not_modified() {
+
+		//given
+		long recipeId = 1L;
+
+		ResponseEntity<RecipeDTO> beforeTestResponse = postRecipeDTO(TestUtils.getRecipeDTO(recipeId));
+		assertEquals("\"0\"", beforeTestResponse.getHeaders().getETag());
+
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setIfNoneMatch("\"0\"");
+
+		//when
+		ResponseEntity<RecipeDTO> actualResponse = requestById(HttpMethod.GET, recipeId, httpHeaders);
+
+		//then
+		assertEquals(HttpStatus.NOT_MODIFIED, actualResponse.getStatusCode());
+		assertEquals("\"0\"", actualResponse.getHeaders().getETag());
+		assertNull(actualResponse.getBody());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_GET_when_if_none_match_is_previous_version_then_return_data_with_current_version() {
+
+		//given
+		long recipeId = 1L;
+
+		RecipeDTO existingRecipeDTO = postRecipeDTO(TestUtils.getRecipeDTO(recipeId)).getBody();
+		RecipeDTO changedRecipeDTO
+				= existingRecipeDTO.toBuilder()
+				.numberOfServings(existingRecipeDTO.getNumberOfServings() + 1)
+				.build();
+
+		putRecipeDTO(recipeId, changedRecipeDTO);
+
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setIfNoneMatch("\"0\"");
+
+		//when
+		ResponseEntity<RecipeDTO> actualResponse = requestById(HttpMethod.GET, recipeId, httpHeaders);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertEquals("\"1\"", actualResponse.getHeaders().getETag());
+		assertEquals(changedRecipeDTO, actualResponse.getBody());
+	}
+
 	/*
 	 * Tests for PUT method
 	 */
@@ -287,12 +419,77 @@ public class RecipeControllerIntegrationTest {
 		}
 	}
 
+	@Test
+	@DirtiesContext
+	void test_PUT_when_if_match_is_current_version_then_update_recipe_and_return_new_version() {
+
+		//given
+		long recipeId = 1;
+
+		RecipeDTO existingRecipeDTO = postRecipeDTO(TestUtils.getRecipeDTO(recipeId)).getBody();
+		RecipeDTO changedRecipeDTO
+				= existingRecipeDTO.toBuilder()
+				.numberOfServings(existingRecipeDTO.getNumberOfServings() + 1)
+				.build();
+
+		//when
+		ResponseEntity<RecipeDTO> actualResponse = putRecipeDTO(recipeId, changedRecipeDTO, "\"0\"");
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertEquals("\"1\"", actualResponse.getHeaders().getETag());
+		assertEquals(changedRecipeDTO, actualResponse.getBody());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_PUT_when_if_match_is_previous_version_then_return_precondition_failed() {
+
+		//given
+		long recipeId = 1;
+
+		RecipeDTO existingRecipeDTO = postRecipeDTO(TestUtils.getRecipeDTO(recipeId)).getBody();
+		RecipeDTO changedRecipeDTO
+				= existingRecipeDTO.toBuilder()
+				.numberOfServings(existingRecipeDTO.getNumberOfServings() + 1)
+				.build();
+
+		putRecipeDTO(recipeId, changedRecipeDTO, "\"0\"");
+
+		//when
+		ResponseEntity<RecipeDTO> actualResponse
+				= putRecipeDTO(recipeId, existingRecipeDTO, "\"0\"");
+
+		//then
+		assertEquals(HttpStatus.PRECONDITION_FAILED, actualResponse.getStatusCode());
+		assertEquals(changedRecipeDTO, getRecipeDTO(recipeId).getBody());
+	}
+
 	/*
 	 * Tests for DELETE method
 	 */
 	@Test
 	@DirtiesContext
-	void test_DELETE_when_recipe_is_available_then_return_deleted_recipe() {
+	void test_DELETE_when_recipe_is_available_then_return_no_content() {
+
+		//given
+		long recipeId = 1L;
+
+		ResponseEntity<RecipeDTO> beforeTestResponse = postRecipeDTO(TestUtils.getRecipeDTO(recipeId));
+		assertEquals(HttpStatus.CREATED, beforeTestResponse.getStatusCode());
+
+		//when
+		ResponseEntity<RecipeDTO> actualResponse = deleteRecipeDTO(recipeId);
+
+		//then
+		assertEquals(HttpStatus.NO_CONTENT, actualResponse.getStatusCode());
+		assertNull(actualResponse.getBody());
+		assertEquals(HttpStatus.NOT_FOUND, getRecipeDTO(recipeId).getStatusCode());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_DELETE_when_representation_is_preferred_then_return_deleted_recipe() {
 
 		//given
 		long recipeId = 1L;
@@ -303,8 +500,11 @@ public class RecipeControllerIntegrationTest {
 
 		RecipeDTO existingRecipeDTO = beforeTestResponse.getBody();
 
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.set(ApiConstants.Headers.PREFER, ApiConstants.Headers.RETURN_REPRESENTATION);
+
 		//when
-		ResponseEntity<RecipeDTO> actualResponse = deleteRecipeDTO(recipeId);
+		ResponseEntity<RecipeDTO> actualResponse = requestById(HttpMethod.DELETE, recipeId, httpHeaders);
 
 		//then
 		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
@@ -312,6 +512,19 @@ public class RecipeControllerIntegrationTest {
 		assertEquals(existingRecipeDTO, actualResponse.getBody());
 	}
 
+	private static RecipeBulkResultDTO getBulkErrorResult(final HttpStatus httpStatus,
+														  final String error,
+														  final String description) {
+
+		return RecipeBulkResultDTO.builder()
+				.error(ExceptionWrapper.builder()
+						.httpStatus(httpStatus)
+						.error(error)
+						.description(description)
+						.build())
+				.build();
+	}
+
 	private ResponseEntity<RecipeDTO> postRecipeDTO(final RecipeDTO recipeDTO) {
 
 		String url = getUrl(RECIPES_API_URL);
@@ -328,6 +541,17 @@ public class RecipeControllerIntegrationTest {
 		return REST_TEMPLATE.exchange(url, HttpMethod.PUT, httpEntityRequest, RecipeDTO.class);
 	}
 
+	private ResponseEntity<RecipeDTO> putRecipeDTO(final long recipeId, final RecipeDTO recipeDTO, final String ifMatch) {
+
+		String url = getUrl(RECIPES_API_URL + "/" + recipeId);
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		httpHeaders.setIfMatch(ifMatch);
+		HttpEntity<RecipeDTO> httpEntityRequest = new HttpEntity<>(recipeDTO, httpHeaders);
+
+		return REST_TEMPLATE.exchange(url, HttpMethod.PUT, httpEntityRequest, RecipeDTO.class);
+	}
+
 	private ResponseEntity<RecipeDTO> getRecipeDTO(final long recipeId) {
 		return rquestById(HttpMethod.GET, recipeId);
 	}
@@ -337,9 +561,14 @@ public class RecipeControllerIntegrationTest {
 	}
 
 	private ResponseEntity<RecipeDTO> rquestById(final HttpMethod httpMethod, final long recipeId) {
+		return requestById(httpMethod, recipeId, new HttpHeaders());
+	}
+
+	private ResponseEntity<RecipeDTO> requestById(final HttpMethod httpMethod,
+												  final long recipeId,
+												  final HttpHeaders httpHeaders) {
 
 		String url = getUrl(RECIPES_API_URL + "/" + recipeId);
-		HttpHeaders httpHeaders = new HttpHeaders();
 		HttpEntity<Void> httpEntityRequest = new HttpEntity<>(null, httpHeaders);
 
 		return REST_TEMPLATE.exchange(url, httpMethod, httpEntityRequest, RecipeDTO.class);
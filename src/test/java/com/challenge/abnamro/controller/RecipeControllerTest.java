@@ -3,10 +3,18 @@ package com.challenge.abnamro.controller;
 import com.challenge.abnamro.exception.ApplicationException;
 import com.challenge.abnamro.exception.ExceptionWrapper;
 import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkDeleteResultDTO;
 import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.page.KeysetPage;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.service.RecipeBulkService;
+import com.challenge.abnamro.service.RecipePatchService;
 import com.challenge.abnamro.service.RecipeService;
 import com.challenge.abnamro.util.TestUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.util.Strings;
 import org.assertj.core.util.Lists;
@@ -17,6 +25,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -32,12 +41,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.LongPredicate;
 import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.emptyOrNullString;
 import static org.hamcrest.Matchers.endsWith;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -73,6 +89,12 @@ class RecipeControllerTest {
 	@MockBean
 	private RecipeService mockRecipeService;
 
+	@MockBean
+	private RecipeBulkService mockRecipeBulkService;
+
+	@MockBean
+	private RecipePatchService mockRecipePatchService;
+
 	/*
 	 * Tests for POST method
 	 */
@@ -247,7 +269,8 @@ class RecipeControllerTest {
 
 		String supportedMethods
 				= String.join(", ",
-				HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.GET.name(), HttpMethod.DELETE.name());
+				HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(),
+				HttpMethod.GET.name(), HttpMethod.DELETE.name());
 
 		ExceptionWrapper expectedApiError
 				= ExceptionWrapper.builder()
@@ -307,6 +330,98 @@ class RecipeControllerTest {
 				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
 	}
 
+	@Test
+	void test_GET_summaries_when_recipes_are_available_then_return_summaries() throws Exception {
+
+		//given
+		RecipeSummaryDTO recipeSummaryDTO
+				= RecipeSummaryDTO.builder()
+				.id(1L)
+				.name("Recipe 1")
+				.vegetarian(true)
+				.numberOfServings(2)
+				.ingredients(Sets.newLinkedHashSet("ingredient 1"))
+				.build();
+
+		List<RecipeSummaryDTO> expectedResult = Lists.list(recipeSummaryDTO);
+
+		when(this.mockRecipeService.getAllSummaries())
+				.thenReturn(expectedResult);
+
+		//when
+		ResultActions resultActions = this.mockMvc.perform(get(RECIPES_API_URL + ApiConstants.Endpoints.SUMMARIES));
+
+		//then
+		resultActions
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
+
+		verify(this.mockRecipeService, never()).get(anyLong());
+	}
+
+	@Test
+	void test_GET_when_limit_provided_and_next_page_is_available_then_return_page_with_link_to_next_page()
+			throws Exception {
+
+		//given
+		RecipeDTO recipeDTO1
+				= RecipeDTO.builder()
+				.id(1L)
+				.name("Recipe 1")
+				.vegetarian(true)
+				.build();
+
+		List<RecipeDTO> expectedResult = Lists.list(recipeDTO1);
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(1, null);
+
+		when(this.mockRecipeService.getAll(keysetPageRequest))
+				.thenReturn(KeysetPage.of(expectedResult, Lists.list(1L, 2L), keysetPageRequest));
+
+		//when
+		ResultActions resultActions = this.mockMvc.perform(get(RECIPES_API_URL).param("limit", "1"));
+
+		//then
+		resultActions
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.LINK, endsWith("?limit=1&after=MQ>; rel=\"next\"")))
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
+	}
+
+	@ParameterizedTest(name = "GET " + RECIPES_API_URL + "?limit={0}&after={1}")
+	@MethodSource
+	void test_GET_when_page_request_is_invalid_then_return_error(final String limit,
+																 final String after,
+																 final String expectedDescription) throws Exception {
+
+		//given
+		ExceptionWrapper expectedApiError
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Invalid page request.")
+				.description(expectedDescription)
+				.build();
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(get(RECIPES_API_URL).param("limit", limit).param("after", after));
+
+		//then
+		resultActions
+				.andExpect(status().isBadRequest())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedApiError)));
+	}
+
+	private static Stream<Arguments> test_GET_when_page_request_is_invalid_then_return_error() {
+
+		return Stream.of(
+				arguments("0", "MQ", "Limit must be between 1 and 1000."),
+				arguments("1001", "MQ", "Limit must be between 1 and 1000."),
+				arguments("10", "not a cursor", "Cursor is not valid."));
+	}
+
 	@Test
 	void test_GET_when_no_id_provided_and_no_data_is_available_then_return_no_data_found_error() throws Exception {
 
@@ -375,6 +490,93 @@ class RecipeControllerTest {
 				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
 	}
 
+	@Test
+	void test_GET_when_id_is_provided_then_return_version_as_etag() throws Exception {
+
+		//given
+		long recipeId = 1L;
+
+		RecipeDTO expectedResult
+				= RecipeDTO.builder()
+				.id(recipeId)
+				.name("Recipe " + recipeId)
+				.vegetarian(true)
+				.version(3L)
+				.build();
+
+		when(this.mockRecipeService.get(recipeId))
+				.thenReturn(expectedResult);
+
+		//when
+		ResultActions resultActions = this.mockMvc.perform(get(RECIPES_API_URL + "/" + recipeId));
+
+		//then
+		resultActions
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
+	}
+
+	@Test
+	void test_GET_when_if_none_match_is_current_version_then_return_not_modified_without_recipe() throws Exception {
+
+		//given
+		long recipeId = 1L;
+
+		when(this.mockRecipeService.getIfModified(eq(recipeId), any()))
+				.thenAnswer(invocation ->
+						invocation.<LongPredicate>getArgument(1).test(3L)
+								? Optional.empty()
+								: Optional.of(TestUtils.RECIPE_DTO));
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						get(RECIPES_API_URL + "/" + recipeId)
+								.header(HttpHeaders.IF_NONE_MATCH, "\"2\", \"3\""));
+
+		//then
+		resultActions
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+				.andExpect(content().string(emptyOrNullString()));
+
+		verify(this.mockRecipeService, never()).get(recipeId);
+	}
+
+	@Test
+	void test_GET_when_if_none_match_is_not_current_version_then_return_recipe_read_once() throws Exception {
+
+		//given
+		long recipeId = 1L;
+
+		RecipeDTO expectedResult
+				= TestUtils.RECIPE_DTO.toBuilder()
+				.id(recipeId)
+				.version(3L)
+				.build();
+
+		when(this.mockRecipeService.getIfModified(eq(recipeId), any()))
+				.thenAnswer(invocation ->
+						invocation.<LongPredicate>getArgument(1).test(3L)
+								? Optional.empty()
+								: Optional.of(expectedResult));
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						get(RECIPES_API_URL + "/" + recipeId)
+								.header(HttpHeaders.IF_NONE_MATCH, "\"2\""));
+
+		//then
+		resultActions
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
+
+		verify(this.mockRecipeService, never()).get(recipeId);
+	}
+
 	@Test
 	void test_GET_when_id_is_provided_and_no_data_is_available_then_return_no_data_found_error() throws Exception {
 
@@ -435,7 +637,7 @@ class RecipeControllerTest {
 				.id(recipeId)
 				.build();
 
-		when(this.mockRecipeService.update(recipeId, inputRecipeDTO))
+		when(this.mockRecipeService.update(recipeId, inputRecipeDTO, null))
 				.thenReturn(inputRecipeDTO);
 
 		//when
@@ -463,7 +665,7 @@ class RecipeControllerTest {
 				.id(recipeId)
 				.build();
 
-		when(this.mockRecipeService.update(recipeId, inputRecipeDTO))
+		when(this.mockRecipeService.update(recipeId, inputRecipeDTO, null))
 				.thenReturn(inputRecipeDTO);
 
 		//when
@@ -480,6 +682,63 @@ class RecipeControllerTest {
 				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(inputRecipeDTO)));
 	}
 
+	@Test
+	void test_PUT_when_if_match_is_provided_then_update_recipe_in_expected_version() throws Exception {
+
+		//given
+		long recipeId = 1;
+
+		RecipeDTO inputRecipeDTO
+				= TestUtils.RECIPE_DTO.toBuilder()
+				.id(recipeId)
+				.build();
+
+		when(this.mockRecipeService.update(recipeId, inputRecipeDTO, 3L))
+				.thenReturn(inputRecipeDTO.toBuilder().version(4L).build());
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						put(RECIPES_API_URL + "/" + recipeId)
+								.header(HttpHeaders.IF_MATCH, "\"3\"")
+								.contentType(MediaType.APPLICATION_JSON_VALUE)
+								.content(OBJECT_MAPPER.writeValueAsString(inputRecipeDTO)));
+
+		//then
+		resultActions
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(inputRecipeDTO)));
+	}
+
+	@ParameterizedTest(name = "If-Match: {0}")
+	@ValueSource(strings = {"W/\"3\"", "\"three\"", "3"})
+	void test_PUT_when_if_match_is_not_a_version_then_return_precondition_failed(final String ifMatch)
+			throws Exception {
+
+		//given
+		long recipeId = 1;
+
+		RecipeDTO inputRecipeDTO
+				= TestUtils.RECIPE_DTO.toBuilder()
+				.id(recipeId)
+				.build();
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						put(RECIPES_API_URL + "/" + recipeId)
+								.header(HttpHeaders.IF_MATCH, ifMatch)
+								.contentType(MediaType.APPLICATION_JSON_VALUE)
+								.content(OBJECT_MAPPER.writeValueAsString(inputRecipeDTO)));
+
+		//then
+		resultActions
+				.andExpect(status().isPreconditionFailed());
+
+		verify(this.mockRecipeService, never()).update(any(Long.class), any(RecipeDTO.class), any());
+	}
+
 	@Test
 	void test_PUT_for_idempotency_when_correct_input_and_recipe_exists_then_update_recipe() throws Exception {
 
@@ -492,7 +751,7 @@ class RecipeControllerTest {
 				.id(recipeId)
 				.build();
 
-		when(this.mockRecipeService.update(recipeId, inputRecipeDTO))
+		when(this.mockRecipeService.update(recipeId, inputRecipeDTO, null))
 				.thenReturn(inputRecipeDTO);
 
 		//when
@@ -578,7 +837,7 @@ class RecipeControllerTest {
 				.description(runtimeException.getMessage())
 				.build();
 
-		when(this.mockRecipeService.update(recipeId, inputRecipeDTO))
+		when(this.mockRecipeService.update(recipeId, inputRecipeDTO, null))
 				.thenThrow(runtimeException);
 
 		//when
@@ -620,7 +879,7 @@ class RecipeControllerTest {
 				.id(recipeId)
 				.build();
 
-		when(this.mockRecipeService.update(recipeId, inputRecipeDTO))
+		when(this.mockRecipeService.update(recipeId, inputRecipeDTO, null))
 				.thenThrow(runtimeException);
 
 		//when
@@ -642,11 +901,111 @@ class RecipeControllerTest {
 		return getNonApplicationExceptionsForServiceLayer();
 	}
 
+	/*
+	 * Tests for PATCH method
+	 */
+	@Test
+	void test_PATCH_when_merge_patch_is_provided_then_patch_recipe_in_expected_version() throws Exception {
+
+		//given
+		long recipeId = 1;
+		String mergePatch = "{\"numberOfServings\":4}";
+
+		RecipeDTO patchedRecipeDTO
+				= TestUtils.RECIPE_DTO.toBuilder()
+				.id(recipeId)
+				.numberOfServings(4)
+				.build();
+
+		when(this.mockRecipePatchService.patch(recipeId, OBJECT_MAPPER.readTree(mergePatch), 3L))
+				.thenReturn(patchedRecipeDTO.toBuilder().version(4L).build());
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						patch(RECIPES_API_URL + "/" + recipeId)
+								.header(HttpHeaders.IF_MATCH, "\"3\"")
+								.contentType(ApiConstants.MediaTypes.APPLICATION_MERGE_PATCH_JSON)
+								.content(mergePatch));
+
+		//then
+		resultActions
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(patchedRecipeDTO)));
+	}
+
+	@Test
+	void test_PATCH_when_patch_is_invalid_then_return_error() throws Exception {
+
+		//given
+		long recipeId = 1;
+
+		when(this.mockRecipePatchService.patch(anyLong(), any(JsonNode.class), any()))
+				.thenThrow(new ApplicationException.InvalidRecipePatchException("Fields [name] can not be patched."));
+
+		ExceptionWrapper expectedApiError
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Invalid recipe patch.")
+				.description("Fields [name] can not be patched.")
+				.build();
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						patch(RECIPES_API_URL + "/" + recipeId)
+								.contentType(ApiConstants.MediaTypes.APPLICATION_MERGE_PATCH_JSON)
+								.content("{\"name\":\"other\"}"));
+
+		//then
+		resultActions
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedApiError)));
+	}
+
+	@Test
+	void test_PATCH_when_content_is_not_merge_patch_then_return_unsupported_media_type() throws Exception {
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						patch(RECIPES_API_URL + "/1")
+								.contentType(MediaType.APPLICATION_JSON_VALUE)
+								.content("{\"numberOfServings\":4}"));
+
+		//then
+		resultActions
+				.andExpect(status().isUnsupportedMediaType())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+
+		verify(this.mockRecipePatchService, never()).patch(anyLong(), any(JsonNode.class), any());
+	}
+
 	/*
 	 * Tests for DELETE method
 	 */
 	@Test
-	void test_DELETE_when_recipe_is_available_then_return_deleted_recipe() throws Exception {
+	void test_DELETE_when_recipe_is_available_then_return_no_content() throws Exception {
+
+		//given
+		long recipeId = 1L;
+
+		//when
+		ResultActions resultActions = this.mockMvc.perform(delete(RECIPES_API_URL + "/" + recipeId));
+
+		//then
+		resultActions
+				.andExpect(status().isNoContent())
+				.andExpect(content().string(emptyOrNullString()));
+
+		verify(this.mockRecipeService).deleteById(recipeId, null);
+		verify(this.mockRecipeService, never()).delete(anyLong(), any());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"return=representation", "RETURN=REPRESENTATION", "respond-async, return=representation"})
+	void test_DELETE_when_representation_is_preferred_then_return_deleted_recipe(String prefer) throws Exception {
 
 		//given
 		long recipeId = 1L;
@@ -658,27 +1017,75 @@ class RecipeControllerTest {
 				.vegetarian(true)
 				.build();
 
-		when(this.mockRecipeService.delete(recipeId))
+		when(this.mockRecipeService.delete(recipeId, null))
 				.thenReturn(expectedResult);
 
 		//when
-		ResultActions resultActions = this.mockMvc.perform(delete(RECIPES_API_URL + "/" + recipeId));
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						delete(RECIPES_API_URL + "/" + recipeId)
+								.header(ApiConstants.Headers.PREFER, prefer));
 
 		//then
 		resultActions
 				.andExpect(status().isOk())
+				.andExpect(header().string(
+						ApiConstants.Headers.PREFERENCE_APPLIED, ApiConstants.Headers.RETURN_REPRESENTATION))
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
 				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
 	}
 
+	@Test
+	void test_DELETE_when_recipe_is_not_in_expected_version_then_return_precondition_failed() throws Exception {
+
+		//given
+		long recipeId = 1L;
+
+		doThrow(new ApplicationException.RecipeVersionMismatchException("Recipe is not in version"))
+				.when(this.mockRecipeService).deleteById(recipeId, 3L);
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						delete(RECIPES_API_URL + "/" + recipeId)
+								.header(HttpHeaders.IF_MATCH, "\"3\""));
+
+		//then
+		resultActions
+				.andExpect(status().isPreconditionFailed())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+	}
+
+	@Test
+	void test_DELETE_when_if_match_is_any_and_recipe_is_not_available_then_return_precondition_failed()
+			throws Exception {
+
+		//given
+		long recipeId = 1L;
+
+		doThrow(new ApplicationException.RecipeVersionMismatchException("Recipe does not exist"))
+				.when(this.mockRecipeService).deleteById(recipeId, RecipeService.ANY_VERSION);
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						delete(RECIPES_API_URL + "/" + recipeId)
+								.header(HttpHeaders.IF_MATCH, "*"));
+
+		//then
+		resultActions
+				.andExpect(status().isPreconditionFailed())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+	}
+
 	@Test
 	void test_DELETE_when_recipe_is_not_available_then_return_error() throws Exception {
 
 		//given
 		long recipeId = 1L;
 
-		when(this.mockRecipeService.delete(recipeId))
-				.thenThrow(new ApplicationException.RecipeNotFoundException("Recipe not found"));
+		doThrow(new ApplicationException.RecipeNotFoundException("Recipe not found"))
+				.when(this.mockRecipeService).deleteById(recipeId, null);
 
 		//when
 		ResultActions resultActions = this.mockMvc.perform(delete(RECIPES_API_URL + "/" + recipeId));
@@ -689,6 +1096,49 @@ class RecipeControllerTest {
 				.andExpect(content().string(emptyOrNullString()));
 	}
 
+	@Test
+	void test_POST_bulk_delete_when_correct_criteria_then_return_number_of_deleted_recipes() throws Exception {
+
+		//given
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.vegetarian(true)
+				.build();
+
+		RecipeBulkDeleteResultDTO expectedResult = RecipeBulkDeleteResultDTO.builder().deleted(3).build();
+
+		when(this.mockRecipeBulkService.delete(recipeSearchCriteria))
+				.thenReturn(expectedResult);
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						post(RECIPES_API_URL + ApiConstants.Endpoints.BULK + ApiConstants.Endpoints.DELETE)
+								.contentType(MediaType.APPLICATION_JSON_VALUE)
+								.content(OBJECT_MAPPER.writeValueAsString(recipeSearchCriteria)));
+
+		//then
+		resultActions
+				.andExpect(status().isOk())
+				.andExpect(content().string(OBJECT_MAPPER.writeValueAsString(expectedResult)));
+	}
+
+	@Test
+	void test_POST_bulk_delete_when_criteria_is_empty_then_return_bad_request() throws Exception {
+
+		//when
+		ResultActions resultActions
+				= this.mockMvc.perform(
+						post(RECIPES_API_URL + ApiConstants.Endpoints.BULK + ApiConstants.Endpoints.DELETE)
+								.contentType(MediaType.APPLICATION_JSON_VALUE)
+								.content("{}"));
+
+		//then
+		resultActions.andExpect(status().isBadRequest());
+
+		verify(this.mockRecipeBulkService, never()).delete(any());
+	}
+
 	/*
 	 * Common util functions
 	 */
@@ -0,0 +1,144 @@
+package com.challenge.abnamro.controller;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkResultDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.service.RecipeBulkService;
+import com.challenge.abnamro.util.IntegrationTestUtils;
+import com.challenge.abnamro.util.TestUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.challenge.abnamro.util.IntegrationTestUtils.OBJECT_MAPPER;
+import static com.challenge.abnamro.util.IntegrationTestUtils.RECIPES_API_URL;
+import static com.challenge.abnamro.util.IntegrationTestUtils.RECIPE_EXPORT_API_URL;
+import static com.challenge.abnamro.util.IntegrationTestUtils.REST_TEMPLATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class RecipeExportControllerIntegrationTest {
+
+	//more than twice the number of recipes after which export clears persistence context
+	private static final int NUMBER_OF_RECIPES = 1001;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private RecipeBulkService recipeBulkService;
+
+	@Test
+	@DirtiesContext
+	void test_export_when_recipes_are_available_then_return_one_recipe_per_line() throws JsonProcessingException {
+
+		//given
+		List<RecipeDTO> expectedResult = new ArrayList<>();
+
+		for (long recipeId = 1; recipeId <= 5; ++recipeId)
+			expectedResult.add(
+					IntegrationTestUtils.postRecipeDTO(
+							getUrl(RECIPES_API_URL), TestUtils.getRecipeDTO(recipeId)).getBody());
+
+		//when
+		ResponseEntity<String> actualResponse = REST_TEMPLATE.getForEntity(getUrl(RECIPE_EXPORT_API_URL), String.class);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertEquals(MediaType.APPLICATION_NDJSON, actualResponse.getHeaders().getContentType());
+
+		List<RecipeDTO> actualResult = new ArrayList<>();
+
+		for (String line : actualResponse.getBody().split("\n"))
+			actualResult.add(OBJECT_MAPPER.readValue(line, RecipeDTO.class));
+
+		assertEquals(expectedResult, actualResult);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_export_when_persistence_context_is_cleared_during_export_then_return_every_recipe_once_and_complete()
+			throws JsonProcessingException {
+
+		//given
+		List<Long> expectedIds
+				= this.recipeBulkService.create(
+						IntStream.rangeClosed(1, NUMBER_OF_RECIPES)
+								.mapToObj(recipeId -> TestUtils.getRecipeDTO((long) recipeId))
+								.collect(Collectors.toList()))
+				.stream()
+				.map(RecipeBulkResultDTO::getId)
+				.sorted()
+				.collect(Collectors.toList());
+
+		Set<String> expectedIngredientNames = getIngredientNames(TestUtils.INGREDIENT_DTOs);
+
+		//when
+		ResponseEntity<String> actualResponse = REST_TEMPLATE.getForEntity(getUrl(RECIPE_EXPORT_API_URL), String.class);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+
+		String[] lines = actualResponse.getBody().split("\n");
+		assertEquals(NUMBER_OF_RECIPES, lines.length);
+
+		List<Long> actualIds = new ArrayList<>(lines.length);
+
+		for (String line : lines) {
+
+			RecipeDTO recipeDTO = OBJECT_MAPPER.readValue(line, RecipeDTO.class);
+
+			actualIds.add(recipeDTO.getId());
+			assertEquals(expectedIngredientNames, getIngredientNames(recipeDTO.getIngredients()));
+		}
+
+		assertEquals(expectedIds, actualIds);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_export_when_no_recipe_is_available_then_return_empty_body() {
+
+		//when
+		ResponseEntity<String> actualResponse = REST_TEMPLATE.getForEntity(getUrl(RECIPE_EXPORT_API_URL), String.class);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertNull(actualResponse.getBody());
+	}
+
+	private static Set<String> getIngredientNames(final Set<IngredientDTO> ingredientDTOs) {
+
+		return ingredientDTOs.stream()
+				.map(IngredientDTO::getName)
+				.collect(Collectors.toSet());
+	}
+
+	private String getUrl(String uri) {
+		return IntegrationTestUtils.getLocalUrlForPort(this.port, uri);
+	}
+}
@@ -3,13 +3,21 @@ package com.challenge.abnamro.controller;
 import com.challenge.abnamro.RecipeManagerApplication;
 import com.challenge.abnamro.exception.ExceptionWrapper;
 import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeFacetsDTO;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeSearchResultDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
 import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchExpression;
 import com.challenge.abnamro.util.IntegrationTestUtils;
 import com.challenge.abnamro.util.TestUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.assertj.core.util.Lists;
+import org.assertj.core.util.Maps;
 import org.assertj.core.util.Sets;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -26,9 +34,15 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.challenge.abnamro.util.IntegrationTestUtils.OBJECT_MAPPER;
@@ -183,7 +197,18 @@ class RecipeSearchControllerIntegrationTest {
 				.instructions(stepD + AND + stepA)
 				.build();
 
+		RecipeDTO recipeDTO5
+				= TestUtils.getRecipeDTO(5L).toBuilder()
+				.vegetarian(false)
+				.numberOfServings(3)
+				.ingredients(Sets.set(
+						TestUtils.INGREDIENT_DTO_1.toBuilder().build(),
+						TestUtils.INGREDIENT_DTO_2.toBuilder().build()))
+				.instructions(stepA + AND + stepC)
+				.build();
+
 		Set<RecipeDTO> inputRecipeDTOs = Sets.set(recipeDTO1, recipeDTO2, recipeDTO3, recipeDTO4);
+		Set<RecipeDTO> inputRecipeDTOsWithSharedIngredients = Sets.set(recipeDTO1, recipeDTO2, recipeDTO5);
 
 		return Stream.of(
 				arguments(
@@ -235,13 +260,555 @@ class RecipeSearchControllerIntegrationTest {
 								.build(),
 						inputRecipeDTOs,
 						Sets.set(recipeDTO1),
-						"vegetarian and text in instructions")
+						"vegetarian and text in instructions"),
+				arguments(
+						RecipeSearchCriteria.builder()
+								.includedIngredients(Sets.set(
+										TestUtils.INGREDIENT_1.toBuilder().build(),
+										TestUtils.INGREDIENT_2.toBuilder().build()))
+								.build(),
+						inputRecipeDTOsWithSharedIngredients,
+						Sets.set(recipeDTO5),
+						"all of included ingredients"),
+				arguments(
+						RecipeSearchCriteria.builder()
+								.excludedIngredients(Sets.set(TestUtils.INGREDIENT_2.toBuilder().build()))
+								.build(),
+						inputRecipeDTOsWithSharedIngredients,
+						Sets.set(recipeDTO1),
+						"none of excluded ingredients"),
+				arguments(
+						RecipeSearchCriteria.builder()
+								.includedIngredients(Sets.set(TestUtils.INGREDIENT_1.toBuilder().build()))
+								.excludedIngredients(Sets.set(TestUtils.INGREDIENT_2.toBuilder().build()))
+								.build(),
+						inputRecipeDTOsWithSharedIngredients,
+						Sets.set(recipeDTO1),
+						"included and excluded ingredients")
+		);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_recipe_is_created_after_search_then_return_created_recipe_in_next_search() {
+
+		//given
+		RecipeSearchCriteria recipeSearchCriteria = RecipeSearchCriteria.builder().vegetarian(true).build();
+		RecipeDTO recipeDTO1 = TestUtils.getRecipeDTO(1L).toBuilder().vegetarian(true).build();
+		RecipeDTO recipeDTO2 = TestUtils.getRecipeDTO(2L).toBuilder().vegetarian(true).build();
+
+		RecipeDTO savedRecipeDTO1 = postRecipeDTO(recipeDTO1).getBody();
+
+		ResponseEntity<RecipeDTO[]> beforeCreateResponse = searchForRecipeDTOs(recipeSearchCriteria);
+		assertEquals(Sets.set(savedRecipeDTO1), Sets.set(beforeCreateResponse.getBody()));
+
+		RecipeDTO savedRecipeDTO2 = postRecipeDTO(recipeDTO2).getBody();
+
+		//when
+		ResponseEntity<RecipeDTO[]> actualResponse = searchForRecipeDTOs(recipeSearchCriteria);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertEquals(Sets.set(savedRecipeDTO1, savedRecipeDTO2), Sets.set(actualResponse.getBody()));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_limit_provided_then_return_matched_recipes_page_by_page() {
+
+		//given
+		RecipeSearchCriteria recipeSearchCriteria = RecipeSearchCriteria.builder().vegetarian(true).build();
+		List<RecipeDTO> expectedResult = new ArrayList<>();
+
+		for (long recipeId = 1; recipeId <= 5; ++recipeId) {
+
+			RecipeDTO savedRecipeDTO
+					= postRecipeDTO(
+							TestUtils.getRecipeDTO(recipeId).toBuilder()
+									.vegetarian(recipeId != 2)
+									.build())
+					.getBody();
+
+			if (savedRecipeDTO.isVegetarian())
+				expectedResult.add(savedRecipeDTO);
+		}
+
+		String url = getUrl(RECIPE_SEARCH_API_URL + "?limit=3");
+		List<Integer> actualPageSizes = new ArrayList<>();
+		List<RecipeDTO> actualResult = new ArrayList<>();
+
+		//when
+		while (Objects.nonNull(url)) {
+
+			ResponseEntity<RecipeDTO[]> actualResponse = searchForRecipeDTOs(url, recipeSearchCriteria);
+			assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+
+			actualPageSizes.add(actualResponse.getBody().length);
+			actualResult.addAll(Lists.list(actualResponse.getBody()));
+
+			url = IntegrationTestUtils.getNextPageUrl(actualResponse.getHeaders());
+		}
+
+		//then
+		assertEquals(Lists.list(3, 1), actualPageSizes);
+		assertEquals(expectedResult, actualResult);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_summaries_when_limit_provided_then_return_summaries_of_matched_recipes_page_by_page() {
+
+		//given
+		RecipeSearchCriteria recipeSearchCriteria = RecipeSearchCriteria.builder().vegetarian(true).build();
+		List<RecipeSummaryDTO> expectedResult = new ArrayList<>();
+
+		for (long recipeId = 1; recipeId <= 5; ++recipeId) {
+
+			RecipeDTO savedRecipeDTO
+					= postRecipeDTO(
+							TestUtils.getRecipeDTO(recipeId).toBuilder()
+									.vegetarian(recipeId != 2)
+									.build())
+					.getBody();
+
+			if (savedRecipeDTO.isVegetarian())
+				expectedResult.add(
+						RecipeSummaryDTO.builder()
+								.id(savedRecipeDTO.getId())
+								.name(savedRecipeDTO.getName())
+								.vegetarian(savedRecipeDTO.isVegetarian())
+								.numberOfServings(savedRecipeDTO.getNumberOfServings())
+								.ingredients(savedRecipeDTO.getIngredients().stream()
+										.map(IngredientDTO::getName)
+										.collect(Collectors.toSet()))
+								.build());
+		}
+
+		String url = getUrl(RECIPE_SEARCH_API_URL + ApiConstants.Endpoints.SUMMARIES + "?limit=3");
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		HttpEntity<RecipeSearchCriteria> httpEntityRequest = new HttpEntity<>(recipeSearchCriteria, httpHeaders);
+
+		List<Integer> actualPageSizes = new ArrayList<>();
+		List<RecipeSummaryDTO> actualResult = new ArrayList<>();
+
+		//when
+		while (Objects.nonNull(url)) {
+
+			ResponseEntity<RecipeSummaryDTO[]> actualResponse
+					= REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, RecipeSummaryDTO[].class);
+			assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+
+			actualPageSizes.add(actualResponse.getBody().length);
+			actualResult.addAll(Lists.list(actualResponse.getBody()));
+
+			url = IntegrationTestUtils.getNextPageUrl(actualResponse.getHeaders());
+		}
+
+		//then
+		assertEquals(Lists.list(3, 1), actualPageSizes);
+		assertEquals(expectedResult, actualResult);
+	}
+
+	@ParameterizedTest(name = "search criteria = {2}")
+	@MethodSource
+	@DirtiesContext
+	void test_countFacets_when_recipes_are_matched_then_return_counts_per_facet_value(
+			final RecipeSearchCriteria recipeSearchCriteria,
+			final RecipeFacetsDTO expectedResult,
+			final String testDescription) {
+
+		//given
+		for (long recipeId = 1; recipeId <= 3; ++recipeId)
+			postRecipeDTO(
+					TestUtils.getRecipeDTO(recipeId).toBuilder()
+							.vegetarian(recipeId != 2)
+							.numberOfServings((int) recipeId)
+							.ingredients(
+									recipeId == 3
+											? Sets.set(TestUtils.INGREDIENT_DTO_1.toBuilder().build())
+											: Sets.set(
+													TestUtils.INGREDIENT_DTO_1.toBuilder().build(),
+													TestUtils.INGREDIENT_DTO_2.toBuilder().build()))
+							.instructions("Step " + recipeId + ". Serve.")
+							.build());
+
+		String url = getUrl(RECIPE_SEARCH_API_URL + ApiConstants.Endpoints.FACETS);
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		HttpEntity<RecipeSearchCriteria> httpEntityRequest = new HttpEntity<>(recipeSearchCriteria, httpHeaders);
+
+		//when
+		ResponseEntity<RecipeFacetsDTO> actualResponse
+				= REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, RecipeFacetsDTO.class);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertEquals(expectedResult, actualResponse.getBody());
+	}
+
+	private static Stream<Arguments> test_countFacets_when_recipes_are_matched_then_return_counts_per_facet_value() {
+
+		String ingredient1 = TestUtils.INGREDIENT_DTO_1.getName();
+		String ingredient2 = TestUtils.INGREDIENT_DTO_2.getName();
+
+		RecipeFacetsDTO allRecipes
+				= RecipeFacetsDTO.builder()
+				.total(3)
+				.vegetarian(getCounts(false, 1L, true, 2L))
+				.numberOfServings(getCounts(1, 1L, 2, 1L, 3, 1L))
+				.ingredients(getCounts(ingredient1, 3L, ingredient2, 2L))
+				.build();
+
+		RecipeFacetsDTO vegetarianRecipes
+				= RecipeFacetsDTO.builder()
+				.total(2)
+				.vegetarian(Maps.newHashMap(true, 2L))
+				.numberOfServings(getCounts(1, 1L, 3, 1L))
+				.ingredients(getCounts(ingredient1, 2L, ingredient2, 1L))
+				.build();
+
+		RecipeFacetsDTO noRecipes
+				= RecipeFacetsDTO.builder()
+				.total(0)
+				.vegetarian(Collections.emptyMap())
+				.numberOfServings(Collections.emptyMap())
+				.ingredients(Collections.emptyMap())
+				.build();
+
+		return Stream.of(
+				arguments(null, allRecipes, "no criteria"),
+				arguments(RecipeSearchCriteria.builder().vegetarian(true).build(), vegetarianRecipes, "index"),
+				arguments(
+						RecipeSearchCriteria.builder()
+								.vegetarian(true)
+								.textInInstructions(".")
+								.build(),
+						noRecipes,
+						"text without any term"),
+				arguments(
+						RecipeSearchCriteria.builder()
+								.vegetarian(true)
+								.textInInstructions("SERVE")
+								.build(),
+						vegetarianRecipes,
+						"indexes"),
+				arguments(RecipeSearchCriteria.builder().numberOfServings(100).build(), noRecipes, "no match"));
+	}
+
+	@ParameterizedTest(name = "invalid search criteria - {1}")
+	@MethodSource
+	@DirtiesContext
+	void test_countFacets_when_search_criteria_is_invalid_then_return_error(
+			final RecipeSearchCriteria recipeSearchCriteria,
+			final String testDescription) throws JsonProcessingException {
+
+		//given
+		String url = getUrl(RECIPE_SEARCH_API_URL + ApiConstants.Endpoints.FACETS);
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		HttpEntity<RecipeSearchCriteria> httpEntityRequest = new HttpEntity<>(recipeSearchCriteria, httpHeaders);
+
+		ExceptionWrapper expectedApiError
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Request validation failed.")
+				.description("Search criteria must be valid.")
+				.build();
+
+		//when
+		ResponseEntity<String> actualResponse
+				= REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, String.class);
+
+		//then
+		assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
+		assertEquals(expectedApiError, OBJECT_MAPPER.readValue(actualResponse.getBody(), ExceptionWrapper.class));
+	}
+
+	private static Stream<Arguments> test_countFacets_when_search_criteria_is_invalid_then_return_error() {
+
+		return Stream.of(
+				arguments(
+						RecipeSearchCriteria.builder()
+								.vegetarian(true)
+								.includedIngredients(Collections.emptySet())
+								.build(),
+						"included ingredients set is empty"),
+				arguments(
+						RecipeSearchCriteria.builder()
+								.includedIngredients(Sets.set(TestUtils.INGREDIENT_1))
+								.excludedIngredients(Sets.set(TestUtils.INGREDIENT_1))
+								.build(),
+						"common ingredient(s) in included and excluded sets")
 		);
 	}
 
+	@SuppressWarnings("unchecked")
+	private static <K> Map<K, Long> getCounts(final Object... keysAndCounts) {
+
+		Map<K, Long> counts = new HashMap<>();
+
+		for (int i = 0; i < keysAndCounts.length; i += 2)
+			counts.put((K) keysAndCounts[i], (Long) keysAndCounts[i + 1]);
+
+		return counts;
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_batch_when_criteria_provided_then_return_result_per_criteria() {
+
+		//given
+		RecipeDTO vegetarianRecipeDTO
+				= postRecipeDTO(TestUtils.getRecipeDTO(1L).toBuilder().vegetarian(true).build()).getBody();
+
+		RecipeSearchCriteria vegetarian = RecipeSearchCriteria.builder().vegetarian(true).build();
+		RecipeSearchCriteria nonVegetarian = RecipeSearchCriteria.builder().vegetarian(false).build();
+
+		List<RecipeSearchResultDTO> expectedResult
+				= Lists.list(
+						RecipeSearchResultDTO.builder().recipes(Lists.list(vegetarianRecipeDTO)).build(),
+						RecipeSearchResultDTO.builder()
+								.error(ExceptionWrapper.builder()
+										.httpStatus(HttpStatus.NOT_FOUND)
+										.error("Recipe not found.")
+										.description("No recipe fond.")
+										.build())
+								.build(),
+						RecipeSearchResultDTO.builder()
+								.error(ExceptionWrapper.builder()
+										.httpStatus(HttpStatus.BAD_REQUEST)
+										.error("Request validation failed.")
+										.description("Search criteria must be valid.")
+										.build())
+								.build(),
+						RecipeSearchResultDTO.builder().recipes(Lists.list(vegetarianRecipeDTO)).build());
+
+		String url = getUrl(RECIPE_SEARCH_API_URL + ApiConstants.Endpoints.BATCH);
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		HttpEntity<List<RecipeSearchCriteria>> httpEntityRequest
+				= new HttpEntity<>(
+						Lists.list(vegetarian, nonVegetarian, RecipeSearchCriteria.builder().build(), vegetarian),
+						httpHeaders);
+
+		//when
+		ResponseEntity<RecipeSearchResultDTO[]> actualResponse
+				= REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, RecipeSearchResultDTO[].class);
+
+		//then
+		assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+		assertEquals(expectedResult, Lists.list(actualResponse.getBody()));
+	}
+
+	@ParameterizedTest(name = "search expression = {2}")
+	@MethodSource
+	@DirtiesContext
+	void test_search_by_expression_when_recipes_found_matching_to_expression_then_return_matched_recipes(
+			final RecipeSearchExpression recipeSearchExpression,
+			final Set<Integer> expectedRecipeNumbers,
+			final String testDescription) {
+
+		//given
+		List<RecipeDTO> inputRecipeDTOs
+				= Lists.list(
+				TestUtils.getRecipeDTO(1L).toBuilder()
+						.vegetarian(true)
+						.numberOfServings(1)
+						.ingredients(Sets.set(TestUtils.INGREDIENT_DTO_1.toBuilder().build()))
+						.instructions("step A")
+						.build(),
+				TestUtils.getRecipeDTO(2L).toBuilder()
+						.vegetarian(false)
+						.numberOfServings(2)
+						.ingredients(Sets.set(TestUtils.INGREDIENT_DTO_2.toBuilder().build()))
+						.instructions("step B")
+						.build(),
+				TestUtils.getRecipeDTO(3L).toBuilder()
+						.vegetarian(true)
+						.numberOfServings(2)
+						.ingredients(Sets.set(
+								TestUtils.INGREDIENT_DTO_1.toBuilder().build(),
+								TestUtils.INGREDIENT_DTO_2.toBuilder().build()))
+						.instructions("step C")
+						.build(),
+				TestUtils.getRecipeDTO(4L).toBuilder()
+						.vegetarian(false)
+						.numberOfServings(4)
+						.ingredients(Sets.set(TestUtils.INGREDIENT_DTO_1.toBuilder().build()))
+						.instructions("step A and step C")
+						.build());
+
+		Set<RecipeDTO> expectedResult = new HashSet<>();
+
+		for (int recipeNumber = 1; recipeNumber <= inputRecipeDTOs.size(); ++recipeNumber) {
+
+			RecipeDTO savedRecipeDTO = postRecipeDTO(inputRecipeDTOs.get(recipeNumber - 1)).getBody();
+
+			if (expectedRecipeNumbers.contains(recipeNumber))
+				expectedResult.add(savedRecipeDTO);
+		}
+
+		String url = getUrl(RECIPE_SEARCH_API_URL + ApiConstants.Endpoints.EXPRESSION);
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		HttpEntity<RecipeSearchExpression> httpEntityRequest = new HttpEntity<>(recipeSearchExpression, httpHeaders);
+
+		//when
+		ResponseEntity<RecipeDTO[]> actualResponse
+				= REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, RecipeDTO[].class);
+
+		//then
+		if (expectedResult.isEmpty())
+			assertEquals(HttpStatus.NOT_FOUND, actualResponse.getStatusCode());
+		else {
+			assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+			assertEquals(expectedResult, Sets.set(actualResponse.getBody()));
+		}
+	}
+
+	private static Stream<Arguments>
+	test_search_by_expression_when_recipes_found_matching_to_expression_then_return_matched_recipes() {
+
+		RecipeSearchExpression vegetarian = criteria(RecipeSearchCriteria.builder().vegetarian(true).build());
+		RecipeSearchExpression nonVegetarian = criteria(RecipeSearchCriteria.builder().vegetarian(false).build());
+
+		return Stream.of(
+				arguments(
+						RecipeSearchExpression.builder()
+								.anyOf(Lists.list(
+										criteria(RecipeSearchCriteria.builder().numberOfServings(1).build()),
+										criteria(RecipeSearchCriteria.builder().numberOfServings(4).build())))
+								.build(),
+						Sets.set(1, 4),
+						"servings 1 OR servings 4"),
+				arguments(
+						RecipeSearchExpression.builder().not(vegetarian).build(),
+						Sets.set(2, 4),
+						"NOT vegetarian"),
+				arguments(
+						RecipeSearchExpression.builder()
+								.allOf(Lists.list(
+										vegetarian,
+										RecipeSearchExpression.builder()
+												.not(criteria(
+														RecipeSearchCriteria.builder()
+																.includedIngredients(Sets.set(TestUtils.INGREDIENT_2))
+																.build()))
+												.build()))
+								.build(),
+						Sets.set(1),
+						"vegetarian AND NOT ingredient 2"),
+				arguments(
+						RecipeSearchExpression.builder()
+								.anyOf(Lists.list(
+										criteria(
+												RecipeSearchCriteria.builder()
+														.vegetarian(true)
+														.numberOfServings(2)
+														.build()),
+										criteria(RecipeSearchCriteria.builder().textInInstructions("step A").build())))
+								.build(),
+						Sets.set(1, 3, 4),
+						"(vegetarian AND servings 2) OR text"),
+				arguments(
+						RecipeSearchExpression.builder()
+								.anyOf(Lists.list(
+										criteria(
+												RecipeSearchCriteria.builder()
+														.excludedIngredients(Sets.set(TestUtils.INGREDIENT_1))
+														.build()),
+										criteria(
+												RecipeSearchCriteria.builder()
+														.includedIngredients(
+																Sets.set(TestUtils.INGREDIENT_1, TestUtils.INGREDIENT_2))
+														.build())))
+								.build(),
+						Sets.set(2, 3),
+						"without ingredient 1 OR with ingredients 1 and 2"),
+				arguments(
+						RecipeSearchExpression.builder()
+								.not(RecipeSearchExpression.builder()
+										.anyOf(Lists.list(vegetarian, nonVegetarian))
+										.build())
+								.build(),
+						Collections.emptySet(),
+						"NOT (vegetarian OR non-vegetarian)"));
+	}
+
+	@ParameterizedTest(name = "invalid search expression - {1}")
+	@MethodSource
+	@DirtiesContext
+	void test_search_by_expression_when_expression_is_invalid_then_return_error(
+			final RecipeSearchExpression recipeSearchExpression,
+			final String expectedErrorDescription) throws JsonProcessingException {
+
+		//given
+		String url = getUrl(RECIPE_SEARCH_API_URL + ApiConstants.Endpoints.EXPRESSION);
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+		HttpEntity<RecipeSearchExpression> httpEntityRequest = new HttpEntity<>(recipeSearchExpression, httpHeaders);
+
+		ExceptionWrapper expectedApiError
+				= ExceptionWrapper.builder()
+				.httpStatus(HttpStatus.BAD_REQUEST)
+				.error("Request validation failed.")
+				.description(expectedErrorDescription)
+				.build();
+
+		//when
+		ResponseEntity<String> actualResponse
+				= REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, String.class);
+
+		//then
+		assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
+		assertEquals(expectedApiError, OBJECT_MAPPER.readValue(actualResponse.getBody(), ExceptionWrapper.class));
+	}
+
+	private static Stream<Arguments> test_search_by_expression_when_expression_is_invalid_then_return_error() {
+
+		String INVALID_SEARCH_EXPRESSION = "Search expression must be valid.";
+
+		RecipeSearchExpression vegetarian = criteria(RecipeSearchCriteria.builder().vegetarian(true).build());
+
+		List<RecipeSearchExpression> tooManyOperands = new ArrayList<>();
+
+		for (int i = 0; i < RecipeSearchExpression.MAX_NODES; ++i)
+			tooManyOperands.add(vegetarian);
+
+		return Stream.of(
+				arguments(RecipeSearchExpression.builder().build(), INVALID_SEARCH_EXPRESSION),
+				arguments(
+						RecipeSearchExpression.builder().anyOf(Collections.emptyList()).build(),
+						INVALID_SEARCH_EXPRESSION),
+				arguments(
+						RecipeSearchExpression.builder()
+								.criteria(RecipeSearchCriteria.builder().vegetarian(true).build())
+								.not(vegetarian)
+								.build(),
+						INVALID_SEARCH_EXPRESSION),
+				arguments(
+						RecipeSearchExpression.builder().anyOf(tooManyOperands).build(),
+						INVALID_SEARCH_EXPRESSION),
+				arguments(
+						RecipeSearchExpression.builder()
+								.not(criteria(RecipeSearchCriteria.builder().build()))
+								.build(),
+						"Search criteria must be valid."));
+	}
+
+	private static RecipeSearchExpression criteria(final RecipeSearchCriteria recipeSearchCriteria) {
+		return RecipeSearchExpression.builder().criteria(recipeSearchCriteria).build();
+	}
+
 	private ResponseEntity<RecipeDTO[]> searchForRecipeDTOs(final RecipeSearchCriteria recipeSearchCriteria) {
 
-		String url = getUrl(RECIPE_SEARCH_API_URL);
+		return searchForRecipeDTOs(getUrl(RECIPE_SEARCH_API_URL), recipeSearchCriteria);
+	}
+
+	private ResponseEntity<RecipeDTO[]> searchForRecipeDTOs(final String url,
+															final RecipeSearchCriteria recipeSearchCriteria) {
+
 		HttpHeaders httpHeaders = new HttpHeaders();
 		httpHeaders.setContentType(MediaType.APPLICATION_JSON);
 		HttpEntity<RecipeSearchCriteria> httpEntityRequest = new HttpEntity<>(recipeSearchCriteria, httpHeaders);
@@ -0,0 +1,143 @@
+package com.challenge.abnamro.index;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.model.entity.Recipe;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class InstructionsTextIndexTest {
+
+	private final InstructionsTextIndex cut = new InstructionsTextIndex();
+
+	@BeforeEach
+	void setUp() {
+
+		this.cut.rebuild(Lists.list(
+				RecipeChangedEvent.saved(getRecipe(1L, "Boil water, then add Pasta.")),
+				RecipeChangedEvent.saved(getRecipe(2L, "Add water to the pan and boil it.")),
+				RecipeChangedEvent.saved(getRecipe(3L, "Bake for 20 minutes."))));
+	}
+
+	@Test
+	void test_match_when_index_is_not_built_then_return_empty() {
+
+		//given
+		InstructionsTextIndex notBuiltIndex = new InstructionsTextIndex();
+
+		//when
+		Optional<RoaringBitmap> actualResult = notBuiltIndex.match("water");
+
+		//then
+		assertFalse(actualResult.isPresent());
+	}
+
+	@Test
+	void test_match_when_text_has_no_term_then_return_empty() {
+
+		//when
+		Optional<RoaringBitmap> actualResult = this.cut.match(" , ");
+
+		//then
+		assertFalse(actualResult.isPresent());
+	}
+
+	@Test
+	void test_match_when_single_term_then_return_recipes_ignoring_case() {
+
+		//when
+		RoaringBitmap actualResult = this.cut.match("WATER").get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(1, 2), actualResult);
+	}
+
+	@Test
+	void test_match_when_phrase_then_return_recipes_having_terms_next_to_each_other() {
+
+		//when
+		RoaringBitmap actualResult = this.cut.match("boil water").get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(1), actualResult);
+	}
+
+	@Test
+	void test_match_when_last_term_is_incomplete_then_match_it_as_prefix() {
+
+		//when
+		RoaringBitmap actualResult = this.cut.match("then add pa").get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(1), actualResult);
+	}
+
+	@Test
+	void test_match_when_text_ends_with_separator_then_match_last_term_completely() {
+
+		//when
+		RoaringBitmap actualResult = this.cut.match("add pa ").get();
+
+		//then
+		assertEquals(new RoaringBitmap(), actualResult);
+	}
+
+	@Test
+	void test_match_when_unknown_term_then_return_no_recipe() {
+
+		//when
+		RoaringBitmap actualResult = this.cut.match("fry").get();
+
+		//then
+		assertEquals(new RoaringBitmap(), actualResult);
+	}
+
+	@Test
+	void test_match_when_recipe_is_updated_then_return_recipes_as_per_updated_instructions() {
+
+		//given
+		this.cut.onRecipeChanged(RecipeChangedEvent.saved(getRecipe(3L, "Boil water for 20 minutes.")));
+
+		//when
+		RoaringBitmap actualResult = this.cut.match("boil water").get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(1, 3), actualResult);
+	}
+
+	@Test
+	void test_match_when_recipe_is_deleted_then_do_not_return_deleted_recipe() {
+
+		//given
+		this.cut.onRecipeChanged(RecipeChangedEvent.deleted(1L));
+
+		//when
+		RoaringBitmap actualResult = this.cut.match("water").get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(2), actualResult);
+	}
+
+	private static Recipe getRecipe(final long id, final String instructions) {
+		return Recipe.builder()
+				.id(id)
+				.name("Recipe" + id)
+				.vegetarian(true)
+				.numberOfServings(2)
+				.ingredients(Collections.emptySet())
+				.instructions(instructions)
+				.build();
+	}
+}
@@ -0,0 +1,227 @@
+package com.challenge.abnamro.index;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.model.dto.RecipeFacetsDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.util.TestUtils;
+import org.assertj.core.util.Lists;
+import org.assertj.core.util.Maps;
+import org.assertj.core.util.Sets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class RecipeBitmapIndexTest {
+
+	private static final Ingredient SALT = Ingredient.builder().name("salt").build();
+	private static final Ingredient ONION = Ingredient.builder().name("onion").build();
+	private static final Ingredient CHICKEN = Ingredient.builder().name("chicken").build();
+
+	private final RecipeBitmapIndex cut = new RecipeBitmapIndex();
+
+	@BeforeEach
+	void setUp() {
+
+		this.cut.rebuild(Lists.list(
+				RecipeChangedEvent.saved(getRecipe(1L, true, 2, SALT, ONION)),
+				RecipeChangedEvent.saved(getRecipe(2L, false, 2, SALT, CHICKEN)),
+				RecipeChangedEvent.saved(getRecipe(3L, true, 4, ONION))));
+	}
+
+	@Test
+	void test_match_when_index_is_not_built_then_return_empty() {
+
+		//given
+		RecipeBitmapIndex notBuiltIndex = new RecipeBitmapIndex();
+
+		//when
+		Optional<RoaringBitmap> actualResult
+				= notBuiltIndex.match(RecipeSearchCriteria.builder().vegetarian(true).build());
+
+		//then
+		assertFalse(actualResult.isPresent());
+	}
+
+	@Test
+	void test_match_when_only_text_criteria_then_return_empty() {
+
+		//when
+		Optional<RoaringBitmap> actualResult
+				= this.cut.match(RecipeSearchCriteria.builder().textInInstructions("step").build());
+
+		//then
+		assertFalse(actualResult.isPresent());
+	}
+
+	@Test
+	void test_match_when_vegetarian_and_number_of_servings_then_return_intersection() {
+
+		//when
+		RoaringBitmap actualResult
+				= this.cut.match(
+						RecipeSearchCriteria.builder()
+								.vegetarian(true)
+								.numberOfServings(2)
+								.build())
+				.get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(1), actualResult);
+	}
+
+	@Test
+	void test_match_when_included_ingredients_then_return_recipes_with_all_ingredients() {
+
+		//when
+		RoaringBitmap actualResult
+				= this.cut.match(
+						RecipeSearchCriteria.builder()
+								.includedIngredients(Sets.set(SALT, ONION))
+								.build())
+				.get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(1), actualResult);
+	}
+
+	@Test
+	void test_match_when_excluded_ingredients_then_return_recipes_without_any_ingredient() {
+
+		//when
+		RoaringBitmap actualResult
+				= this.cut.match(
+						RecipeSearchCriteria.builder()
+								.excludedIngredients(Sets.set(CHICKEN))
+								.build())
+				.get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(1, 3), actualResult);
+	}
+
+	@Test
+	void test_match_when_unknown_ingredient_is_included_then_return_no_recipe() {
+
+		//when
+		RoaringBitmap actualResult
+				= this.cut.match(
+						RecipeSearchCriteria.builder()
+								.includedIngredients(Sets.set(TestUtils.INGREDIENT_1))
+								.build())
+				.get();
+
+		//then
+		assertEquals(new RoaringBitmap(), actualResult);
+	}
+
+	@Test
+	void test_match_when_recipe_is_updated_then_return_recipes_as_per_updated_state() {
+
+		//given
+		this.cut.onRecipeChanged(RecipeChangedEvent.saved(getRecipe(3L, true, 2, SALT)));
+
+		//when
+		RoaringBitmap actualResult
+				= this.cut.match(
+						RecipeSearchCriteria.builder()
+								.numberOfServings(2)
+								.excludedIngredients(Sets.set(ONION))
+								.build())
+				.get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(2, 3), actualResult);
+	}
+
+	@Test
+	void test_match_when_recipe_is_deleted_then_do_not_return_deleted_recipe() {
+
+		//given
+		this.cut.onRecipeChanged(RecipeChangedEvent.deleted(1L));
+
+		//when
+		RoaringBitmap actualResult
+				= this.cut.match(
+						RecipeSearchCriteria.builder()
+								.includedIngredients(Collections.singleton(SALT))
+								.build())
+				.get();
+
+		//then
+		assertEquals(RoaringBitmap.bitmapOf(2), actualResult);
+	}
+
+	@Test
+	void test_countFacets_when_recipes_are_matched_then_count_matched_recipes_per_facet_value() {
+
+		//given
+		Map<String, Long> expectedIngredients = new LinkedHashMap<>();
+		expectedIngredients.put("salt", 2L);
+		expectedIngredients.put("chicken", 1L);
+
+		Map<Boolean, Long> expectedVegetarian = new LinkedHashMap<>();
+		expectedVegetarian.put(false, 1L);
+		expectedVegetarian.put(true, 1L);
+
+		RecipeFacetsDTO expectedResult
+				= RecipeFacetsDTO.builder()
+				.total(2)
+				.vegetarian(expectedVegetarian)
+				.numberOfServings(Maps.newHashMap(2, 2L))
+				.ingredients(expectedIngredients)
+				.build();
+
+		RoaringBitmap matchedRecipeIds
+				= this.cut.match(RecipeSearchCriteria.builder().includedIngredients(Sets.set(SALT)).build()).get();
+
+		//when
+		RecipeFacetsDTO actualResult = this.cut.countFacets(matchedRecipeIds, 2).get();
+
+		//then
+		assertEquals(expectedResult, actualResult);
+		assertEquals(Lists.newArrayList(expectedIngredients.keySet()),
+				Lists.newArrayList(actualResult.getIngredients().keySet()));
+	}
+
+	@Test
+	void test_countFacets_when_no_recipe_ids_provided_then_count_all_recipes_with_top_ingredients_only() {
+
+		//when
+		RecipeFacetsDTO actualResult = this.cut.countFacets(null, 1).get();
+
+		//then
+		assertEquals(3, actualResult.getTotal());
+		assertEquals(2L, actualResult.getVegetarian().get(true));
+		assertEquals(1L, actualResult.getVegetarian().get(false));
+		assertEquals(1L, actualResult.getNumberOfServings().get(4));
+		assertEquals(Maps.newHashMap("onion", 2L), actualResult.getIngredients());
+	}
+
+	private static Recipe getRecipe(final long id,
+									final boolean vegetarian,
+									final int numberOfServings,
+									final Ingredient... ingredients) {
+		return Recipe.builder()
+				.id(id)
+				.name("Recipe" + id)
+				.vegetarian(vegetarian)
+				.numberOfServings(numberOfServings)
+				.ingredients(Sets.set(ingredients))
+				.build();
+	}
+}
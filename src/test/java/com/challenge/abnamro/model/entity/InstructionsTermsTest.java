@@ -0,0 +1,38 @@
+package com.challenge.abnamro.model.entity;
+
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.index.InstructionsTextIndex;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class InstructionsTermsTest {
+
+	private static final String INSTRUCTIONS = "Mix and serve hot!!! Remix the sauce, then SERVE.";
+
+	@ParameterizedTest(name = "text = \"{0}\"")
+	@ValueSource(strings = {"Mix", "MIX AND", "ix", "and serve h", "serve hot ", "serve  HOT!", "sauce then", "!!!"})
+	void test_contains_when_text_is_searched_then_match_it_same_as_text_index(final String text) {
+
+		//given
+		InstructionsTextIndex instructionsTextIndex = new InstructionsTextIndex();
+		instructionsTextIndex.rebuild(Lists.list(
+				RecipeChangedEvent.saved(Recipe.builder().id(1L).instructions(INSTRUCTIONS).build())));
+
+		boolean expectedResult
+				= instructionsTextIndex.match(text)
+				.map(recipeIds -> recipeIds.contains(1))
+				.orElse(false);
+
+		//when
+		boolean actualResult = InstructionsTerms.contains(INSTRUCTIONS, text);
+
+		//then
+		assertEquals(expectedResult, actualResult);
+	}
+}
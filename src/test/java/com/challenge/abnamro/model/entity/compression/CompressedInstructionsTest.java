@@ -0,0 +1,88 @@
+package com.challenge.abnamro.model.entity.compression;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class CompressedInstructionsTest {
+
+	private static final String INSTRUCTIONS
+			= "Preheat the oven to 200 degrees. Peel and finely chop the onion and crush the garlic. "
+			+ "Heat the olive oil in a large frying pan over medium heat and fry the onion for 5 minutes. "
+			+ "Stir in the tomatoes, bring to the boil, then reduce the heat and simmer for 15 minutes. "
+			+ "Season to taste with salt and pepper and serve warm with fresh bread.";
+
+	@ParameterizedTest(name = "instructions = {0}")
+	@ValueSource(strings = {INSTRUCTIONS, "Mix.", "", "Käse reiben, Crème fraîche unterrühren 🧀"})
+	void test_getText_when_instructions_are_compressed_then_return_same_text(final String instructions) {
+
+		//when
+		String actualResult = CompressedInstructions.of(instructions).getText();
+
+		//then
+		assertEquals(instructions, actualResult);
+	}
+
+	@Test
+	void test_of_when_instructions_are_common_phrases_then_compress_them_to_less_than_half() {
+
+		//when
+		CompressedInstructions actualResult = CompressedInstructions.of(INSTRUCTIONS);
+
+		//then
+		assertTrue(actualResult.getCompressedLength() < INSTRUCTIONS.length() / 2,
+				"compressed length " + actualResult.getCompressedLength());
+	}
+
+	@Test
+	void test_of_when_instructions_are_too_short_to_compress_then_store_them_as_is() {
+
+		//when
+		CompressedInstructions actualResult = CompressedInstructions.of("Mix.");
+
+		//then
+		assertEquals(1 + "Mix.".getBytes(StandardCharsets.UTF_8).length, actualResult.getCompressedLength());
+	}
+
+	@Test
+	void test_of_when_instructions_are_equal_then_return_equal_values() {
+
+		//when
+		CompressedInstructions actualResult = CompressedInstructions.of(INSTRUCTIONS);
+
+		//then
+		assertEquals(CompressedInstructions.of(new String(INSTRUCTIONS.toCharArray())), actualResult);
+		assertEquals(CompressedInstructions.of(new String(INSTRUCTIONS.toCharArray())).hashCode(), actualResult.hashCode());
+	}
+
+	@Test
+	void test_of_when_instructions_are_null_then_return_null() {
+
+		//when
+		CompressedInstructions actualResult = CompressedInstructions.of(null);
+
+		//then
+		assertNull(actualResult);
+	}
+
+	@Test
+	void test_decompress_when_value_is_corrupted_then_throw_exception() {
+
+		//given
+		byte[] value = InstructionsCompression.compress(INSTRUCTIONS);
+		value[value.length / 2] ^= 0x5a;
+
+		//when
+		assertThrows(IllegalArgumentException.class, () -> InstructionsCompression.decompress(value));
+	}
+}
@@ -0,0 +1,51 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.model.entity.compression.InstructionsCompression;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class CompressInstructionsMigrationTest {
+
+	private static final String INSTRUCTIONS
+			= "Heat the olive oil in a large frying pan over medium heat. Add the onion and garlic "
+			+ "and fry for 5 minutes until soft and translucent. Season to taste with salt and pepper.";
+
+	@Test
+	void test_migrate_when_recipes_exist_then_compress_their_instructions() {
+
+		//given
+		DriverManagerDataSource dataSource
+				= new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		Flyway.configure().dataSource(dataSource).target("3").load().migrate();
+
+		jdbcTemplate.update(
+				"INSERT INTO recipe (id, name, vegetarian, number_of_servings, instructions) VALUES (?, ?, ?, ?, ?)",
+				1L, "recipe", true, 2, INSTRUCTIONS);
+
+		//when
+		Flyway.configure().dataSource(dataSource).load().migrate();
+
+		//then
+		byte[] actualResult
+				= jdbcTemplate.queryForObject("SELECT instructions FROM recipe WHERE id = 1", byte[].class);
+
+		assertArrayEquals(InstructionsCompression.compress(INSTRUCTIONS), actualResult);
+		assertEquals(INSTRUCTIONS, InstructionsCompression.decompress(actualResult));
+		assertEquals(
+				0,
+				jdbcTemplate.queryForObject(
+						"SELECT COUNT(*) FROM INFORMATION_SCHEMA.ROUTINES WHERE ROUTINE_SCHEMA = 'PUBLIC'", Integer.class));
+	}
+}
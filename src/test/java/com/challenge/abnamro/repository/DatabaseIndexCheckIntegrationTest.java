@@ -0,0 +1,56 @@
+package com.challenge.abnamro.repository;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = RecipeManagerApplication.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class DatabaseIndexCheckIntegrationTest {
+
+	@Autowired
+	private DatabaseIndexCheck cut;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void test_findMissingIndexes_when_schema_is_migrated_then_return_empty() {
+
+		//when
+		List<String> actualResult = this.cut.findMissingIndexes();
+
+		//then
+		assertTrue(actualResult.isEmpty(), actualResult::toString);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_findMissingIndexes_when_index_is_dropped_then_return_it() {
+
+		//given
+		this.jdbcTemplate.execute("DROP INDEX recipe_vegetarian_servings_idx");
+
+		//when
+		List<String> actualResult = this.cut.findMissingIndexes();
+
+		//then
+		assertEquals(Lists.list("recipe(vegetarian, number_of_servings)"), actualResult);
+	}
+}
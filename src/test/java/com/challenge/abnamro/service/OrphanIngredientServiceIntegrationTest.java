@@ -0,0 +1,195 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.cache.IngredientIdCache;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.OrphanIngredientReclamationDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.repository.IngredientRepository;
+import com.challenge.abnamro.util.SqlStatementCounter;
+import com.challenge.abnamro.util.TestUtils;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		properties = {
+				"spring.jpa.properties.hibernate.session_factory.statement_inspector"
+						+ "=com.challenge.abnamro.util.SqlStatementCounter",
+				"recipe.ingredient.orphan-reclamation.batch-size=2",
+				"recipe.ingredient.orphan-reclamation.batch-delay=0ms"})
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class OrphanIngredientServiceIntegrationTest {
+
+	@Autowired
+	private OrphanIngredientService cut;
+
+	@Autowired
+	private RecipeService recipeService;
+
+	@Autowired
+	private IngredientRepository ingredientRepository;
+
+	@Autowired
+	private IngredientIdCache ingredientIdCache;
+
+	@Autowired
+	private IngredientService ingredientService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	@DirtiesContext
+	void test_reclaim_when_ingredients_are_orphaned_then_delete_them_in_batches() {
+
+		//given
+		//ingredients 1 to 3 are shared, 4 to 8 are used by deleted recipe and by replaced ingredients only
+		RecipeDTO recipeDTO1 = this.recipeService.create(getRecipeDTO(1L, 1, 3));
+		RecipeDTO recipeDTO2 = this.recipeService.create(getRecipeDTO(2L, 1, 5));
+		RecipeDTO recipeDTO3 = this.recipeService.create(getRecipeDTO(3L, 6, 8));
+
+		this.recipeService.update(recipeDTO2.getId(), getRecipeDTO(2L, 1, 2));
+		this.recipeService.delete(recipeDTO3.getId());
+
+		SqlStatementCounter.reset();
+
+		//when
+		OrphanIngredientReclamationDTO actualResult = this.cut.reclaim();
+
+		//then
+		assertFalse(actualResult.isRunning());
+		assertNotNull(actualResult.getStartedAt());
+		assertNotNull(actualResult.getFinishedAt());
+		assertEquals(5, actualResult.getScanned());
+		assertEquals(5, actualResult.getDeleted());
+		assertEquals(5, actualResult.getTotalDeleted());
+		assertEquals(actualResult, this.cut.getProgress());
+
+		assertEquals(
+				getIngredientNames(1, 3),
+				this.ingredientRepository.findAll().stream()
+						.map(Ingredient::getName)
+						.collect(Collectors.toSet()));
+
+		//three batches of two orphans at most
+		assertEquals(3, SqlStatementCounter.count("delete from ingredient"));
+
+		//ids of deleted ingredients are not cached anymore
+		assertEquals(Collections.emptyMap(), this.ingredientIdCache.getAll(Lists.list("ingredient 4", "ingredient 8")));
+		assertEquals(recipeDTO1, this.recipeService.get(recipeDTO1.getId()));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_reclaim_when_no_ingredient_is_orphaned_then_delete_nothing() {
+
+		//given
+		this.recipeService.create(getRecipeDTO(1L, 1, 3));
+
+		//when
+		OrphanIngredientReclamationDTO actualResult = this.cut.reclaim();
+
+		//then
+		assertEquals(0, actualResult.getScanned());
+		assertEquals(0, actualResult.getDeleted());
+		assertEquals(3, this.ingredientRepository.count());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_reclaim_when_orphaned_ingredient_is_used_again_then_recipe_gets_new_ingredient() {
+
+		//given
+		RecipeDTO recipeDTO = this.recipeService.create(getRecipeDTO(1L, 1, 3));
+		this.recipeService.delete(recipeDTO.getId());
+
+		this.cut.reclaim();
+
+		//when
+		RecipeDTO actualResult = this.recipeService.create(getRecipeDTO(2L, 1, 3));
+
+		//then
+		assertEquals(3, actualResult.getIngredients().size());
+		assertEquals(actualResult, this.recipeService.get(actualResult.getId()));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_reclaim_when_it_runs_between_resolving_ingredients_and_inserting_recipe_then_keep_ingredients()
+			throws Exception {
+
+		//given
+		RecipeDTO recipeDTO = this.recipeService.create(getRecipeDTO(1L, 1, 3));
+		this.recipeService.delete(recipeDTO.getId());
+
+		//when
+		CompletableFuture<OrphanIngredientReclamationDTO> reclamation
+				= this.transactionTemplate.execute(transactionStatus -> {
+
+					//ids of orphaned ingredients are resolved from cache
+					this.ingredientService.resolve(getRecipeDTO(2L, 1, 3).getIngredients());
+
+					CompletableFuture<OrphanIngredientReclamationDTO> runningReclamation
+							= CompletableFuture.supplyAsync(this.cut::reclaim);
+
+					//reclamation waits until recipe referring resolved ingredients is committed
+					assertThrows(TimeoutException.class, () -> runningReclamation.get(500, TimeUnit.MILLISECONDS));
+
+					this.recipeService.create(getRecipeDTO(2L, 1, 3));
+
+					return runningReclamation;
+				});
+
+		//then
+		assertEquals(0, reclamation.get(10, TimeUnit.SECONDS).getDeleted());
+		assertEquals(
+				getIngredientNames(1, 3),
+				this.ingredientRepository.findAll().stream()
+						.map(Ingredient::getName)
+						.collect(Collectors.toSet()));
+	}
+
+	private static Set<String> getIngredientNames(final int from, final int to) {
+
+		return IntStream.rangeClosed(from, to)
+				.mapToObj(ingredientId -> "ingredient " + ingredientId)
+				.collect(Collectors.toSet());
+	}
+
+	private static RecipeDTO getRecipeDTO(final long recipeId, final int fromIngredient, final int toIngredient) {
+
+		return TestUtils.getRecipeDTO(recipeId).toBuilder()
+				.id(null)
+				.ingredients(
+						getIngredientNames(fromIngredient, toIngredient).stream()
+								.map(name -> IngredientDTO.builder().name(name).build())
+								.collect(Collectors.toSet()))
+				.build();
+	}
+}
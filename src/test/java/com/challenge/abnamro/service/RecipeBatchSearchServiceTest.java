@@ -0,0 +1,200 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.exception.ExceptionWrapper;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeSearchResultDTO;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.util.TestUtils;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class RecipeBatchSearchServiceTest {
+
+	private static final int MAX_BATCH_SIZE = 5;
+
+	private RecipeSearchService mockRecipeSearchService = mock(RecipeSearchService.class);
+	private RecipeBatchSearchService cut
+			= new RecipeBatchSearchService(
+					this.mockRecipeSearchService,
+					Validation.buildDefaultValidatorFactory().getValidator(),
+					MAX_BATCH_SIZE,
+					2);
+
+	@AfterEach
+	void shutdown() {
+		this.cut.shutdown();
+	}
+
+	@Test
+	void test_search_when_criteria_are_repeated_then_search_each_distinct_criteria_once() {
+
+		//given
+		RecipeSearchCriteria vegetarian = RecipeSearchCriteria.builder().vegetarian(true).build();
+		RecipeSearchCriteria nonVegetarian = RecipeSearchCriteria.builder().vegetarian(false).build();
+
+		List<RecipeDTO> vegetarianRecipeDTOs = Lists.list(TestUtils.getRecipeDTO(1L));
+		List<RecipeDTO> nonVegetarianRecipeDTOs = Lists.list(TestUtils.getRecipeDTO(2L));
+
+		when(this.mockRecipeSearchService.search(vegetarian)).thenReturn(vegetarianRecipeDTOs);
+		when(this.mockRecipeSearchService.search(nonVegetarian)).thenReturn(nonVegetarianRecipeDTOs);
+
+		List<RecipeSearchResultDTO> expectedResult
+				= Lists.list(
+						RecipeSearchResultDTO.builder().recipes(vegetarianRecipeDTOs).build(),
+						RecipeSearchResultDTO.builder().recipes(nonVegetarianRecipeDTOs).build(),
+						RecipeSearchResultDTO.builder().recipes(vegetarianRecipeDTOs).build());
+
+		//when
+		//equal criteria given as different instance
+		List<RecipeSearchResultDTO> actualResult
+				= this.cut.search(Lists.list(vegetarian, nonVegetarian, copy(vegetarian)));
+
+		//then
+		assertEquals(expectedResult, actualResult);
+		verify(this.mockRecipeSearchService, times(1)).search(vegetarian);
+		verify(this.mockRecipeSearchService, times(1)).search(nonVegetarian);
+	}
+
+	@Test
+	void test_search_when_search_of_a_criteria_fails_then_report_error_in_its_result_only() {
+
+		//given
+		RecipeSearchCriteria found = RecipeSearchCriteria.builder().numberOfServings(1).build();
+		RecipeSearchCriteria notFound = RecipeSearchCriteria.builder().numberOfServings(2).build();
+		RecipeSearchCriteria failing = RecipeSearchCriteria.builder().numberOfServings(3).build();
+		RecipeSearchCriteria invalid = RecipeSearchCriteria.builder().build();
+
+		List<RecipeDTO> foundRecipeDTOs = Lists.list(TestUtils.getRecipeDTO(1L));
+
+		when(this.mockRecipeSearchService.search(found)).thenReturn(foundRecipeDTOs);
+		when(this.mockRecipeSearchService.search(notFound))
+				.thenThrow(new ApplicationException.RecipeNotFoundException("No recipe fond."));
+		when(this.mockRecipeSearchService.search(failing)).thenThrow(new IllegalStateException());
+
+		List<RecipeSearchResultDTO> expectedResult
+				= Lists.list(
+						RecipeSearchResultDTO.builder().recipes(foundRecipeDTOs).build(),
+						getErrorResult(HttpStatus.NOT_FOUND, "Recipe not found.", "No recipe fond."),
+						RecipeSearchResultDTO.builder().error(ExceptionWrapper.INTERNAL_SERVER_ERROR).build(),
+						getErrorResult(HttpStatus.BAD_REQUEST, "Request validation failed.", "Search criteria must be valid."),
+						getErrorResult(HttpStatus.BAD_REQUEST, "Request validation failed.", "Search criteria must be provided."));
+
+		//when
+		List<RecipeSearchResultDTO> actualResult
+				= this.cut.search(Lists.list(found, notFound, failing, invalid, null));
+
+		//then
+		assertEquals(expectedResult, actualResult);
+	}
+
+	@Test
+	void test_search_when_no_criteria_provided_then_return_no_result() {
+
+		//when
+		List<RecipeSearchResultDTO> actualResult = this.cut.search(Collections.emptyList());
+
+		//then
+		assertEquals(Collections.emptyList(), actualResult);
+	}
+
+	@Test
+	void test_search_when_too_many_criteria_provided_then_throw_exception() {
+
+		//given
+		List<RecipeSearchCriteria> recipeSearchCriteriaList = new ArrayList<>();
+
+		for (int numberOfServings = 0; numberOfServings <= MAX_BATCH_SIZE; ++numberOfServings)
+			recipeSearchCriteriaList.add(RecipeSearchCriteria.builder().numberOfServings(numberOfServings).build());
+
+		//when
+		//then
+		assertThrows(
+				ApplicationException.InvalidSearchBatchException.class,
+				() -> this.cut.search(recipeSearchCriteriaList));
+	}
+
+	@Test
+	void test_search_when_criteria_has_several_violations_then_describe_them_sorted_and_separated() {
+
+		//given
+		Validator mockValidator = mock(Validator.class);
+		RecipeBatchSearchService cutWithMockValidator
+				= new RecipeBatchSearchService(this.mockRecipeSearchService, mockValidator, MAX_BATCH_SIZE, 2);
+
+		RecipeSearchCriteria invalid = RecipeSearchCriteria.builder().numberOfServings(0).build();
+
+		Set<ConstraintViolation<RecipeSearchCriteria>> constraintViolations = new LinkedHashSet<>();
+		constraintViolations.add(getConstraintViolation("Second violation."));
+		constraintViolations.add(getConstraintViolation("First violation."));
+
+		when(mockValidator.validate(invalid)).thenReturn(constraintViolations);
+
+		//when
+		List<RecipeSearchResultDTO> actualResult;
+
+		try {
+			actualResult = cutWithMockValidator.search(Lists.list(invalid));
+		} finally {
+			cutWithMockValidator.shutdown();
+		}
+
+		//then
+		assertEquals(
+				Lists.list(getErrorResult(
+						HttpStatus.BAD_REQUEST, "Request validation failed.", "First violation. Second violation.")),
+				actualResult);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ConstraintViolation<RecipeSearchCriteria> getConstraintViolation(final String message) {
+
+		ConstraintViolation<RecipeSearchCriteria> constraintViolation = mock(ConstraintViolation.class);
+		when(constraintViolation.getMessage()).thenReturn(message);
+
+		return constraintViolation;
+	}
+
+	private static RecipeSearchCriteria copy(final RecipeSearchCriteria recipeSearchCriteria) {
+
+		return RecipeSearchCriteria.builder()
+				.vegetarian(recipeSearchCriteria.isVegetarian())
+				.build();
+	}
+
+	private static RecipeSearchResultDTO getErrorResult(final HttpStatus httpStatus,
+														final String error,
+														final String description) {
+
+		return RecipeSearchResultDTO.builder()
+				.error(ExceptionWrapper.builder()
+						.httpStatus(httpStatus)
+						.error(error)
+						.description(description)
+						.build())
+				.build();
+	}
+}
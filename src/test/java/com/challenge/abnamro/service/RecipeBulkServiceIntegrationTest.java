@@ -0,0 +1,232 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.index.InstructionsTextIndex;
+import com.challenge.abnamro.index.RecipeBitmapIndex;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkDeleteResultDTO;
+import com.challenge.abnamro.model.dto.RecipeBulkResultDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.repository.RecipeRepository;
+import com.challenge.abnamro.util.SqlStatementCounter;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		properties = {
+				"spring.jpa.properties.hibernate.session_factory.statement_inspector"
+						+ "=com.challenge.abnamro.util.SqlStatementCounter",
+				"recipe.bulk.chunk-size=500"})
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class RecipeBulkServiceIntegrationTest {
+
+	private static final int NUMBER_OF_RECIPES = 1200;
+	private static final int NUMBER_OF_INGREDIENTS = 30;
+
+	@Autowired
+	private RecipeBulkService cut;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private RecipeSearchService recipeSearchService;
+
+	@Autowired
+	private RecipeBitmapIndex recipeBitmapIndex;
+
+	@Autowired
+	private InstructionsTextIndex instructionsTextIndex;
+
+	@Test
+	@DirtiesContext
+	void test_create_when_recipes_are_valid_then_resolve_ingredients_once_and_insert_recipes_in_batches() {
+
+		//given
+		List<RecipeDTO> recipeDTOs
+				= IntStream.range(0, NUMBER_OF_RECIPES)
+				.mapToObj(RecipeBulkServiceIntegrationTest::getRecipeDTO)
+				.collect(Collectors.toList());
+
+		SqlStatementCounter.reset();
+
+		//when
+		List<RecipeBulkResultDTO> actualResult = this.cut.create(recipeDTOs);
+
+		//then
+		assertEquals(NUMBER_OF_RECIPES, actualResult.size());
+		assertTrue(actualResult.stream().allMatch(result -> Objects.nonNull(result.getId())));
+		assertEquals(NUMBER_OF_RECIPES, this.recipeRepository.count());
+
+		//one lookup and one batch of new ingredients for whole bulk
+		assertEquals(1, SqlStatementCounter.count("select ingredient"));
+		assertEquals(1, SqlStatementCounter.count("insert into ingredient"));
+
+		//no statement per recipe, insert statement is prepared once per chunk and executed in JDBC batches
+		assertEquals(0, SqlStatementCounter.count("select recipe"));
+		assertEquals(3, SqlStatementCounter.count("insert into recipe ("));
+		assertEquals(3, SqlStatementCounter.count("insert into recipe_ingredients"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_delete_when_criteria_matches_recipes_then_delete_them_by_statements_per_chunk() {
+
+		//given
+		this.cut.create(
+				IntStream.range(0, NUMBER_OF_RECIPES)
+						.mapToObj(RecipeBulkServiceIntegrationTest::getRecipeDTO)
+						.collect(Collectors.toList()));
+
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.vegetarian(true)
+				.build();
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeBulkDeleteResultDTO actualResult = this.cut.delete(recipeSearchCriteria);
+
+		//then
+		//600 matching recipes are deleted in two chunks, their ids are found by index and locked by one select per chunk
+		assertEquals(2, SqlStatementCounter.count("select"));
+		assertEquals(2, SqlStatementCounter.countContaining("for update"));
+		assertEquals(2, SqlStatementCounter.count("delete from recipe_ingredients"));
+		assertEquals(2, SqlStatementCounter.count("delete from recipe where"));
+
+		assertEquals(NUMBER_OF_RECIPES / 2, actualResult.getDeleted());
+		assertEquals(NUMBER_OF_RECIPES / 2, this.recipeRepository.count());
+		assertTrue(this.recipeRepository.findAll().stream().noneMatch(Recipe::isVegetarian));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_delete_when_criteria_matches_recipes_then_delete_recipes_found_by_search() {
+
+		//given
+		this.cut.create(
+				IntStream.range(0, NUMBER_OF_RECIPES)
+						.mapToObj(RecipeBulkServiceIntegrationTest::getRecipeDTO)
+						.collect(Collectors.toList()));
+
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.numberOfServings(2)
+				.excludedIngredients(Collections.singleton(Ingredient.builder().name("ingredient 3").build()))
+				.textInInstructions("SERVE")
+				.build();
+
+		Set<Long> searchedRecipeIds
+				= this.recipeSearchService.searchSummaries(recipeSearchCriteria).stream()
+				.map(RecipeSummaryDTO::getId)
+				.collect(Collectors.toSet());
+
+		//when
+		RecipeBulkDeleteResultDTO actualResult = this.cut.delete(recipeSearchCriteria);
+
+		//then
+		assertEquals(searchedRecipeIds.size(), actualResult.getDeleted());
+		assertEquals(NUMBER_OF_RECIPES - searchedRecipeIds.size(), this.recipeRepository.count());
+		assertTrue(this.recipeRepository.findAllById(searchedRecipeIds).isEmpty());
+		assertThrows(
+				ApplicationException.RecipeNotFoundException.class,
+				() -> this.recipeSearchService.searchSummaries(recipeSearchCriteria));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_delete_when_indexes_are_stale_then_delete_only_recipes_matching_in_database() {
+
+		//given
+		List<Long> recipeIds
+				= this.cut.create(
+						Lists.list(
+								getRecipeDTO(0),
+								getRecipeDTO(1),
+								getRecipeDTO(3).toBuilder().instructions("Bake.").build())).stream()
+				.map(RecipeBulkResultDTO::getId)
+				.collect(Collectors.toList());
+
+		//indexes see changes which were never committed, as if they did not catch up with database yet
+		applyToIndexes(getStaleChange(recipeIds.get(0), recipe -> recipe.setVegetarian(false)));
+		applyToIndexes(getStaleChange(recipeIds.get(2), recipe -> recipe.setInstructions("Bake and serve.")));
+
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.vegetarian(false)
+				.textInInstructions("serve")
+				.build();
+
+		assertEquals(recipeIds, this.recipeSearchService.findIds(recipeSearchCriteria, null, 10));
+
+		//when
+		RecipeBulkDeleteResultDTO actualResult = this.cut.delete(recipeSearchCriteria);
+
+		//then
+		assertEquals(1, actualResult.getDeleted());
+		assertFalse(this.recipeRepository.existsById(recipeIds.get(1)));
+		assertTrue(this.recipeRepository.existsById(recipeIds.get(0)));
+		assertTrue(this.recipeRepository.existsById(recipeIds.get(2)));
+	}
+
+	private RecipeChangedEvent getStaleChange(final long recipeId, final Consumer<Recipe> change) {
+
+		Recipe recipe = this.recipeRepository.findWithIngredientsById(recipeId).orElseThrow(IllegalStateException::new);
+		change.accept(recipe);
+
+		return RecipeChangedEvent.saved(recipe);
+	}
+
+	private void applyToIndexes(final RecipeChangedEvent recipeChangedEvent) {
+
+		this.recipeBitmapIndex.onRecipeChanged(recipeChangedEvent);
+		this.instructionsTextIndex.onRecipeChanged(recipeChangedEvent);
+	}
+
+	private static RecipeDTO getRecipeDTO(final int recipeNumber) {
+
+		return RecipeDTO.builder()
+				.name("recipe " + recipeNumber)
+				.vegetarian(recipeNumber % 2 == 0)
+				.numberOfServings(1 + recipeNumber % 4)
+				.ingredients(
+						IntStream.range(0, 3)
+								.mapToObj(i -> IngredientDTO.builder()
+										.name("ingredient " + (recipeNumber + i) % NUMBER_OF_INGREDIENTS)
+										.build())
+								.collect(Collectors.toSet()))
+				.instructions("Mix and serve.")
+				.build();
+	}
+}
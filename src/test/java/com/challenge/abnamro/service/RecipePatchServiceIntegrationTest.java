@@ -0,0 +1,196 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.util.SqlStatementCounter;
+import com.challenge.abnamro.util.TestUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector"
+				+ "=com.challenge.abnamro.util.SqlStatementCounter")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class RecipePatchServiceIntegrationTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Autowired
+	private RecipePatchService cut;
+
+	@Autowired
+	private RecipeService recipeService;
+
+	@Test
+	@DirtiesContext
+	void test_patch_when_number_of_servings_is_changed_then_update_its_column_only() throws JsonProcessingException {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(getRecipeDTO(1L, 10));
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeDTO actualResult = this.cut.patch(createdRecipeDTO.getId(), toJson("{\"numberOfServings\": 7}"), 0L);
+
+		//then
+		assertEquals(createdRecipeDTO.toBuilder().numberOfServings(7).build(), actualResult);
+		assertEquals(1L, actualResult.getVersion());
+
+		//recipe is cached, ids of its ingredients are read to publish the change and to return it
+		assertEquals(2, SqlStatementCounter.countAll());
+		assertEquals(1, SqlStatementCounter.countContaining("from recipe_ingredients"));
+		assertEquals(1, SqlStatementCounter.count("update recipe set"));
+		assertEquals(0, SqlStatementCounter.countContaining("instructions=?"));
+		assertEquals(0, SqlStatementCounter.count("delete from recipe_ingredients"));
+		assertEquals(0, SqlStatementCounter.count("insert into recipe_ingredients"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_patch_when_ingredients_are_not_changed_then_do_not_rewrite_them() throws JsonProcessingException {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(getRecipeDTO(1L, 10));
+
+		String mergePatch
+				= "{\"ingredients\": "
+				+ OBJECT_MAPPER.writeValueAsString(getIngredientDTOs(10))
+				+ "}";
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeDTO actualResult = this.cut.patch(createdRecipeDTO.getId(), toJson(mergePatch), null);
+
+		//then
+		assertEquals(createdRecipeDTO, actualResult);
+		assertEquals(0L, actualResult.getVersion());
+
+		assertEquals(0, SqlStatementCounter.count("update recipe set"));
+		assertEquals(0, SqlStatementCounter.count("delete from recipe_ingredients"));
+		assertEquals(0, SqlStatementCounter.count("insert into recipe_ingredients"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_patch_when_ingredients_are_changed_then_replace_them() throws JsonProcessingException {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(getRecipeDTO(1L, 10));
+
+		String mergePatch
+				= "{\"ingredients\": "
+				+ OBJECT_MAPPER.writeValueAsString(getIngredientDTOs(11))
+				+ "}";
+
+		//when
+		RecipeDTO actualResult = this.cut.patch(createdRecipeDTO.getId(), toJson(mergePatch), null);
+
+		//then
+		assertEquals(11, actualResult.getIngredients().size());
+		assertEquals(1L, actualResult.getVersion());
+		assertEquals(actualResult, this.recipeService.get(createdRecipeDTO.getId()));
+	}
+
+	@ParameterizedTest(name = "patch = {0}")
+	@ValueSource(strings = {
+			"[]",
+			"{\"name\": \"other recipe\"}",
+			"{\"numberOfServings\": null}",
+			"{\"numberOfServings\": 0}",
+			"{\"numberOfServings\": \"four\"}",
+			"{\"instructions\": \" \"}",
+			"{\"ingredients\": []}"})
+	@DirtiesContext
+	void test_patch_when_patch_is_invalid_then_throw_invalid_patch_error(final String mergePatch)
+			throws JsonProcessingException {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(getRecipeDTO(1L, 10));
+		JsonNode mergePatchNode = toJson(mergePatch);
+
+		//when
+		assertThrows(
+				ApplicationException.InvalidRecipePatchException.class,
+				() -> this.cut.patch(createdRecipeDTO.getId(), mergePatchNode, null));
+
+		//then
+		assertEquals(createdRecipeDTO, this.recipeService.get(createdRecipeDTO.getId()));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_patch_when_recipe_is_not_in_expected_version_then_throw_version_mismatch_error()
+			throws JsonProcessingException {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.recipeService.create(getRecipeDTO(1L, 10));
+		JsonNode mergePatch = toJson("{\"numberOfServings\": 7}");
+
+		//when
+		assertThrows(
+				ApplicationException.RecipeVersionMismatchException.class,
+				() -> this.cut.patch(createdRecipeDTO.getId(), mergePatch, 3L));
+
+		//then
+		assertEquals(createdRecipeDTO, this.recipeService.get(createdRecipeDTO.getId()));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_patch_when_recipe_does_not_exist_and_version_is_expected_then_throw_version_mismatch_error()
+			throws JsonProcessingException {
+
+		//given
+		JsonNode mergePatch = toJson("{\"numberOfServings\": 7}");
+
+		//when - then
+		assertThrows(
+				ApplicationException.RecipeVersionMismatchException.class,
+				() -> this.cut.patch(1L, mergePatch, RecipeService.ANY_VERSION));
+	}
+
+	private static JsonNode toJson(final String mergePatch) throws JsonProcessingException {
+		return OBJECT_MAPPER.readTree(mergePatch);
+	}
+
+	private static Set<IngredientDTO> getIngredientDTOs(final int numberOfIngredients) {
+
+		return IntStream.rangeClosed(1, numberOfIngredients)
+				.mapToObj(ingredientId -> IngredientDTO.builder().name("ingredient " + ingredientId).build())
+				.collect(Collectors.toSet());
+	}
+
+	private static RecipeDTO getRecipeDTO(final long recipeId, final int numberOfIngredients) {
+
+		return TestUtils.getRecipeDTO(recipeId).toBuilder()
+				.id(null)
+				.ingredients(getIngredientDTOs(numberOfIngredients))
+				.build();
+	}
+}
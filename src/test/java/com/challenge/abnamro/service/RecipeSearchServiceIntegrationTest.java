@@ -0,0 +1,384 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.event.RecipeChangedEvent;
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.index.InstructionsTextIndex;
+import com.challenge.abnamro.index.RecipeBitmapIndex;
+import com.challenge.abnamro.mapper.RecipeDTOMapper;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
+import com.challenge.abnamro.model.page.KeysetPage;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchCriteria;
+import com.challenge.abnamro.model.searchcriteria.RecipeSearchExpression;
+import com.challenge.abnamro.repository.RecipeRepository;
+import com.challenge.abnamro.util.SqlStatementCounter;
+import com.challenge.abnamro.util.TestUtils;
+import org.assertj.core.util.Lists;
+import org.assertj.core.util.Sets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector"
+				+ "=com.challenge.abnamro.util.SqlStatementCounter")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class RecipeSearchServiceIntegrationTest {
+
+	@Autowired
+	private RecipeService recipeService;
+
+	@Autowired
+	private RecipeSearchService cut;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private RecipeDTOMapper recipeDTOMapper;
+
+	@Autowired
+	private InstructionsTextIndex instructionsTextIndex;
+
+	@Autowired
+	private RecipeBitmapIndex recipeBitmapIndex;
+
+	@Autowired
+	private IngredientService ingredientService;
+
+	@BeforeEach
+	void setUp() {
+
+		for (long recipeId = 1; recipeId <= 5; ++recipeId)
+			this.recipeService.create(TestUtils.getRecipeDTO(recipeId));
+
+		SqlStatementCounter.reset();
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_criteria_is_provided_then_fetch_recipes_with_ingredients_by_one_query() {
+
+		//given
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.vegetarian(TestUtils.VEGETARIAN)
+				.build();
+
+		//when
+		List<RecipeDTO> actualResult = this.cut.search(recipeSearchCriteria);
+
+		//then
+		assertEquals(5, actualResult.size());
+		assertEquals(1, SqlStatementCounter.countAll());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_page_is_requested_then_fetch_recipes_with_ingredients_by_one_query() {
+
+		//given
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.includedIngredients(Sets.newLinkedHashSet(TestUtils.INGREDIENT_1))
+				.build();
+
+		//when
+		KeysetPage<RecipeDTO> actualResult = this.cut.search(recipeSearchCriteria, KeysetPageRequest.of(3, null));
+
+		//then
+		assertEquals(3, actualResult.getContent().size());
+		assertEquals(1, SqlStatementCounter.countAll());
+	}
+
+	@ParameterizedTest(name = "text = \"{0}\"")
+	@ValueSource(strings = {"Mix", "mix", "MIX AND", "ix", "and serve h", "serve hot ", "serve  HOT!", "sauce then"})
+	@DirtiesContext
+	void test_search_when_text_index_is_not_ready_then_wait_until_it_is_built(final String text) throws Exception {
+
+		//given
+		this.recipeService.create(
+				TestUtils.getRecipeDTO(6L).toBuilder()
+						.name("mix")
+						.instructions("Mix and serve hot!!!")
+						.build());
+		this.recipeService.create(
+				TestUtils.getRecipeDTO(7L).toBuilder()
+						.name("remix")
+						.instructions("Remix the sauce, then SERVE.")
+						.build());
+
+		//bitmap index is ready, text index is not built yet, as during startup
+		InstructionsTextIndex textIndexNotReady = new InstructionsTextIndex();
+
+		RecipeSearchService cutWithTextIndexNotReady
+				= new RecipeSearchService(
+						this.recipeRepository,
+						this.recipeDTOMapper,
+						this.recipeBitmapIndex,
+						textIndexNotReady,
+						this.ingredientService,
+						Duration.ofMinutes(1));
+
+		Set<String> expectedResult = searchNames(this.cut, text);
+
+		//when
+		CompletableFuture<Set<String>> actualResult
+				= CompletableFuture.supplyAsync(() -> searchNames(cutWithTextIndexNotReady, text));
+
+		textIndexNotReady.rebuild(
+				this.recipeRepository.findAll().stream()
+						.map(RecipeChangedEvent::saved)
+						.collect(Collectors.toList()));
+
+		//then
+		assertEquals(expectedResult, actualResult.get());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_text_index_is_not_built_in_time_then_throw_exception() {
+
+		//given
+		RecipeSearchService cutWithTextIndexNotReady
+				= new RecipeSearchService(
+						this.recipeRepository,
+						this.recipeDTOMapper,
+						this.recipeBitmapIndex,
+						new InstructionsTextIndex(),
+						this.ingredientService,
+						Duration.ofMillis(100));
+
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.textInInstructions("instructions")
+				.build();
+
+		//when - then
+		assertThrows(
+				ApplicationException.RecipeIndexNotReadyException.class,
+				() -> cutWithTextIndexNotReady.search(recipeSearchCriteria));
+		assertEquals(0, SqlStatementCounter.countAll());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_bitmap_index_is_not_ready_then_match_criteria_in_database() {
+
+		//given
+		RecipeDTO nonVegetarianRecipeDTO
+				= this.recipeService.create(TestUtils.getRecipeDTO(6L).toBuilder().vegetarian(false).build());
+
+		//bitmap index is not built yet, as during startup
+		RecipeSearchService cutWithBitmapIndexNotReady
+				= new RecipeSearchService(
+						this.recipeRepository,
+						this.recipeDTOMapper,
+						new RecipeBitmapIndex(),
+						this.instructionsTextIndex,
+						this.ingredientService,
+						Duration.ofMillis(100));
+
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.vegetarian(false)
+				.numberOfServings(TestUtils.NUMBER_OF_SERVINGS)
+				.includedIngredients(Sets.newLinkedHashSet(TestUtils.INGREDIENT_1))
+				.build();
+
+		//when
+		List<RecipeDTO> actualResult = cutWithBitmapIndexNotReady.search(recipeSearchCriteria);
+
+		//then
+		assertEquals(Lists.list(nonVegetarianRecipeDTO), actualResult);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_searchSummaries_when_criteria_is_provided_then_select_them_without_instructions_by_one_query() {
+
+		//given
+		RecipeSearchCriteria recipeSearchCriteria
+				= RecipeSearchCriteria.builder()
+				.vegetarian(TestUtils.VEGETARIAN)
+				.build();
+
+		//when
+		List<RecipeSummaryDTO> actualResult = this.cut.searchSummaries(recipeSearchCriteria);
+
+		//then
+		assertEquals(5, actualResult.size());
+		assertEquals(
+				Sets.newLinkedHashSet(TestUtils.INGREDIENT_1.getName(), TestUtils.INGREDIENT_2.getName()),
+				actualResult.get(0).getIngredients());
+		assertEquals(1, SqlStatementCounter.countAll());
+		assertEquals(0, SqlStatementCounter.countContaining("instructions"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_text_is_provided_then_match_terms_case_insensitive_from_start_of_word() {
+
+		//given
+		this.recipeService.create(
+				TestUtils.getRecipeDTO(6L).toBuilder()
+						.name("mix")
+						.instructions("Mix and serve hot!!!")
+						.build());
+		this.recipeService.create(
+				TestUtils.getRecipeDTO(7L).toBuilder()
+						.name("remix")
+						.instructions("Remix the sauce, then SERVE.")
+						.build());
+
+		//when - then
+		assertEquals(Sets.newLinkedHashSet("mix"), searchNames(this.cut, "MIX"));
+		assertEquals(Sets.newLinkedHashSet("mix", "remix"), searchNames(this.cut, "serve"));
+		assertEquals(Sets.newLinkedHashSet("remix"), searchNames(this.cut, "sauce then se"));
+		assertEquals(Collections.emptySet(), searchNames(this.cut, "ix"));
+		assertEquals(Collections.emptySet(), searchNames(this.cut, "!!!"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_expression_is_provided_then_fetch_recipes_with_ingredients_by_one_query() {
+
+		//given
+		RecipeSearchExpression recipeSearchExpression
+				= RecipeSearchExpression.builder()
+				.anyOf(Lists.list(
+						RecipeSearchExpression.builder()
+								.criteria(RecipeSearchCriteria.builder().numberOfServings(TestUtils.NUMBER_OF_SERVINGS).build())
+								.build(),
+						RecipeSearchExpression.builder()
+								.criteria(RecipeSearchCriteria.builder()
+										.excludedIngredients(Sets.newLinkedHashSet(
+												Ingredient.builder().name("unknown").build()))
+										.build())
+								.build()))
+				.build();
+
+		//when
+		List<RecipeDTO> actualResult = this.cut.search(recipeSearchExpression);
+
+		//then
+		assertEquals(5, actualResult.size());
+		assertEquals(1, SqlStatementCounter.countAll());
+	}
+
+	@ParameterizedTest(name = "text = \"{0}\"")
+	@ValueSource(strings = {"Mix", "MIX AND", "ix", "serve hot ", "sauce then"})
+	@DirtiesContext
+	void test_search_when_expression_contains_text_then_match_it_same_as_criteria_matched_by_index(final String text) {
+
+		//given
+		this.recipeService.create(
+				TestUtils.getRecipeDTO(6L).toBuilder()
+						.name("mix")
+						.instructions("Mix and serve hot!!!")
+						.build());
+		this.recipeService.create(
+				TestUtils.getRecipeDTO(7L).toBuilder()
+						.name("remix")
+						.instructions("Remix the sauce, then SERVE.")
+						.build());
+
+		RecipeSearchExpression recipeSearchExpression
+				= RecipeSearchExpression.builder()
+				.anyOf(Lists.list(
+						RecipeSearchExpression.builder()
+								.criteria(RecipeSearchCriteria.builder().textInInstructions(text).build())
+								.build(),
+						RecipeSearchExpression.builder()
+								.criteria(RecipeSearchCriteria.builder().numberOfServings(0).build())
+								.build()))
+				.build();
+
+		Set<String> expectedResult = searchNames(this.cut, text);
+
+		//when
+		Set<String> actualResult;
+
+		try {
+			actualResult
+					= this.cut.search(recipeSearchExpression).stream()
+					.map(RecipeDTO::getName)
+					.collect(Collectors.toSet());
+		} catch (ApplicationException.RecipeNotFoundException ex) {
+			actualResult = Collections.emptySet();
+		}
+
+		//then
+		assertEquals(expectedResult, actualResult);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_search_when_expression_negates_text_then_match_recipes_without_it_by_indexes() {
+
+		//given
+		this.recipeService.create(
+				TestUtils.getRecipeDTO(6L).toBuilder()
+						.name("mix")
+						.instructions("Mix and serve hot!!!")
+						.build());
+
+		RecipeSearchExpression recipeSearchExpression
+				= RecipeSearchExpression.builder()
+				.allOf(Lists.list(
+						RecipeSearchExpression.builder()
+								.criteria(RecipeSearchCriteria.builder().vegetarian(TestUtils.VEGETARIAN).build())
+								.build(),
+						RecipeSearchExpression.builder()
+								.not(RecipeSearchExpression.builder()
+										.criteria(RecipeSearchCriteria.builder().textInInstructions("serve").build())
+										.build())
+								.build()))
+				.build();
+
+		SqlStatementCounter.reset();
+
+		//when
+		List<RecipeDTO> actualResult = this.cut.search(recipeSearchExpression);
+
+		//then
+		assertEquals(5, actualResult.size());
+		assertEquals(1, SqlStatementCounter.countAll());
+	}
+
+	private static Set<String> searchNames(final RecipeSearchService recipeSearchService, final String text) {
+
+		try {
+			return recipeSearchService.search(RecipeSearchCriteria.builder().textInInstructions(text).build()).stream()
+					.map(RecipeDTO::getName)
+					.collect(Collectors.toSet());
+		} catch (ApplicationException.RecipeNotFoundException ex) {
+			return Collections.emptySet();
+		}
+	}
+}
@@ -0,0 +1,514 @@
+package com.challenge.abnamro.service;
+
+import com.challenge.abnamro.RecipeManagerApplication;
+import com.challenge.abnamro.configuration.SecondLevelCacheConfiguration;
+import com.challenge.abnamro.exception.ApplicationException;
+import com.challenge.abnamro.model.dto.IngredientDTO;
+import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.dto.RecipeSummaryDTO;
+import com.challenge.abnamro.model.page.KeysetPage;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
+import com.challenge.abnamro.util.SqlStatementCounter;
+import com.challenge.abnamro.util.TestUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+		classes = RecipeManagerApplication.class,
+		properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector"
+				+ "=com.challenge.abnamro.util.SqlStatementCounter")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ActiveProfiles("test")
+class RecipeServiceIntegrationTest {
+
+	@Autowired
+	private RecipeService cut;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@ParameterizedTest(name = "ingredients = {0}")
+	@ValueSource(ints = {2, 10, 26})
+	@DirtiesContext
+	void test_create_when_ingredients_are_provided_then_resolve_and_insert_them_in_one_statement_each(
+			final int numberOfIngredients) {
+
+		//given
+		//half of ingredients are already persisted
+		this.cut.create(getRecipeDTO(1L, numberOfIngredients / 2));
+
+		SqlStatementCounter.reset();
+
+		//when
+		this.cut.create(getRecipeDTO(2L, numberOfIngredients));
+
+		//then
+		assertEquals(1, SqlStatementCounter.count("select ingredient"));
+		assertEquals(1, SqlStatementCounter.count("insert into ingredient"));
+		assertEquals(1, SqlStatementCounter.count("insert into recipe_ingredients"));
+	}
+
+	@ParameterizedTest(name = "ingredients = {0}")
+	@ValueSource(ints = {2, 10, 26})
+	@DirtiesContext
+	void test_update_when_ingredients_are_provided_then_resolve_and_insert_them_in_one_statement_each(
+			final int numberOfIngredients) {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, numberOfIngredients / 2));
+
+		SqlStatementCounter.reset();
+
+		//when
+		this.cut.update(createdRecipeDTO.getId(), getRecipeDTO(1L, numberOfIngredients));
+
+		//then
+		//ingredients of recipe are loaded by their own query, joining recipe_ingredients
+		assertEquals(1, SqlStatementCounter.countContaining("from ingredient "));
+		assertEquals(1, SqlStatementCounter.count("insert into ingredient"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_update_when_one_ingredient_is_changed_then_delete_and_insert_its_rows_only() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 40));
+
+		//ingredient 40 is replaced by ingredient 41
+		RecipeDTO changedRecipeDTO = getRecipeDTO(1L, 41);
+		changedRecipeDTO.getIngredients().removeIf(ingredientDTO -> ingredientDTO.getName().equals("ingredient 40"));
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeDTO actualResult = this.cut.update(createdRecipeDTO.getId(), changedRecipeDTO);
+
+		//then
+		assertEquals(40, actualResult.getIngredients().size());
+		assertEquals(changedRecipeDTO.getIngredients(),
+				actualResult.getIngredients().stream()
+						.map(ingredientDTO -> ingredientDTO.toBuilder().id(null).build())
+						.collect(Collectors.toSet()));
+
+		//one row of removed ingredient is deleted and one row of added ingredient is inserted
+		assertEquals(1, SqlStatementCounter.count("delete from recipe_ingredients where recipes_id=? and ingredients_id=?"));
+		assertEquals(1, SqlStatementCounter.count("delete from recipe_ingredients"));
+		assertEquals(1, SqlStatementCounter.count("insert into recipe_ingredients"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_create_when_ingredients_are_already_persisted_then_take_their_ids_from_cache() {
+
+		//given
+		this.cut.create(getRecipeDTO(1L, 10));
+
+		SqlStatementCounter.reset();
+
+		//when
+		this.cut.create(getRecipeDTO(2L, 10));
+
+		//then
+		assertEquals(0, SqlStatementCounter.count("select ingredient"));
+		assertEquals(0, SqlStatementCounter.count("insert into ingredient"));
+		assertEquals(1, SqlStatementCounter.count("insert into recipe_ingredients"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_create_when_ingredients_are_new_then_allocate_their_ids_using_one_sequence_call() {
+
+		//given
+		SqlStatementCounter.reset();
+
+		//when
+		this.cut.create(getRecipeDTO(1L, 26));
+
+		//then
+		assertEquals(1, SqlStatementCounter.countContaining("next value for ingredient_id_sequence"));
+		assertEquals(1, SqlStatementCounter.countContaining("next value for recipe_id_sequence"));
+		assertEquals(1, SqlStatementCounter.count("insert into ingredient"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_create_when_instructions_are_provided_then_store_them_compressed() {
+
+		//given
+		String instructions
+				= "Peel and finely chop the onion. Heat the olive oil in a large frying pan over medium heat "
+				+ "and fry the onion for 5 minutes until soft and translucent. Pour in the stock, bring to the boil, "
+				+ "then reduce the heat and simmer for 20 minutes. Season to taste with salt and pepper.";
+
+		//when
+		RecipeDTO createdRecipeDTO
+				= this.cut.create(getRecipeDTO(1L, 10).toBuilder().instructions(instructions).build());
+
+		//then
+		Integer storedLength
+				= this.jdbcTemplate.queryForObject(
+						"SELECT OCTET_LENGTH(instructions) FROM recipe WHERE id = ?",
+						Integer.class,
+						createdRecipeDTO.getId());
+
+		assertTrue(storedLength < instructions.length() / 2, "stored length " + storedLength);
+		assertEquals(instructions, this.cut.get(createdRecipeDTO.getId()).getInstructions());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_get_when_recipe_is_available_then_fetch_it_with_ingredients_by_one_query() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeDTO actualResult = this.cut.get(createdRecipeDTO.getId());
+
+		//then
+		assertEquals(10, actualResult.getIngredients().size());
+		assertEquals(1, SqlStatementCounter.countAll());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_get_when_recipe_was_read_before_then_serve_it_from_second_level_cache() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+		this.cut.get(createdRecipeDTO.getId());
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeDTO actualResult = this.cut.get(createdRecipeDTO.getId());
+
+		//then
+		assertEquals(10, actualResult.getIngredients().size());
+		assertEquals(0, SqlStatementCounter.countAll());
+
+		for (String region : Lists.list(
+				SecondLevelCacheConfiguration.RECIPE_REGION,
+				SecondLevelCacheConfiguration.RECIPE_INGREDIENTS_REGION,
+				SecondLevelCacheConfiguration.INGREDIENT_REGION))
+			assertTrue(
+					this.meterRegistry.get("hibernate.second.level.cache.requests")
+							.tag("region", region)
+							.tag("result", "hit")
+							.functionCounter()
+							.count() > 0,
+					region);
+	}
+
+	@Test
+	@DirtiesContext
+	void test_getAll_when_recipes_are_available_then_fetch_them_with_ingredients_by_one_query() {
+
+		//given
+		for (long recipeId = 1; recipeId <= 5; ++recipeId)
+			this.cut.create(getRecipeDTO(recipeId, 10));
+
+		SqlStatementCounter.reset();
+
+		//when
+		List<RecipeDTO> actualResult = this.cut.getAll();
+
+		//then
+		assertEquals(5, actualResult.size());
+		assertEquals(1, SqlStatementCounter.countAll());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_getAll_when_page_is_requested_then_fetch_ids_and_recipes_with_ingredients_by_one_query_each() {
+
+		//given
+		for (long recipeId = 1; recipeId <= 5; ++recipeId)
+			this.cut.create(getRecipeDTO(recipeId, 10));
+
+		SqlStatementCounter.reset();
+
+		//when
+		KeysetPage<RecipeDTO> actualResult = this.cut.getAll(KeysetPageRequest.of(3, null));
+
+		//then
+		assertEquals(3, actualResult.getContent().size());
+		assertEquals(2, SqlStatementCounter.countAll());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_getAllSummaries_when_recipes_are_available_then_select_them_without_instructions_by_one_query() {
+
+		//given
+		List<RecipeSummaryDTO> expectedResult = new ArrayList<>();
+
+		for (long recipeId = 1; recipeId <= 5; ++recipeId)
+			expectedResult.add(getRecipeSummaryDTO(this.cut.create(getRecipeDTO(recipeId, 10))));
+
+		SqlStatementCounter.reset();
+
+		//when
+		List<RecipeSummaryDTO> actualResult = this.cut.getAllSummaries();
+
+		//then
+		assertEquals(expectedResult, actualResult);
+		assertEquals(1, SqlStatementCounter.countAll());
+		assertEquals(0, SqlStatementCounter.countContaining("instructions"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_getAllSummaries_when_page_is_requested_then_select_ids_and_summaries_by_one_query_each() {
+
+		//given
+		List<RecipeSummaryDTO> expectedResult = new ArrayList<>();
+
+		for (long recipeId = 1; recipeId <= 5; ++recipeId)
+			expectedResult.add(getRecipeSummaryDTO(this.cut.create(getRecipeDTO(recipeId, 10))));
+
+		SqlStatementCounter.reset();
+
+		//when
+		KeysetPage<RecipeSummaryDTO> actualResult = this.cut.getAllSummaries(KeysetPageRequest.of(3, null));
+
+		//then
+		assertEquals(expectedResult.subList(0, 3), actualResult.getContent());
+		assertTrue(actualResult.hasNext());
+		assertEquals(2, SqlStatementCounter.countAll());
+		assertEquals(0, SqlStatementCounter.countContaining("instructions"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_update_when_ingredients_are_not_changed_then_load_them_by_one_query_and_do_not_write_them() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+
+		SqlStatementCounter.reset();
+
+		//when
+		this.cut.update(createdRecipeDTO.getId(), getRecipeDTO(1L, 10));
+
+		//then
+		//recipe is read from second-level cache, its ingredients are loaded to be compared with new ones
+		assertEquals(1, SqlStatementCounter.count("select"));
+		assertEquals(1, SqlStatementCounter.countContaining("from recipe_ingredients"));
+		assertEquals(0, SqlStatementCounter.count("delete from recipe_ingredients"));
+		assertEquals(0, SqlStatementCounter.count("insert into recipe_ingredients"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_delete_when_recipe_is_available_then_fetch_it_with_ingredients_by_one_query() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeDTO actualResult = this.cut.delete(createdRecipeDTO.getId());
+
+		//then
+		assertEquals(10, actualResult.getIngredients().size());
+		assertEquals(1, SqlStatementCounter.count("select"));
+		assertEquals(1, SqlStatementCounter.count("delete from recipe_ingredients"));
+		assertEquals(1, SqlStatementCounter.count("delete from recipe where"));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_deleteById_when_recipe_is_cached_then_delete_it_without_loading_by_two_statements() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+		this.cut.get(createdRecipeDTO.getId());
+
+		SqlStatementCounter.reset();
+
+		//when
+		this.cut.deleteById(createdRecipeDTO.getId(), 0L);
+
+		//then
+		assertEquals(0, SqlStatementCounter.count("select"));
+		assertEquals(1, SqlStatementCounter.count("delete from recipe_ingredients"));
+		assertEquals(1, SqlStatementCounter.count("delete from recipe where id=? and version=?"));
+		assertEquals(2, SqlStatementCounter.countAll());
+		assertThrows(ApplicationException.RecipeNotFoundException.class, () -> this.cut.get(createdRecipeDTO.getId()));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_deleteById_when_other_recipe_is_cached_then_keep_it_in_second_level_cache() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+		RecipeDTO otherRecipeDTO = this.cut.create(getRecipeDTO(2L, 10));
+		this.cut.get(otherRecipeDTO.getId());
+
+		this.cut.deleteById(createdRecipeDTO.getId(), null);
+
+		SqlStatementCounter.reset();
+
+		//when
+		RecipeDTO actualResult = this.cut.get(otherRecipeDTO.getId());
+
+		//then
+		assertEquals(10, actualResult.getIngredients().size());
+		assertEquals(0, SqlStatementCounter.countAll());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_update_when_recipe_is_changed_then_increment_its_version() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+
+		//when
+		RecipeDTO actualResult = this.cut.update(createdRecipeDTO.getId(), getRecipeDTO(1L, 11), 0L);
+
+		//then
+		assertEquals(0L, createdRecipeDTO.getVersion());
+		assertEquals(1L, actualResult.getVersion());
+		assertEquals(1L, this.cut.get(createdRecipeDTO.getId()).getVersion());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_update_when_recipe_is_not_in_expected_version_then_throw_exception_and_keep_recipe() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+		this.cut.update(createdRecipeDTO.getId(), getRecipeDTO(1L, 11));
+
+		//when - then
+		assertThrows(
+				ApplicationException.RecipeVersionMismatchException.class,
+				() -> this.cut.update(createdRecipeDTO.getId(), getRecipeDTO(1L, 12), 0L));
+
+		assertEquals(11, this.cut.get(createdRecipeDTO.getId()).getIngredients().size());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_update_when_recipe_does_not_exist_and_version_is_expected_then_throw_exception() {
+
+		//when - then
+		assertThrows(
+				ApplicationException.RecipeVersionMismatchException.class,
+				() -> this.cut.update(1L, getRecipeDTO(1L, 10), 0L));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_update_when_recipe_does_not_exist_and_any_version_is_expected_then_throw_exception_and_do_not_create_it() {
+
+		//when
+		assertThrows(
+				ApplicationException.RecipeVersionMismatchException.class,
+				() -> this.cut.update(1L, getRecipeDTO(1L, 10), RecipeService.ANY_VERSION));
+
+		//then
+		assertThrows(ApplicationException.RecipeNotFoundException.class, () -> this.cut.get(1L));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_update_when_any_version_is_expected_then_update_recipe() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+
+		//when
+		RecipeDTO actualResult
+				= this.cut.update(createdRecipeDTO.getId(), getRecipeDTO(1L, 11), RecipeService.ANY_VERSION);
+
+		//then
+		assertEquals(1L, actualResult.getVersion());
+		assertEquals(11, actualResult.getIngredients().size());
+	}
+
+	@Test
+	@DirtiesContext
+	void test_deleteById_when_recipe_does_not_exist_and_version_is_expected_then_throw_version_mismatch_error() {
+
+		//when - then
+		assertThrows(
+				ApplicationException.RecipeVersionMismatchException.class,
+				() -> this.cut.deleteById(1L, RecipeService.ANY_VERSION));
+	}
+
+	@Test
+	@DirtiesContext
+	void test_delete_when_recipe_is_not_in_expected_version_then_throw_exception_and_keep_recipe() {
+
+		//given
+		RecipeDTO createdRecipeDTO = this.cut.create(getRecipeDTO(1L, 10));
+		this.cut.update(createdRecipeDTO.getId(), getRecipeDTO(1L, 11));
+
+		//when - then
+		assertThrows(
+				ApplicationException.RecipeVersionMismatchException.class,
+				() -> this.cut.delete(createdRecipeDTO.getId(), 0L));
+
+		assertEquals(1L, this.cut.get(createdRecipeDTO.getId()).getVersion());
+	}
+
+	private static RecipeSummaryDTO getRecipeSummaryDTO(final RecipeDTO recipeDTO) {
+
+		return RecipeSummaryDTO.builder()
+				.id(recipeDTO.getId())
+				.name(recipeDTO.getName())
+				.vegetarian(recipeDTO.isVegetarian())
+				.numberOfServings(recipeDTO.getNumberOfServings())
+				.ingredients(recipeDTO.getIngredients().stream()
+						.map(IngredientDTO::getName)
+						.collect(Collectors.toSet()))
+				.build();
+	}
+
+	private static RecipeDTO getRecipeDTO(final long recipeId, final int numberOfIngredients) {
+
+		Set<IngredientDTO> ingredientDTOs
+				= IntStream.rangeClosed(1, numberOfIngredients)
+				.mapToObj(ingredientId -> IngredientDTO.builder().name("ingredient " + ingredientId).build())
+				.collect(Collectors.toSet());
+
+		return TestUtils.getRecipeDTO(recipeId).toBuilder()
+				.id(null)
+				.ingredients(ingredientDTOs)
+				.build();
+	}
+}
@@ -1,19 +1,29 @@
 package com.challenge.abnamro.service;
 
+import com.challenge.abnamro.cache.IngredientIdCache;
 import com.challenge.abnamro.exception.ApplicationException;
 import com.challenge.abnamro.mapper.IngredientDTOMapper;
 import com.challenge.abnamro.mapper.RecipeDTOMapper;
 import com.challenge.abnamro.model.dto.IngredientDTO;
 import com.challenge.abnamro.model.dto.RecipeDTO;
+import com.challenge.abnamro.model.entity.Ingredient;
 import com.challenge.abnamro.model.entity.Recipe;
+import com.challenge.abnamro.model.page.KeysetPage;
+import com.challenge.abnamro.model.page.KeysetPageRequest;
 import com.challenge.abnamro.repository.IngredientRepository;
 import com.challenge.abnamro.repository.RecipeRepository;
 import com.challenge.abnamro.util.TestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.util.Lists;
 import org.assertj.core.util.Sets;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.DisplayNameGenerator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 
 import javax.persistence.EntityExistsException;
@@ -21,16 +31,27 @@ import javax.persistence.QueryTimeoutException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
@@ -42,9 +63,15 @@ class RecipeServiceTest {
 
 	private RecipeRepository mockRecipeRepository = mock(RecipeRepository.class);
 	private IngredientRepository mockIngredientRepository = mock(IngredientRepository.class);
+	private ApplicationEventPublisher mockApplicationEventPublisher = mock(ApplicationEventPublisher.class);
 	private RecipeService cut
 			= new RecipeService(
-					this.mockRecipeRepository, this.mockIngredientRepository, RECIPE_DTO_MAPPER, INGREDIENT_DTO_MAPPER);
+					this.mockRecipeRepository,
+					new IngredientService(
+							this.mockIngredientRepository, INGREDIENT_DTO_MAPPER,
+							new IngredientIdCache(this.mockIngredientRepository, new SimpleMeterRegistry(), 100),
+							new IngredientReclamationLock()),
+					RECIPE_DTO_MAPPER, this.mockApplicationEventPublisher);
 
 	//@Test
 	void test_create_when_successful_then_return_saved_instance() {
@@ -69,11 +96,8 @@ class RecipeServiceTest {
 				.ingredients(Sets.set(ingredientDTO1, ingredientDTO2))
 				.build();
 
-		when(this.mockIngredientRepository.findByName(TestUtils.INGREDIENT_1.getName()))
-				.thenReturn(Optional.of(TestUtils.INGREDIENT_1));
-
-		when(this.mockIngredientRepository.findByName(TestUtils.INGREDIENT_2.getName()))
-				.thenReturn(Optional.of(TestUtils.INGREDIENT_2));
+		when(this.mockIngredientRepository.findByNameIn(anyCollection()))
+				.thenReturn(Lists.list(TestUtils.INGREDIENT_1, TestUtils.INGREDIENT_2));
 
 		when(this.mockRecipeRepository.save(any(Recipe.class)))
 				.thenReturn(createdRecipe);
@@ -89,11 +113,8 @@ class RecipeServiceTest {
 	void test_create_when_fails_then_throw_exception() {
 
 		//given
-		when(this.mockIngredientRepository.findByName(TestUtils.INGREDIENT_1.getName()))
-				.thenReturn(Optional.of(TestUtils.INGREDIENT_1));
-
-		when(this.mockIngredientRepository.findByName(TestUtils.INGREDIENT_2.getName()))
-				.thenReturn(Optional.of(TestUtils.INGREDIENT_2));
+		when(this.mockIngredientRepository.findByNameIn(anyCollection()))
+				.thenReturn(Lists.list(TestUtils.INGREDIENT_1, TestUtils.INGREDIENT_2));
 
 		when(this.mockRecipeRepository.save(any(Recipe.class)))
 				.thenThrow(EntityExistsException.class);
@@ -170,6 +191,72 @@ class RecipeServiceTest {
 		assertThrows(QueryTimeoutException.class, testExecutable);
 	}
 
+	@Test
+	void test_getAll_for_page_when_more_recipes_available_then_return_page_with_next_cursor() {
+
+		//given
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(2, null);
+
+		List<Recipe> recipes
+				= Lists.list(
+						Recipe.builder().id(1L).name("Recipe1").vegetarian(true).build(),
+						Recipe.builder().id(2L).name("Recipe2").vegetarian(true).build());
+
+		List<RecipeDTO> expectedResult
+				= Lists.list(
+						RecipeDTO.builder().id(1L).name("Recipe1").vegetarian(true).build(),
+						RecipeDTO.builder().id(2L).name("Recipe2").vegetarian(true).build());
+
+		when(this.mockRecipeRepository.findIds(isNull(), isNull(), eq(keysetPageRequest.getFetchSize())))
+				.thenReturn(Lists.list(1L, 2L, 3L));
+
+		when(this.mockRecipeRepository.findAll(any(Specification.class), any(Sort.class)))
+				.thenReturn(recipes);
+
+		//when
+		KeysetPage<RecipeDTO> actualResult = this.cut.getAll(keysetPageRequest);
+
+		//then
+		assertEquals(expectedResult, actualResult.getContent());
+		assertTrue(actualResult.hasNext());
+	}
+
+	@Test
+	void test_getAll_for_page_when_last_recipes_available_then_return_page_without_next_cursor() {
+
+		//given
+		KeysetPageRequest keysetPageRequest = KeysetPageRequest.of(2, null);
+
+		List<Recipe> recipes = Lists.list(Recipe.builder().id(1L).name("Recipe1").vegetarian(true).build());
+
+		when(this.mockRecipeRepository.findIds(isNull(), isNull(), eq(keysetPageRequest.getFetchSize())))
+				.thenReturn(Lists.list(1L));
+
+		when(this.mockRecipeRepository.findAll(any(Specification.class), any(Sort.class)))
+				.thenReturn(recipes);
+
+		//when
+		KeysetPage<RecipeDTO> actualResult = this.cut.getAll(keysetPageRequest);
+
+		//then
+		assertEquals(1, actualResult.getContent().size());
+		assertFalse(actualResult.hasNext());
+	}
+
+	@Test
+	void test_getAll_for_first_page_when_no_recipe_available_then_throw_no_data_found_error() {
+
+		//given
+		when(this.mockRecipeRepository.findIds(any(), any(), anyInt()))
+				.thenReturn(Collections.emptyList());
+
+		//when
+		Executable testExecutable = () -> this.cut.getAll(KeysetPageRequest.of(2, null));
+
+		//then
+		assertThrows(ApplicationException.RecipeNotFoundException.class, testExecutable);
+	}
+
 	@Test
 	void test_get_when_successful_then_return_available_instances() {
 
@@ -237,7 +324,7 @@ class RecipeServiceTest {
 	void test_update_when_recipe_is_available_then_update_and_return_saved_instance() {
 
 		//given
-		Recipe recipeInDatabase = TestUtils.RECIPE;
+		Recipe recipeInDatabase = TestUtils.RECIPE.toBuilder().build();
 		int changedNumberOfServings = recipeInDatabase.getNumberOfServings() + 1;
 
 		RecipeDTO inputRecipeDTO
@@ -249,6 +336,7 @@ class RecipeServiceTest {
 				= TestUtils.RECIPE_DTO.toBuilder()
 				.id(TestUtils.TEST_ID)
 				.numberOfServings(changedNumberOfServings)
+				.ingredients(getSavedIngredientDTOs())
 				.build();
 
 		long recipeId = recipeInDatabase.getId();
@@ -259,6 +347,9 @@ class RecipeServiceTest {
 		when(this.mockRecipeRepository.findById(recipeId))
 				.thenReturn(Optional.of(recipeInDatabase));
 
+		when(this.mockIngredientRepository.saveAll(anyList()))
+				.then(invocation -> assignIds(invocation.getArgument(0)));
+
 		when(this.mockRecipeRepository.save(any(Recipe.class)))
 				.then(returnsFirstArg());
 
@@ -276,11 +367,14 @@ class RecipeServiceTest {
 		long recipeId = 1L;
 
 		RecipeDTO inputRecipeDTO = TestUtils.RECIPE_DTO.toBuilder().build();
-		RecipeDTO expectedResult = TestUtils.RECIPE_DTO.toBuilder().build();
+		RecipeDTO expectedResult = TestUtils.RECIPE_DTO.toBuilder().ingredients(getSavedIngredientDTOs()).build();
 
 		when(this.mockRecipeRepository.findById(recipeId))
 				.thenReturn(Optional.empty());
 
+		when(this.mockIngredientRepository.saveAll(anyList()))
+				.then(invocation -> assignIds(invocation.getArgument(0)));
+
 		when(this.mockRecipeRepository.save(any(Recipe.class)))
 				.then(returnsFirstArg());
 
@@ -336,7 +430,7 @@ class RecipeServiceTest {
 				.vegetarian(true)
 				.build();
 
-		when(this.mockRecipeRepository.findById(recipeId))
+		when(this.mockRecipeRepository.findWithIngredientsById(recipeId))
 				.thenReturn(optionalRecipe);
 
 		//when
@@ -344,6 +438,7 @@ class RecipeServiceTest {
 
 		//then
 		assertEquals(expectedResult, actualResult);
+		verify(this.mockRecipeRepository).delete(optionalRecipe.get());
 	}
 
 	@Test
@@ -353,7 +448,7 @@ class RecipeServiceTest {
 		long recipeId = 1L;
 		Optional<Recipe> optionalRecipe = Optional.empty();
 
-		when(this.mockRecipeRepository.findById(recipeId))
+		when(this.mockRecipeRepository.findWithIngredientsById(recipeId))
 				.thenReturn(optionalRecipe);
 
 		//when
@@ -369,7 +464,7 @@ class RecipeServiceTest {
 		//given
 		long recipeId = 1L;
 
-		when(this.mockRecipeRepository.findById(recipeId))
+		when(this.mockRecipeRepository.findWithIngredientsById(recipeId))
 				.thenThrow(QueryTimeoutException.class);
 
 		//when
@@ -378,4 +473,92 @@ class RecipeServiceTest {
 		//then
 		assertThrows(QueryTimeoutException.class, testExecutable);
 	}
+
+	@Test
+	void test_deleteById_when_no_recipe_available_then_throw_no_data_found_error() {
+
+		//given
+		long recipeId = 1L;
+
+		when(this.mockRecipeRepository.findById(recipeId))
+				.thenReturn(Optional.empty());
+
+		//when
+		Executable testExecutable = () -> this.cut.deleteById(recipeId, null);
+
+		//then
+		assertThrows(ApplicationException.RecipeNotFoundException.class, testExecutable);
+	}
+
+	@Test
+	void test_deleteById_when_no_recipe_available_and_version_is_expected_then_throw_version_mismatch_error() {
+
+		//given
+		long recipeId = 1L;
+
+		when(this.mockRecipeRepository.findById(recipeId))
+				.thenReturn(Optional.empty());
+
+		//when
+		Executable testExecutable = () -> this.cut.deleteById(recipeId, 3L);
+
+		//then
+		assertThrows(ApplicationException.RecipeVersionMismatchException.class, testExecutable);
+	}
+
+	@Test
+	void test_deleteById_when_recipe_is_not_in_expected_version_then_throw_version_mismatch_error() {
+
+		//given
+		long recipeId = 1L;
+
+		when(this.mockRecipeRepository.findById(recipeId))
+				.thenReturn(Optional.of(Recipe.builder().id(recipeId).version(0L).build()));
+
+		//when
+		Executable testExecutable = () -> this.cut.deleteById(recipeId, 3L);
+
+		//then
+		assertThrows(ApplicationException.RecipeVersionMismatchException.class, testExecutable);
+		verify(this.mockRecipeRepository, never()).delete(any());
+	}
+
+	@Test
+	void test_deleteById_when_recipe_is_changed_concurrently_then_throw_version_mismatch_error() {
+
+		//given
+		long recipeId = 1L;
+
+		when(this.mockRecipeRepository.findById(recipeId))
+				.thenReturn(Optional.of(Recipe.builder().id(recipeId).version(0L).build()));
+
+		doThrow(ObjectOptimisticLockingFailureException.class)
+				.when(this.mockRecipeRepository).flush();
+
+		//when
+		Executable testExecutable = () -> this.cut.deleteById(recipeId, 0L);
+
+		//then
+		assertThrows(ApplicationException.RecipeVersionMismatchException.class, testExecutable);
+	}
+
+	private static List<Ingredient> assignIds(final List<Ingredient> ingredients) {
+
+		//saved ingredient gets id of test ingredient with same name
+		ingredients.forEach(ingredient ->
+				ingredient.setId(
+						TestUtils.INGREDIENTS.stream()
+								.filter(ingredient::equals)
+								.findFirst()
+								.map(Ingredient::getId)
+								.orElse(null)));
+
+		return ingredients;
+	}
+
+	private static Set<IngredientDTO> getSavedIngredientDTOs() {
+		return Sets.set(
+				TestUtils.INGREDIENT_DTO_1.toBuilder().id(1L).build(),
+				TestUtils.INGREDIENT_DTO_2.toBuilder().id(2L).build());
+	}
 }
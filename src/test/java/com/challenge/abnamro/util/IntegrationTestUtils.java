@@ -10,6 +10,8 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Objects;
+
 public class IntegrationTestUtils {
 
 	public static final String LOCAL_HOST_URL_PATTERN = "http://localhost:";
@@ -23,6 +25,11 @@ public class IntegrationTestUtils {
 			+ ApiConstants.Endpoints.RECIPES
 			+ ApiConstants.Endpoints.SEARCH;
 
+	public static final String RECIPE_EXPORT_API_URL
+			= ApiConstants.Version.V_1_0
+			+ ApiConstants.Endpoints.RECIPES
+			+ ApiConstants.Endpoints.EXPORT;
+
 	public static final TestRestTemplate REST_TEMPLATE = new TestRestTemplate();
 	public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
@@ -38,4 +45,17 @@ public class IntegrationTestUtils {
 
 		return REST_TEMPLATE.exchange(url, HttpMethod.POST, httpEntityRequest, RecipeDTO.class);
 	}
+
+	/*
+	 * Extracts url from header - Link: <url>; rel="next"
+	 */
+	public static String getNextPageUrl(final HttpHeaders httpHeaders) {
+
+		String link = httpHeaders.getFirst(HttpHeaders.LINK);
+
+		if (Objects.isNull(link))
+			return null;
+
+		return link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+	}
 }
@@ -0,0 +1,52 @@
+package com.challenge.abnamro.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hibernate statement inspector recording every prepared SQL statement,
+ * so that tests can verify number of queries issued by an operation.
+ *
+ * Statement of a JDBC batch is prepared, hence recorded, once for whole batch.
+ * Enabled using property <code>spring.jpa.properties.hibernate.session_factory.statement_inspector</code>.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(final String sql) {
+
+		STATEMENTS.add(sql.toLowerCase(Locale.ROOT));
+		return sql;
+	}
+
+	public static void reset() {
+		STATEMENTS.clear();
+	}
+
+	public static long count(final String statementPrefix) {
+
+		String prefix = statementPrefix.toLowerCase(Locale.ROOT);
+
+		return STATEMENTS.stream()
+				.filter(statement -> statement.startsWith(prefix))
+				.count();
+	}
+
+	public static long countContaining(final String text) {
+
+		String lowerCaseText = text.toLowerCase(Locale.ROOT);
+
+		return STATEMENTS.stream()
+				.filter(statement -> statement.contains(lowerCaseText))
+				.count();
+	}
+
+	public static long countAll() {
+		return STATEMENTS.size();
+	}
+}